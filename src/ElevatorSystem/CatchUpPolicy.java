@@ -0,0 +1,13 @@
+/*!
+ * \file CatchUpPolicy.java
+ * \brief Defines what a PacedRunner does with the time steps it missed after a time step overran its deadline
+ */
+
+// Define package
+package ElevatorSystem;
+
+//! Defines what a PacedRunner does with the time steps it missed after a time step overran its deadline
+public enum CatchUpPolicy {
+    SKIP,   //!< Drop the missed time steps and wait for the next deadline still in the future
+    BURST   //!< Run the missed time steps back to back until the runner is back on schedule
+}
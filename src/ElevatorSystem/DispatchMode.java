@@ -0,0 +1,14 @@
+/*!
+ * \file DispatchMode.java
+ * \brief Defines how the ElevatorController chooses the elevator for a new request
+ */
+
+// Define package
+package ElevatorSystem;
+
+//! Defines how the ElevatorController chooses the elevator for a new request
+public enum DispatchMode {
+    ESTIMATED_TIME,     //!< Choose the elevator with the lowest estimated time to finish the request
+    ROLLOUT,            //!< Choose the elevator whose simulated route is delayed least by the request
+    DESTINATION         //!< Choose the elevator that finishes the request soonest while adding the fewest new stops
+}
@@ -0,0 +1,531 @@
+/*!
+ * \file DistributedElevatorController.java
+ * \brief Defines a controller that dispatches calls to elevators run by several ElevatorNode processes
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Elevator System imports
+import ElevatorSystem.ElevatorState;
+import ElevatorSystem.FrameChannel;
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Coordinates elevators spread across several ElevatorNode processes, collecting ETA bids over non-blocking
+ * sockets and assigning each call to the elevator with the lowest bid
+ *
+ * \note A tick with open calls first collects every elevator's bid for each call from all nodes at once. The calls are
+ * then awarded in a single pass, in the order they were added, as a local ElevatorController would. Each bid comes with
+ * the dwell time the call would add to that elevator's route, and an award charges it to the winner's bids on the calls
+ * it would pick up later, so a burst of calls is spread over the fleet without asking the nodes to bid again. The tick
+ * frame then carries every node's awarded calls and steps every node at once, so each node is sent at most two frames
+ * per tick and the time taken by step() depends on the slowest node rather than on the number of nodes or calls
+ */
+public class DistributedElevatorController {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a DistributedElevatorController, connecting to each node
+     *
+     * \param num_floors Number of floors in the building
+     * \param nodes Addresses of the ElevatorNode processes running the building's elevators
+     */
+    public DistributedElevatorController(int num_floors, List<InetSocketAddress> nodes) throws IOException, IllegalArgumentException {
+        // Error Checking
+        if (num_floors <= 1) {
+            throw new IllegalArgumentException("DistributedElevatorController() - num_floors value must be greater than or equal to 2.");
+        }
+        if (nodes.size() < 1) {
+            throw new IllegalArgumentException("DistributedElevatorController() - at least one node must be provided.");
+        }
+
+        // Set values
+        num_floors_ = num_floors;
+        tick_ = 0;
+        tick_timeout_ms_ = 1000;
+        next_call_id_ = 0;
+        open_calls_ = new LinkedHashMap<Long, StopRequest>();
+        num_served_ = 0;
+        num_rejected_ = 0;
+        num_frames_sent_ = 0;
+        nodes_ = new ArrayList<NodeConnection>();
+
+        // Connect to each node
+        selector_ = Selector.open();
+        for (InetSocketAddress address : nodes) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.socket().setTcpNoDelay(true);
+            NodeConnection node = new NodeConnection(new FrameChannel(channel));
+            node.key = channel.register(selector_, SelectionKey.OP_READ, node);
+            nodes_.add(node);
+        }
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the number of floors that the elevator system operates on
+     *
+     * \return The number of floors that the elevator system operates on
+     */
+    public int get_num_floors() {
+        return num_floors_;
+    }
+
+    /*!
+     * \brief Return the number of elevators across all nodes, as of the last tick
+     *
+     * \return The number of elevators across all nodes, as of the last tick
+     */
+    public int get_num_elevators() {
+        int num_elevators = 0;
+        for (NodeConnection node : nodes_) {
+            num_elevators += node.floors.length;
+        }
+        return num_elevators;
+    }
+
+    /*!
+     * \brief Return the state of an elevator, as of the last tick
+     *
+     * \param elevator_index Index of the elevator across all nodes, counting the elevators of each node in node order
+     *
+     * \return The state of the elevator, as of the last tick
+     */
+    public ElevatorState get_elevator_state(int elevator_index) throws IllegalArgumentException {
+        for (NodeConnection node : nodes_) {
+            if (elevator_index >= 0 && elevator_index < node.states.length) {
+                return ElevatorState.values()[node.states[elevator_index]];
+            }
+            elevator_index -= node.states.length;
+        }
+        throw new IllegalArgumentException("DistributedElevatorController.get_elevator_state() - elevator index must be between 0 and the number of elevators.");
+    }
+
+    /*!
+     * \brief Return the number of calls that have been picked up
+     *
+     * \return The number of calls that have been picked up
+     */
+    public long get_num_served() {
+        return num_served_;
+    }
+
+    /*!
+     * \brief Return the number of calls that were dropped because no elevator on any node serves their floors
+     *
+     * \return The number of calls that were dropped because no elevator on any node serves their floors
+     */
+    public long get_num_rejected() {
+        return num_rejected_;
+    }
+
+    /*!
+     * \brief Return the number of frames sent to the nodes
+     *
+     * \return The number of frames sent to the nodes
+     */
+    public long get_num_frames_sent() {
+        return num_frames_sent_;
+    }
+
+    /*!
+     * \brief Set how long step() waits for every node to reply before giving up
+     *
+     * \param tick_timeout_ms Time to wait for the replies of a tick [ms]
+     */
+    public void set_tick_timeout(long tick_timeout_ms) throws IllegalArgumentException {
+        // Error Checking
+        if (tick_timeout_ms < 1) {
+            throw new IllegalArgumentException("DistributedElevatorController.set_tick_timeout() - timeout must be greater than 0.");
+        }
+
+        tick_timeout_ms_ = tick_timeout_ms;
+    }
+
+    /*!
+     * \brief Add a stop to be bid on by the nodes, and awarded, during the next tick
+     *
+     * \param stop Stop request specifying
+     */
+    public void add_stop(StopRequest stop) throws IllegalArgumentException {
+        // Error Checking on stop request
+        if (stop.get_pick_up_floor() < 1 || stop.get_pick_up_floor() > num_floors_ ) {
+            throw new IllegalArgumentException("DistributedElevatorController.add_stop() - floor number must be between 1 and num_floors.");
+        }
+
+        open_calls_.put(next_call_id_++, stop);
+    }
+
+    /*!
+     * \brief Returns true if any elevator in the system is active or any call is still waiting for an elevator, false
+     * otherwise
+     *
+     * \return true if any elevator in the system is active or any call is still waiting for an elevator, false otherwise
+     */
+    public boolean is_active() {
+        if (!open_calls_.isEmpty()) {
+            return true;
+        }
+
+        for (NodeConnection node : nodes_) {
+            if (!node.assignments.isEmpty() || node.num_pending > 0) {
+                return true;
+            }
+            for (int state : node.states) {
+                if (state != ElevatorState.IDLE.ordinal()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //! Step every node forward by one time step, first awarding the open calls
+    public void step() throws IOException {
+        tick_ += 1;
+
+        // Collect every elevator's bid for the open calls, and award them before the elevators step
+        if (!open_calls_.isEmpty()) {
+            for (NodeConnection node : nodes_) {
+                send_bids(node);
+            }
+            await_replies(true);
+            award_calls();
+        }
+
+        // Send every node the calls it won, all at once, and wait for the elevators to step
+        for (NodeConnection node : nodes_) {
+            send_tick(node);
+        }
+        await_replies(false);
+    }
+
+    //! Display the status of each elevator within the system, as of the last tick
+    public void display_status() {
+        for (int k = 0; k < nodes_.size(); k++) {
+            NodeConnection node = nodes_.get(k);
+            for (int index = 0; index < node.floors.length; index++) {
+                System.out.println("Node " + Integer.toString(k + 1) + " Elevator " + Integer.toString(index + 1) + ":");
+                System.out.println("    Status: " + ElevatorState.values()[node.states[index]].toString());
+                System.out.println("    Current Floor: " + Integer.toString(node.floors[index]));
+            }
+        }
+        System.out.println("\n");
+    }
+
+    //! Disconnect from every node
+    public void close() throws IOException {
+        for (NodeConnection node : nodes_) {
+            node.channel.close();
+        }
+        selector_.close();
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Wait for every node to reply to the frame it was sent
+     *
+     * \param bids true if the frames asked for bids, false if they stepped the elevators
+     */
+    private void await_replies(boolean bids) throws IOException {
+        int num_waiting = nodes_.size();
+        long deadline = System.nanoTime() + tick_timeout_ms_ * 1000000L;
+        while (num_waiting > 0) {
+            long remaining_ms = (deadline - System.nanoTime()) / 1000000L;
+            if (remaining_ms <= 0) {
+                throw new IOException("DistributedElevatorController.step() - timed out waiting for tick " + Long.toString(tick_) + ".");
+            }
+            selector_.select(remaining_ms);
+
+            for (SelectionKey key : selector_.selectedKeys()) {
+                NodeConnection node = (NodeConnection) key.attachment();
+                if (key.isWritable() && node.channel.flush()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+                if (key.isReadable()) {
+                    if (!node.channel.read()) {
+                        throw new IOException("DistributedElevatorController.step() - a node disconnected.");
+                    }
+
+                    ByteBuffer frame;
+                    while ((frame = node.channel.next_frame()) != null) {
+                        read_tick(frame);
+                        if (bids) {
+                            read_bids(node, frame);
+                        } else {
+                            read_status(node, frame);
+                        }
+                        num_waiting -= 1;
+                    }
+                }
+            }
+            selector_.selectedKeys().clear();
+        }
+    }
+
+    /*!
+     * \brief Award each open call, in the order they were added, to the elevator with the lowest bid, breaking ties by
+     * node order
+     *
+     * \note The bids were all made before any call was awarded, so each elevator's bid is raised by the dwell time of the
+     * calls it has already won this tick and would pick up first
+     */
+    private void award_calls() {
+        Iterator<Map.Entry<Long, StopRequest>> iterator = open_calls_.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, StopRequest> call = iterator.next();
+            iterator.remove();
+
+            NodeConnection best_node = null;
+            int best_index = -1;
+            int min_time = 0;
+            for (NodeConnection node : nodes_) {
+                int[] bids = node.bids.get(call.getKey());
+                for (int index = 0; bids != null && index < bids.length / BID_SIZE; index++) {
+                    int time = bids[BID_SIZE * index] + added_time(node, index, bids[BID_SIZE * index + 1]);
+                    if (bids[BID_SIZE * index] >= 0 && (best_node == null || time < min_time)) {
+                        best_node = node;
+                        best_index = index;
+                        min_time = time;
+                    }
+                }
+            }
+
+            if (best_node == null) {
+                num_rejected_ += 1;
+                continue;
+            }
+            best_node.assignments.add(new Assignment(call.getKey(), best_index, call.getValue()));
+        }
+    }
+
+    /*!
+     * \brief Return the dwell time that the calls an elevator won this tick add before it reaches a pick up
+     *
+     * \param node The elevator's node
+     * \param elevator_index Index of the elevator within its node
+     * \param pick_up_time The elevator's bid to reach the pick up, made before any call was awarded
+     *
+     * \return The dwell time of the won calls that the elevator would pick up first
+     */
+    private int added_time(NodeConnection node, int elevator_index, int pick_up_time) {
+        int added_time = 0;
+        for (Assignment assignment : node.assignments) {
+            int[] bids = node.bids.get(assignment.call_id);
+            if (assignment.elevator_index == elevator_index && bids[BID_SIZE * elevator_index + 1] < pick_up_time) {
+                added_time += bids[BID_SIZE * elevator_index + 2];
+            }
+        }
+        return added_time;
+    }
+
+    /*!
+     * \brief Begin a frame for a node, writing its header and the calls it has won since its last frame
+     *
+     * \param node The node
+     * \param max_length Upper bound on the size of the rest of the frame
+     * \param kind ElevatorNode.BID_FRAME or ElevatorNode.TICK_FRAME
+     *
+     * \return The frame to write the rest of the body into
+     */
+    private ByteBuffer begin_frame(NodeConnection node, int max_length, int kind) {
+        max_length += Long.BYTES + 2 * Integer.BYTES;
+        for (Assignment assignment : node.assignments) {
+            max_length += Long.BYTES + Integer.BYTES + assignment.stop.encoded_size();
+        }
+
+        ByteBuffer frame = node.channel.begin_frame(max_length);
+        frame.putLong(tick_);
+        frame.putInt(kind);
+        frame.putInt(node.assignments.size());
+        for (Assignment assignment : node.assignments) {
+            frame.putLong(assignment.call_id);
+            frame.putInt(assignment.elevator_index);
+            assignment.stop.write_to(frame);
+        }
+        node.num_pending += node.assignments.size();
+        node.assignments.clear();
+        return frame;
+    }
+
+    /*!
+     * \brief Finish a frame for a node and start sending it
+     *
+     * \param node The node
+     */
+    private void end_frame(NodeConnection node) throws IOException {
+        node.channel.end_frame();
+        num_frames_sent_ += 1;
+
+        // Let the selector finish the write if the socket couldn't take all of it
+        if (!node.channel.flush()) {
+            node.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /*!
+     * \brief Queue and start sending the bid frame for a node, carrying every open call
+     *
+     * \param node The node
+     */
+    private void send_bids(NodeConnection node) throws IOException {
+        int max_length = 2 * Integer.BYTES;
+        for (StopRequest stop : open_calls_.values()) {
+            max_length += Long.BYTES + stop.encoded_size();
+        }
+
+        ByteBuffer frame = begin_frame(node, max_length, ElevatorNode.BID_FRAME);
+        frame.putInt(open_calls_.size());
+        for (Map.Entry<Long, StopRequest> call : open_calls_.entrySet()) {
+            frame.putLong(call.getKey());
+            call.getValue().write_to(frame);
+        }
+        end_frame(node);
+    }
+
+    /*!
+     * \brief Queue and start sending the tick frame for a node, carrying the calls it won that it wasn't yet sent
+     *
+     * \param node The node
+     */
+    private void send_tick(NodeConnection node) throws IOException {
+        begin_frame(node, 0, ElevatorNode.TICK_FRAME);
+        end_frame(node);
+    }
+
+    /*!
+     * \brief Check that a node's reply belongs to the current tick
+     *
+     * \param frame Body of the reply
+     */
+    private void read_tick(ByteBuffer frame) throws IOException {
+        long tick = frame.getLong();
+        if (tick != tick_) {
+            throw new IOException("DistributedElevatorController.step() - expected tick " + Long.toString(tick_) + " but a node replied to tick " + Long.toString(tick) + ".");
+        }
+    }
+
+    /*!
+     * \brief Read a node's bids for the open calls
+     *
+     * \param node The node
+     * \param frame Body of the reply, after the tick
+     */
+    private void read_bids(NodeConnection node, ByteBuffer frame) {
+        // The estimate of every elevator for each call to its destination and to its pick up, or -1 for an elevator that
+        // doesn't serve it, and the dwell time the call would add to the elevator's route
+        node.bids.clear();
+        int num_elevators = frame.getInt();
+        int num_calls = frame.getInt();
+        for (int k = 0; k < num_calls; k++) {
+            long call_id = frame.getLong();
+            int[] bids = new int[BID_SIZE * num_elevators];
+            for (int index = 0; index < bids.length; index++) {
+                bids[index] = frame.getInt();
+            }
+            node.bids.put(call_id, bids);
+        }
+    }
+
+    /*!
+     * \brief Read a node's reply to the tick frame
+     *
+     * \param node The node
+     * \param frame Body of the reply, after the tick
+     */
+    private void read_status(NodeConnection node, ByteBuffer frame) {
+        // Calls that were picked up
+        int num_served = frame.getInt();
+        for (int k = 0; k < num_served; k++) {
+            frame.getLong();
+        }
+        node.num_pending -= num_served;
+        num_served_ += num_served;
+
+        // Floor and state of each elevator
+        int num_elevators = frame.getInt();
+        if (node.floors.length != num_elevators) {
+            node.floors = new int[num_elevators];
+            node.states = new int[num_elevators];
+        }
+        for (int k = 0; k < num_elevators; k++) {
+            node.floors[k] = frame.getInt();
+            node.states[k] = frame.getInt();
+        }
+    }
+
+    //! Connection to a single node, along with what the coordinator knows about it
+    private static class NodeConnection {
+
+        NodeConnection(FrameChannel channel) {
+            this.channel = channel;
+            this.assignments = new ArrayList<Assignment>();
+            this.bids = new HashMap<Long, int[]>();
+            this.num_pending = 0;
+            this.floors = new int[0];
+            this.states = new int[0];
+        }
+        public FrameChannel channel;                //!< Connection to the node
+        public SelectionKey key;                    //!< Key of the connection within the selector
+        public ArrayList<Assignment> assignments;   //!< Calls won by the node, sent with its next frame
+        public HashMap<Long, int[]> bids;           //!< Bid of each of the node's elevators for the open calls, by call id
+        public int num_pending;                     //!< Calls sent to the node that haven't been picked up yet
+        public int[] floors;                        //!< Current floor of each of the node's elevators
+        public int[] states;                        //!< ElevatorState ordinal of each of the node's elevators
+    }
+
+    //! A call awarded to one of a node's elevators
+    private static class Assignment {
+
+        Assignment(long call_id, int elevator_index, StopRequest stop) {
+            this.call_id = call_id;
+            this.elevator_index = elevator_index;
+            this.stop = stop;
+        }
+        public long call_id;            //!< Id of the call
+        public int elevator_index;      //!< Index of the elevator within its node
+        public StopRequest stop;        //!< The stop request
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private static final int BID_SIZE = 3;              //!< Number of ints in each elevator's bid for a call
+
+    private int num_floors_;                            //!< Number of floors in the building
+    private long tick_;                                 //!< Current tick
+    private long tick_timeout_ms_;                      //!< Time to wait for the replies of a tick [ms]
+    private long next_call_id_;                         //!< Id given to the next call
+    private LinkedHashMap<Long, StopRequest> open_calls_;   //!< Calls waiting to be bid on, by call id, in the order they were added
+    private long num_served_;                           //!< Number of calls that have been picked up
+    private long num_rejected_;                         //!< Number of calls no elevator serves
+    private long num_frames_sent_;                      //!< Number of frames sent to the nodes
+    private ArrayList<NodeConnection> nodes_;           //!< Connections to the nodes
+    private Selector selector_;                         //!< Selector watching every node connection
+}
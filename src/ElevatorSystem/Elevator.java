@@ -8,11 +8,18 @@ package ElevatorSystem;
 
 // Stanadrd Library Imports
 import java.lang.Math;
-import java.util.Iterator;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 // Elevator System Imports
 import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.ElevatorProfile;
+import ElevatorSystem.ElevatorSnapshot;
+import ElevatorSystem.RequestPriority;
+import ElevatorSystem.StopQueue;
 import ElevatorSystem.StopRequest;
 
 public class Elevator {
@@ -30,22 +37,103 @@ public class Elevator {
      * \param num_floors Number of floors that the elevator operates on
      */
     public Elevator(String name, int num_floors) {
+        this(name, num_floors, new ElevatorProfile());
+    }
+
+    /*!
+     * \brief Construct an Elevator object with a specific performance profile
+     *
+     * \param name Name of the elevator
+     * \param num_floors Number of floors that the elevator operates on
+     * \param profile Performance profile of the elevator, defining its speed, dwell time and served floors
+     */
+    public Elevator(String name, int num_floors, ElevatorProfile profile) {
+        this(name, 0, num_floors, profile);
+    }
+
+    /*!
+     * \brief Construct an Elevator object named "Elevator <number>", building the name only when it is asked for
+     *
+     * \param number Number of the elevator within its building, starting from 1
+     * \param num_floors Number of floors that the elevator operates on
+     * \param profile Performance profile of the elevator, defining its speed, dwell time and served floors
+     */
+    Elevator(int number, int num_floors, ElevatorProfile profile) {
+        this(null, number, num_floors, profile);
+    }
+
+    /*!
+     * \brief Construct an Elevator object with either a name or a number
+     *
+     * \param name Name of the elevator, or null to name it after its number
+     * \param number Number of the elevator within its building, used when there is no name
+     * \param num_floors Number of floors that the elevator operates on
+     * \param profile Performance profile of the elevator, defining its speed, dwell time and served floors
+     */
+    private Elevator(String name, int number, int num_floors, ElevatorProfile profile) {
         // Error Checking
         if (num_floors <= 1) {
             throw new IllegalArgumentException("Elevator() - num_floors value must be greater than or equal to 2.");
         }
+        if (profile.get_served_floors() != null) {
+            for (int floor : profile.get_served_floors()) {
+                if (floor < 1 || floor > num_floors) {
+                    throw new IllegalArgumentException("Elevator() - served floors must be between 1 and " + Integer.toString(num_floors) + ".");
+                }
+            }
+        }
+        if (profile.get_num_decks() > num_floors) {
+            throw new IllegalArgumentException("Elevator() - the elevator cannot have more decks than the building has floors.");
+        }
 
         // Set values
         name_ = name;
+        number_ = number;
         time_ = 0;
         num_floors_ = num_floors;
-        cur_floor_ = 1;                                 // Elevator starts on the first floor
-        drop_off_time_unit_ = 2;                        // An elevator will stay at a stop for 2 time steps
-        move_time_unit_ = 1;                            // It takes the elevator one time step to move one floor
+        profile_ = profile;
+        cur_floor_ = profile.landing_floor(profile.get_lowest_floor());    // Elevator starts at the bottom of its zone
+        dwell_time_ = profile.get_drop_off_time_unit();
+        move_time_unit_ = profile.get_move_time_unit();
         elevator_state_ = ElevatorState.IDLE;       // Elevator starts out inactive
         at_stop_count_ = 0;
-        asc_queue_ = new PriorityQueue<StopRequest>();
-        des_queue_ = new PriorityQueue<StopRequest>((a, b) -> a.compareTo(b));
+        move_count_ = 0;
+        asc_queue_ = null;                          // The queues and lists are only allocated while there are stops to serve
+        des_queue_ = null;
+        preempting_queue_ = null;
+        planned_drop_offs_ = null;                  // Only allocated while pick ups are queued
+        served_stops_ = null;
+        immediate_stops_ = null;
+        publishes_snapshots_ = true;
+        snapshot_ = new ElevatorSnapshot(name_, number_, cur_floor_, elevator_state_, 0);
+    }
+
+
+    /*!
+     * \brief Construct a copy of an Elevator, sharing its stop queues until either elevator changes them
+     *
+     * \param other The elevator being copied
+     */
+    private Elevator(Elevator other) {
+        name_ = other.name_;
+        number_ = other.number_;
+        time_ = other.time_;
+        num_floors_ = other.num_floors_;
+        profile_ = other.profile_;
+        cur_floor_ = other.cur_floor_;
+        dwell_time_ = other.dwell_time_;
+        move_time_unit_ = other.move_time_unit_;
+        elevator_state_ = other.elevator_state_;
+        at_stop_count_ = other.at_stop_count_;
+        move_count_ = other.move_count_;
+        asc_queue_ = other.asc_queue_ == null ? null : other.asc_queue_.copy();
+        des_queue_ = other.des_queue_ == null ? null : other.des_queue_.copy();
+        preempting_queue_ = other.preempting_queue_ == null ? null : other.preempting_queue_.copy();
+        planned_drop_offs_ = other.planned_drop_offs_ == null ? null : other.planned_drop_offs_.clone();
+        served_stops_ = other.immediate_stops_ == null ? null : new ArrayList<StopRequest>();
+        immediate_stops_ = other.immediate_stops_ == null ? null : new ArrayList<StopRequest>(other.immediate_stops_);
+        publishes_snapshots_ = false;                   // Copies are only stepped to estimate costs, so nobody watches them
+        snapshot_ = other.snapshot_;
     }
 
 
@@ -53,13 +141,47 @@ public class Elevator {
     // Public Class Methods
     //--------------------------------------
 
+    /*!
+     * \brief Return a copy of the elevator that can be stepped forward without affecting this one
+     *
+     * \note The stop queues are copied on write, so a copy costs O(1) in the number of queued stops until it is changed. Call release() once the copy
+     * is no longer needed so that this elevator can go on changing its queues in place
+     *
+     * \return A copy of the elevator
+     */
+    public Elevator copy() {
+        return new Elevator(this);
+    }
+
+    //! Stop sharing stop queues with the elevator this was copied from, leaving this copy empty and idle
+    public void release() {
+        if (asc_queue_ != null) {
+            asc_queue_.release();
+            des_queue_.release();
+            preempting_queue_.release();
+        }
+        elevator_state_ = ElevatorState.IDLE;
+    }
+
+    /*!
+     * \brief Return a snapshot of the floor, state and load of the elevator, which is safe to call from any thread
+     *
+     * \note The other getters must only be called from the thread stepping the elevator, as they read fields that the
+     * time step is changing. The snapshot is replaced whenever the elevator changes, and never blocks the time step
+     *
+     * \return A snapshot of the floor, state and load of the elevator
+     */
+    public ElevatorSnapshot get_snapshot() {
+        return snapshot_;
+    }
+
     /*!
      * \brief Return the name of the elevator
      *
      * \return The name of the elevator
      */
     public String get_name() {
-        return name_;
+        return name_ != null ? name_ : "Elevator " + Integer.toString(number_);
     }
     /*!
      * \brief Return the current floor that the elevator is at
@@ -76,7 +198,7 @@ public class Elevator {
      * \return The load currently on the Elevator
      */
     public int get_load() {
-        return asc_queue_.size() + des_queue_.size();
+        return asc_queue_ == null ? 0 : asc_queue_.size() + des_queue_.size();
     }
 
     /*!
@@ -88,6 +210,15 @@ public class Elevator {
         return num_floors_;
     }
 
+    /*!
+     * \brief Return the performance profile of the elevator
+     *
+     * \return The performance profile of the elevator
+     */
+    public ElevatorProfile get_profile() {
+        return profile_;
+    }
+
     /*!
      * \brief Return the state of the current elevator
      *
@@ -98,6 +229,29 @@ public class Elevator {
     }
 
 
+    /*!
+     * \brief Return the stop requests that were served during the most recent time step
+     *
+     * \note Stop requests whose pick up floor the elevator was already sitting at when they were added are reported
+     * with the following time step
+     *
+     * \return The stop requests that were served during the most recent time step
+     */
+    public List<StopRequest> get_served_stops() {
+        return served_stops_ == null ? Collections.emptyList() : served_stops_;
+    }
+
+    /*!
+     * \brief Returns true if the stop request is still waiting in one of the elevator's queues, false otherwise
+     *
+     * \param stop The stop request
+     *
+     * \return true if the stop request is still waiting in one of the elevator's queues, false otherwise
+     */
+    public boolean has_stop(StopRequest stop) {
+        return asc_queue_ != null && (asc_queue_.contains(stop) || des_queue_.contains(stop));
+    }
+
     /*!
      * \brief Step one time step into the future, returning the floor that the elevator ends up at
      *
@@ -107,72 +261,88 @@ public class Elevator {
         // Increment the current time by one time unit
         time_ += 1;
 
+        // Report the stops served in this time step, starting with those served as soon as they were added
+        if (served_stops_ != null) {
+            served_stops_.clear();
+        }
+        if (immediate_stops_ != null) {
+            served_stops_.addAll(immediate_stops_);
+            immediate_stops_.clear();
+        }
+
+        // Turn around if every preempting stop is behind the elevator
+        if (preempting_queue_ != null && !preempting_queue_.is_empty()) {
+            if (elevator_state_ == ElevatorState.ASCENDING && nearest_preempting_floor(true) == null) {
+                turn_around(ElevatorState.DESCENDING);
+            } else if (elevator_state_ == ElevatorState.DESCENDING && nearest_preempting_floor(false) == null) {
+                turn_around(ElevatorState.ASCENDING);
+            }
+        }
+
         switch (elevator_state_) {
             case ElevatorState.IDLE: {
                 break;
             }
             case ElevatorState.ASCENDING: {
-                if (cur_floor_ == asc_queue_.peek().get_pick_up_floor()) {
-                    // Elevator is stopping at a drop off point
+                if (cur_floor_ == next_floor(asc_queue_, true)) {
+                    // Elevator is stopping at a drop off point, holding the doors open longer the more passengers use them
                     at_stop_count_ += 1;
+                    if (at_stop_count_ == 1) {
+                        dwell_time_ = profile_.get_dwell_time(landing_passengers(asc_queue_, cur_floor_));
+                    }
 
-                    // If we have reached the max stop time, so remove this stip from the queue
-                    if (at_stop_count_ == drop_off_time_unit_) {
-                        // Remove the stop and reset the at_stop_count
-                        StopRequest stop_req = asc_queue_.poll();
-                        at_stop_count_ = 0;
-
-                        // Schedule any destination stops once people walk into the elevator
-                        if (stop_req.size() > 0) {
-                            Iterator<Integer> stop_iter = stop_req.get_drop_off_floors().iterator();
-                            while(stop_iter.hasNext()) {
-                                this.add_stop(new StopRequest(stop_iter.next()));
-                            }
-                        }
+                    // If we have reached the max stop time, so remove this stop from the queue
+                    if (at_stop_count_ == dwell_time_) {
+                        serve_current_floor(asc_queue_);
 
                         // Update the elevator state, if necessary
-                        if (asc_queue_.size() == 0) {
+                        if (asc_queue_.is_empty()) {
                             elevator_state_ = des_queue_.size() > 0 ? ElevatorState.DESCENDING : ElevatorState.IDLE;
                         }
                     }
-                } else {
-                    // Moves one floor in a given time step
+                } else if (++move_count_ == move_time_unit_) {
+                    // Moves one floor once enough time steps have passed for the car's speed, leaving any stops skipped
+                    // on the way to a preempting stop, and any hall calls heading down that were passed by, for the trip
+                    // back down
+                    defer_floor(asc_queue_, des_queue_);
                     cur_floor_ += 1;
+                    move_count_ = 0;
                 }
                 break;
             }
             case ElevatorState.DESCENDING: {
-                if (cur_floor_ == des_queue_.peek().get_pick_up_floor()) {
-                    // Elevator is stopping at a drop off point
+                if (cur_floor_ == next_floor(des_queue_, false)) {
+                    // Elevator is stopping at a drop off point, holding the doors open longer the more passengers use them
                     at_stop_count_ += 1;
+                    if (at_stop_count_ == 1) {
+                        dwell_time_ = profile_.get_dwell_time(landing_passengers(des_queue_, cur_floor_));
+                    }
 
-                    // If we have reached the max stop time, so remove this stip from the queue
-                    if (at_stop_count_ == drop_off_time_unit_) {
-                        // Remove the stop and reset the at_stop_count
-                        StopRequest stop_req = des_queue_.poll();
-                        at_stop_count_ = 0;
-
-                        // Schedule any destination stops once people walk into the elevator
-                        if (stop_req.size() > 0) {
-                            Iterator<Integer> stop_iter = stop_req.get_drop_off_floors().iterator();
-                            while(stop_iter.hasNext()) {
-                                this.add_stop(new StopRequest(stop_iter.next()));
-                            }
-                        }
+                    // If we have reached the max stop time, so remove this stop from the queue
+                    if (at_stop_count_ == dwell_time_) {
+                        serve_current_floor(des_queue_);
 
                         // Update the elevator state, if necessary
-                        if (des_queue_.size() == 0) {
+                        if (des_queue_.is_empty()) {
                             elevator_state_ = asc_queue_.size() > 0 ? ElevatorState.ASCENDING : ElevatorState.IDLE;
                         }
                     }
-                } else {
-                    // Moves one floor in a given time step
+                } else if (++move_count_ == move_time_unit_) {
+                    // Moves one floor once enough time steps have passed for the car's speed, leaving any stops skipped
+                    // on the way to a preempting stop, and any hall calls heading up that were passed by, for the trip
+                    // back up
+                    defer_floor(des_queue_, asc_queue_);
                     cur_floor_ -= 1;
+                    move_count_ = 0;
                 }
                 break;
             }
         }
 
+        if (elevator_state_ == ElevatorState.IDLE) {
+            release_idle_storage();
+        }
+        publish_snapshot();
         return cur_floor_;
     }
 
@@ -189,31 +359,120 @@ public class Elevator {
         if (floor < 1 || floor > num_floors_ ) {
             throw new IllegalArgumentException("Elevator.add_stop() - floor number must be between 1 and " + Integer.toString(num_floors_) + ".");
         }
+        if (!profile_.serves_stop(stop)) {
+            throw new IllegalArgumentException("Elevator.add_stop() - " + get_name() + " does not serve every floor of the stop request.");
+        }
+        allocate_storage();
 
-        // Add stop to the appropriate queue based on if it requires the elevator to ascend or descend
-        // Note: If you are at the current floor nothing will happen
-        if (floor > cur_floor_) {
-            add_stop_to_queue(stop, asc_queue_);
+        // Add stop to the appropriate queue based on if it requires the elevator to ascend or descend to the landing
+        // serving it, also noting the stops that preempt the elevator's sweep
+        int landing = landing(floor);
+        if (landing != cur_floor_ && stop.get_priority().preempts()) {
+            preempting_queue_.add(stop);
+        }
+        if (landing != cur_floor_) {
+            plan_drop_offs(stop.get_drop_off_floors(), 1);
+        }
+        if (landing > cur_floor_) {
+            asc_queue_.add(stop);
 
             // Update the elevator state if it is inactive to set the direction for the next step
             if (elevator_state_ == ElevatorState.IDLE) {
                 elevator_state_ = ElevatorState.ASCENDING;
             }
 
-        } else if (floor < cur_floor_) {
-            add_stop_to_queue(stop, des_queue_);
+        } else if (landing < cur_floor_) {
+            des_queue_.add(stop);
 
             // Update the elevator state if it is inactive to set the direction for the next step
             if (elevator_state_ == ElevatorState.IDLE) {
                 elevator_state_ = ElevatorState.DESCENDING;
             }
 
-        } else if (stop.size() > 0) {
+        } else {
             // The elevator was already at the pick up floor, so iterate through and add the other stops to the elevator
-            Iterator<Integer> stop_iter = stop.get_drop_off_floors().iterator();
-            while(stop_iter.hasNext()) {
-                this.add_stop(new StopRequest(stop_iter.next()));
-            }
+            immediate_stops_.add(stop);
+            add_drop_off_stops(stop);
+        }
+
+        publish_snapshot();
+    }
+
+    /*!
+     * \brief Remove a stop request that the elevator hasn't reached yet, so that it can be served by another elevator
+     *
+     * \note If the removed stop was the last one in the elevator's current direction, the elevator turns around or goes
+     * idle immediately rather than finishing a wasted trip
+     *
+     * \param stop The stop request
+     *
+     * \return true if the stop request was removed, false if it wasn't waiting in the elevator's queues
+     */
+    public boolean remove_stop(StopRequest stop) {
+        // Remove the stop from whichever queue is holding it
+        if (asc_queue_ == null || (!asc_queue_.remove(stop) && !des_queue_.remove(stop))) {
+            return false;
+        }
+        preempting_queue_.remove(stop);
+        plan_drop_offs(stop.get_drop_off_floors(), -1);
+
+        // Leave the doors alone if there is still someone to serve at the current floor
+        if (at_stop_count_ > 0 && !has_current_landing(asc_queue_) && !has_current_landing(des_queue_)) {
+            at_stop_count_ = 0;
+        }
+
+        // Update the elevator state, if necessary
+        if (elevator_state_ == ElevatorState.ASCENDING && asc_queue_.is_empty()) {
+            elevator_state_ = des_queue_.size() > 0 ? ElevatorState.DESCENDING : ElevatorState.IDLE;
+            move_count_ = 0;
+        } else if (elevator_state_ == ElevatorState.DESCENDING && des_queue_.is_empty()) {
+            elevator_state_ = asc_queue_.size() > 0 ? ElevatorState.ASCENDING : ElevatorState.IDLE;
+            move_count_ = 0;
+        }
+
+        if (elevator_state_ == ElevatorState.IDLE) {
+            release_idle_storage();
+        }
+        publish_snapshot();
+        return true;
+    }
+
+    /*!
+     * \brief Let a stop request still waiting in the elevator's queues preempt the sweep, as if its priority class
+     * preempted, so that the elevator turns around if needed and skips other stops to reach it
+     *
+     * \note The priority class of the stop request is left alone, so its passengers ride to their floors in sweep order
+     *
+     * \param stop The stop request
+     *
+     * \return true if the stop request now preempts the sweep, false if it isn't waiting in the elevator's queues
+     */
+    public boolean escalate_stop(StopRequest stop) {
+        if (!has_stop(stop)) {
+            return false;
+        }
+
+        if (!preempting_queue_.contains(stop)) {
+            preempting_queue_.add(stop);
+        }
+        return true;
+    }
+
+    /*!
+     * \brief Add the drop off floors of another stop request to a stop request still waiting in the elevator's queues,
+     * as when a repeated hall button press joins an active hall call
+     *
+     * \param stop The stop request waiting in the elevator's queues
+     * \param other Stop request whose drop off floors are merged in
+     */
+    public void merge_stop(StopRequest stop, StopRequest other) {
+        boolean queued = has_stop(stop);
+        if (queued) {
+            plan_drop_offs(stop.get_drop_off_floors(), -1);
+        }
+        stop.combine_destination_floors(other);
+        if (queued) {
+            plan_drop_offs(stop.get_drop_off_floors(), 1);
         }
     }
 
@@ -226,8 +485,8 @@ public class Elevator {
      * \return Estimated time to reach the target floor
      */
     public int estimate_time_to_stop(StopRequest stop) {
-        // Get the target or origin floor of the stop request, as this is all the elevator would know
-        int tgt_floor = stop.get_pick_up_floor();
+        // Get the landing serving the target or origin floor of the stop request, as this is all the elevator would know
+        int tgt_floor = landing(stop.get_pick_up_floor());
 
         // If you are already at the specified floor, return 0
         if (tgt_floor == cur_floor_) {
@@ -237,6 +496,22 @@ public class Elevator {
         // Determine which direction you would have to go to get to the target floor
         DirectionRequest direction = tgt_floor > cur_floor_ ? DirectionRequest.ASCENDING : DirectionRequest.DESCENDING;
 
+        // A hall call heading the other way is passed by if the sweep goes beyond it, and picked up on the way back
+        if (stop.get_direction() != null && stop.get_direction() != direction) {
+            if (elevator_state_ == ElevatorState.ASCENDING && direction == DirectionRequest.ASCENDING && !asc_queue_.is_empty()
+                    && landing(asc_queue_.highest_floor()) > tgt_floor) {
+                direction = DirectionRequest.DESCENDING;
+            } else if (elevator_state_ == ElevatorState.DESCENDING && direction == DirectionRequest.DESCENDING && !des_queue_.is_empty()
+                    && landing(des_queue_.lowest_floor()) < tgt_floor) {
+                direction = DirectionRequest.ASCENDING;
+            }
+        }
+
+        // A lone preempting stop is driven to directly, turning around if needed
+        if (stop.get_priority().preempts() && (preempting_queue_ == null || preempting_queue_.is_empty())) {
+            return Math.abs(tgt_floor - cur_floor_) * move_time_unit_;
+        }
+
         // Compute the expected amount of time it would take to get to the tgt_floor
         int elapsed_time = 0;
         switch (elevator_state_) {
@@ -249,16 +524,16 @@ public class Elevator {
                 int start_floor = cur_floor_;
                 if (direction == DirectionRequest.DESCENDING) {
                     // Finish out the ascending queue first before descending back to the target floor to the target floor
-                    QueueEvaluation queue_eval = evaluate_queue(asc_queue_, cur_floor_, num_floors_ + 1);
+                    QueueEvaluation queue_eval = evaluate_queue(asc_queue_, true, cur_floor_, num_floors_ + 1);
                     elapsed_time = queue_eval.elapsed_time;
                     start_floor = queue_eval.cur_floor;
 
                     // Compute time required to now descend to target floor
-                    queue_eval = evaluate_queue(des_queue_, start_floor, tgt_floor);
+                    queue_eval = evaluate_queue(des_queue_, false, start_floor, tgt_floor);
                     elapsed_time += queue_eval.elapsed_time;
                 } else {
                     // Compute time required to now ascend to the destination floor to target floor
-                    QueueEvaluation queue_eval = evaluate_queue(asc_queue_, start_floor, tgt_floor);
+                    QueueEvaluation queue_eval = evaluate_queue(asc_queue_, true, start_floor, tgt_floor);
                     elapsed_time += queue_eval.elapsed_time;
                 }
 
@@ -268,16 +543,16 @@ public class Elevator {
                 int start_floor = cur_floor_;
                 if (direction == DirectionRequest.ASCENDING) {
                     // Finish out the descending queue first before descending back to the target floor to the target floor
-                    QueueEvaluation queue_eval = evaluate_queue(des_queue_, cur_floor_, 0);
+                    QueueEvaluation queue_eval = evaluate_queue(des_queue_, false, cur_floor_, 0);
                     elapsed_time = queue_eval.elapsed_time;
                     start_floor = queue_eval.cur_floor;
 
                     // Compute time required to now ascend to target floor
-                    queue_eval = evaluate_queue(asc_queue_, start_floor, tgt_floor);
+                    queue_eval = evaluate_queue(asc_queue_, true, start_floor, tgt_floor);
                     elapsed_time += queue_eval.elapsed_time;
                 } else {
                     // Compute time required to now descend to target floor
-                    QueueEvaluation queue_eval = evaluate_queue(des_queue_, start_floor, tgt_floor);
+                    QueueEvaluation queue_eval = evaluate_queue(des_queue_, false, start_floor, tgt_floor);
                     elapsed_time += queue_eval.elapsed_time;
                 }
 
@@ -288,48 +563,415 @@ public class Elevator {
         return elapsed_time;
     }
 
+    /*!
+     * \brief Estimate the time it will take for the current elevator to pick up the stop request and carry its passengers
+     * to the furthest of their drop off floors
+     *
+     * \note The ride itself is costed as a direct trip at the car's speed, so faster cars win long trips over slower
+     * cars that happen to be closer to the pick up floor
+     *
+     * \param stop The stop request being evaluated
+     *
+     * \return Estimated time to complete the stop request
+     */
+    public int estimate_time_to_destination(StopRequest stop) {
+        // Find the furthest drop off floor from the pick up floor
+        int max_distance = 0;
+        int pick_up_landing = landing(stop.get_pick_up_floor());
+        for (int floor : stop.get_drop_off_floors()) {
+            max_distance = Math.max(max_distance, Math.abs(landing(floor) - pick_up_landing));
+        }
+
+        // Add the ride, and the time spent at the pick up floor, to the time to reach the pick up floor
+        int ride_time = max_distance > 0 ? profile_.get_dwell_time(stop.get_num_passengers()) + max_distance * move_time_unit_ : 0;
+        return estimate_time_to_stop(stop) + ride_time;
+    }
+
+    /*!
+     * \brief Estimate the cost of a stop request for destination dispatch, which is the time to carry it to its
+     * destination plus the dwell time each new stop it adds imposes on every stop already queued
+     *
+     * \note Landings the elevator already stops at cost nothing extra, so passengers heading to the same floors are
+     * grouped into the same elevator
+     *
+     * \param stop The stop request being evaluated
+     *
+     * \return Estimated cost of the stop request [time steps]
+     */
+    public int estimate_destination_cost(StopRequest stop) {
+        return estimate_time_to_destination(stop) + estimate_added_dwell_time(stop) * get_load();
+    }
+
+    /*!
+     * \brief Estimate the time the doors would stay open at the new stops a stop request adds to the elevator's route,
+     * which is the delay it causes to every stop served after them
+     *
+     * \note Landings the elevator already stops at add nothing, and each passenger is assumed to alight alone
+     *
+     * \param stop The stop request being evaluated
+     *
+     * \return Estimated dwell time added by the stop request [time steps]
+     */
+    public int estimate_added_dwell_time(StopRequest stop) {
+        // Count the landings of the request that the elevator doesn't already stop at
+        HashSet<Integer> new_landings = new HashSet<Integer>();
+        int pick_up_landing = landing(stop.get_pick_up_floor());
+        for (int floor : stop.get_drop_off_floors()) {
+            int drop_off_landing = landing(floor);
+            if (drop_off_landing != pick_up_landing && !stops_at_landing(drop_off_landing)) {
+                new_landings.add(drop_off_landing);
+            }
+        }
+        int new_dwell_time = new_landings.size() * profile_.get_dwell_time(1);
+        if (pick_up_landing != cur_floor_ && !stops_at_landing(pick_up_landing)) {
+            new_dwell_time += profile_.get_dwell_time(stop.get_num_passengers());
+        }
+
+        return new_dwell_time;
+    }
+
+    /*!
+     * \brief Estimate the cost that adding a stop request would place on everyone the elevator serves, by stepping copies
+     * of the elevator forward with and without the stop request
+     *
+     * \note The cost of a run is the sum, over every stop served, of the time step at which it was served, so it counts
+     * both the wait of the new passengers and the delay they cause to everyone already on the elevator's route. Stops that
+     * aren't served within the horizon are charged as if served just after it
+     *
+     * \param stop The stop request being evaluated
+     * \param horizon Maximum number of time steps to simulate
+     *
+     * \return The added cost of the stop request
+     */
+    public long estimate_rollout_cost(StopRequest stop, int horizon) {
+        // Run the elevator with the stop request
+        Elevator with_stop = copy();
+        with_stop.add_stop(stop);
+        long cost = with_stop.rollout(horizon);
+        with_stop.release();
+
+        // Run the elevator without it
+        Elevator without_stop = copy();
+        cost -= without_stop.rollout(horizon);
+        without_stop.release();
+
+        return cost;
+    }
+
+    /*!
+     * \brief Place an idle elevator on a floor, used when recovering the elevator's position after a restart
+     *
+     * \param floor The floor the elevator is on
+     */
+    void restore_floor(int floor) throws IllegalArgumentException {
+        // Error Checking
+        if (floor < 1 || floor > num_floors_) {
+            throw new IllegalArgumentException("Elevator.restore_floor() - floor number must be between 1 and " + Integer.toString(num_floors_) + ".");
+        }
+        if (elevator_state_ != ElevatorState.IDLE || get_load() > 0) {
+            throw new IllegalArgumentException("Elevator.restore_floor() - " + get_name() + " must be idle to be placed on a floor.");
+        }
+
+        cur_floor_ = floor;
+        publish_snapshot();
+    }
+
     //--------------------------------------
     // Private Class Methods
     //--------------------------------------
 
     /*!
-     * \brief Check the queue to see if the origin floor of `stop` already exists in the queue. If it does, add the destination
-     * floors of `stop` to the correct entry in the queue. If the origin floor doesn't exist, simply add the stop to the queue
+     * \brief Step the elevator forward until it goes idle or reaches the horizon, returning the cost of the run
+     *
+     * \param horizon Maximum number of time steps to simulate
      *
-     * \param stop New stop to be added to the queue
-     * \param[inout] queue Queue to be updated with the new stop
+     * \return Sum of the time step at which each stop was served, charging unserved stops as served after the horizon
      */
-    private void add_stop_to_queue(StopRequest stop, PriorityQueue<StopRequest> queue) {
-        // Iterate through the queue, and if the origin floor of the stop exists in the queue, add the destination floors
-        // to that entry within the queue. If it doesn't, then add the stop to the queue
-        if (queue.contains(stop) && stop.size() > 0) {
-            // Iterate through the queue and add the destination stops of "stop" to the correct entry in the queue
-            Iterator<StopRequest> iter = queue.iterator();
-            while(iter.hasNext()) {
-                StopRequest request = iter.next();
-                if (request.get_pick_up_floor() == stop.get_pick_up_floor()) {
-                    request.combine_destination_floors(stop);
-                    break;
-                }
+    private long rollout(int horizon) {
+        long cost = 0;
+        for (int tick = 1; tick <= horizon && (elevator_state_ != ElevatorState.IDLE || (immediate_stops_ != null && !immediate_stops_.isEmpty())); tick++) {
+            step();
+            cost += (long) tick * get_served_stops().size();
+        }
+
+        return cost + (long) (horizon + 1) * get_load();
+    }
+
+    /*!
+     * \brief Serve every stop request on the floors at the elevator's decks once the doors have been open long enough, scheduling the
+     * drop off floors of anyone who walked into the elevator
+     *
+     * \param[inout] queue Queue holding the stop requests for the current floor
+     */
+    private void serve_current_floor(StopQueue queue) {
+        // Remove the stops and reset the at_stop_count
+        ArrayList<StopRequest> stops = new ArrayList<StopRequest>();
+        for (int floor = cur_floor_; floor < cur_floor_ + profile_.get_num_decks(); floor++) {
+            stops.addAll(queue.poll_floor(floor));
+            preempting_queue_.poll_floor(floor);
+        }
+        at_stop_count_ = 0;
+        move_count_ = 0;
+
+        // Schedule any destination stops once people walk into the elevator
+        for (StopRequest stop_req : stops) {
+            served_stops_.add(stop_req);
+            plan_drop_offs(stop_req.get_drop_off_floors(), -1);
+            add_drop_off_stops(stop_req);
+        }
+    }
+
+    //! Allocate the queues and lists that only an elevator with stops to serve needs, if they were released
+    private void allocate_storage() {
+        if (asc_queue_ == null) {
+            asc_queue_ = new StopQueue();
+            des_queue_ = new StopQueue();
+            preempting_queue_ = new StopQueue();
+            immediate_stops_ = new ArrayList<StopRequest>();
+        }
+        if (served_stops_ == null) {
+            served_stops_ = new ArrayList<StopRequest>();
+        }
+    }
+
+    //! Release the storage that only an elevator with stops to serve needs, once the elevator has gone idle
+    private void release_idle_storage() {
+        if (get_load() == 0 && (immediate_stops_ == null || immediate_stops_.isEmpty())) {
+            planned_drop_offs_ = null;
+            asc_queue_ = null;
+            des_queue_ = null;
+            preempting_queue_ = null;
+            immediate_stops_ = null;
+
+            // The stops served during this time step are reported until the next one
+            if (served_stops_ != null && served_stops_.isEmpty()) {
+                served_stops_ = null;
             }
+        }
+    }
 
-        } else {
-            // The stop isn't already in the queue, so add it
-            queue.add(stop);
+    //! Publish a new snapshot for monitoring threads if the floor, state or load of the elevator has changed
+    private void publish_snapshot() {
+        if (publishes_snapshots_ && !snapshot_.matches(cur_floor_, elevator_state_, get_load())) {
+            snapshot_ = new ElevatorSnapshot(name_, number_, cur_floor_, elevator_state_, get_load());
+        }
+    }
+
+    /*!
+     * \brief Schedule a stop for each drop off floor of a stop request, keeping its priority class so that preempting
+     * passengers are also carried straight to their floor
+     *
+     * \param stop The stop request whose passengers just walked into the elevator
+     */
+    private void add_drop_off_stops(StopRequest stop) {
+        for (int drop_off_floor : stop.get_drop_off_floors()) {
+            StopRequest drop_off = new StopRequest(drop_off_floor);
+            drop_off.set_priority(stop.get_priority());
+            this.add_stop(drop_off);
+        }
+    }
+
+    /*!
+     * \brief Return the next floor the elevator will stop at in its current direction, which is the nearest preempting
+     * stop if there is one ahead, and otherwise the nearest stop in the queue with someone travelling that way
+     *
+     * \note Hall calls heading the other way are passed by and left for the trip back, unless they are the last stops
+     * in the queue, where the elevator turns around anyway
+     *
+     * \param queue Queue being served
+     * \param ascending true if the elevator is ascending, false if it is descending
+     *
+     * \return The next floor the elevator will stop at
+     */
+    private int next_floor(StopQueue queue, boolean ascending) {
+        Integer preempting_floor = nearest_preempting_floor(ascending);
+        if (preempting_floor != null) {
+            return landing(preempting_floor);
+        }
+
+        // Once the doors are open at a floor, its passengers board whichever way they are heading
+        int floor = 0;
+        for (int queue_floor : queue.floors(ascending)) {
+            floor = queue_floor;
+            if ((at_stop_count_ > 0 && landing(queue_floor) == cur_floor_) || !is_passed_by(queue, queue_floor, ascending)) {
+                break;
+            }
         }
+        return landing(floor);
+    }
+
+    /*!
+     * \brief Returns true if every stop on a floor of a queue is a hall call heading against the direction the queue is
+     * served in, so the elevator passes the floor by while there are stops beyond it
+     *
+     * \param queue Queue holding the floor
+     * \param floor The floor
+     * \param ascending true if the queue is served while ascending, false if it is served while descending
+     *
+     * \return true if the elevator passes the floor by, false if it stops there
+     */
+    private boolean is_passed_by(StopQueue queue, int floor, boolean ascending) {
+        DirectionRequest against = ascending ? DirectionRequest.DESCENDING : DirectionRequest.ASCENDING;
+        for (StopRequest stop : queue.stops(floor)) {
+            if (stop.get_direction() != against) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*!
+     * \brief Return the nearest floor with a preempting stop whose landing is at or beyond the elevator in one direction
+     *
+     * \param ascending true to look up from the elevator, false to look down from it
+     *
+     * \return The nearest floor with a preempting stop in that direction, or null if there is none
+     */
+    private Integer nearest_preempting_floor(boolean ascending) {
+        if (ascending) {
+            Integer floor = preempting_queue_.nearest_floor(cur_floor_, true);
+            while (floor != null && landing(floor) < cur_floor_) {
+                floor = preempting_queue_.nearest_floor(floor + 1, true);
+            }
+            return floor;
+        }
+
+        Integer floor = preempting_queue_.nearest_floor(cur_floor_ + profile_.get_num_decks() - 1, false);
+        while (floor != null && landing(floor) > cur_floor_) {
+            floor = preempting_queue_.nearest_floor(floor - 1, false);
+        }
+        return floor;
+    }
+
+    /*!
+     * \brief Return the landing the elevator stops at to serve a floor
+     *
+     * \param floor Floor being served
+     *
+     * \return The landing the elevator stops at to serve the floor
+     */
+    private int landing(int floor) {
+        return profile_.landing_floor(floor);
+    }
+
+    /*!
+     * \brief Returns true if either queue has a stop request for a floor served from the given landing, false otherwise
+     *
+     * \param landing The landing being checked
+     *
+     * \return true if either queue has a stop request for a floor served from the landing, false otherwise
+     */
+    private boolean stops_at_landing(int landing) {
+        int top_floor = Math.min(landing + profile_.get_num_decks() - 1, num_floors_);
+        for (int floor = landing; planned_drop_offs_ != null && floor <= top_floor; floor++) {
+            if (planned_drop_offs_[floor] > 0) {
+                return true;
+            }
+        }
+
+        if (asc_queue_ == null) {
+            return false;
+        }
+        Integer asc_floor = asc_queue_.nearest_floor(landing, true);
+        Integer des_floor = des_queue_.nearest_floor(landing, true);
+        return (asc_floor != null && asc_floor <= top_floor) || (des_floor != null && des_floor <= top_floor);
+    }
+
+    /*!
+     * \brief Return the number of passengers boarding or alighting from a queue at the floors served from a landing
+     *
+     * \param queue Queue being checked
+     * \param landing The landing being checked
+     *
+     * \return The number of passengers boarding or alighting at the landing
+     */
+    private int landing_passengers(StopQueue queue, int landing) {
+        int num_passengers = 0;
+        int top_floor = Math.min(landing + profile_.get_num_decks() - 1, num_floors_);
+        for (int floor = landing; floor <= top_floor; floor++) {
+            num_passengers += queue.num_passengers(floor);
+        }
+
+        return num_passengers;
+    }
+
+    /*!
+     * \brief Count the drop off floors of a stop request waiting to be picked up, or stop counting them
+     *
+     * \param drop_off_floors Drop off floors of the stop request
+     * \param change 1 when the stop request is queued, -1 when it leaves the queues
+     */
+    private void plan_drop_offs(Set<Integer> drop_off_floors, int change) {
+        if (planned_drop_offs_ == null) {
+            if (change < 0 || drop_off_floors.isEmpty()) {
+                return;
+            }
+            planned_drop_offs_ = new int[num_floors_ + 1];
+        }
+
+        for (int floor : drop_off_floors) {
+            if (floor >= 1 && floor <= num_floors_) {
+                planned_drop_offs_[floor] += change;
+            }
+        }
+    }
+
+    /*!
+     * \brief Returns true if the queue has a stop request for a floor served from the current floor, false otherwise
+     *
+     * \param queue Queue being checked
+     *
+     * \return true if the queue has a stop request for a floor served from the current floor, false otherwise
+     */
+    private boolean has_current_landing(StopQueue queue) {
+        if (landing(cur_floor_) != cur_floor_) {
+            return false;
+        }
+        Integer floor = queue.nearest_floor(cur_floor_, true);
+        return floor != null && floor < cur_floor_ + profile_.get_num_decks();
+    }
+
+    /*!
+     * \brief Move the stops served from the current floor into the queue for the other direction, as the elevator is about to
+     * pass them by, either on its way to a preempting stop or because they are hall calls heading against the sweep
+     *
+     * \param[inout] from Queue for the current direction
+     * \param[inout] to Queue for the other direction
+     */
+    private void defer_floor(StopQueue from, StopQueue to) {
+        if (!has_current_landing(from)) {
+            return;
+        }
+        for (int floor = cur_floor_; floor < cur_floor_ + profile_.get_num_decks(); floor++) {
+            for (StopRequest stop : from.poll_floor(floor)) {
+                to.add(stop);
+            }
+        }
+    }
+
+    /*!
+     * \brief Reverse the elevator to reach a preempting stop behind it, closing the doors if they were open
+     *
+     * \param state The new direction of the elevator
+     */
+    private void turn_around(ElevatorState state) {
+        elevator_state_ = state;
+        at_stop_count_ = 0;
+        move_count_ = 0;
     }
 
     /*!
      * \brief Evaluate the amount of time it would take to get through the current queue of stops
      *
      * \param stop_queue Queue of stops to evaluate
+     * \param ascending true if the queue is served while ascending, false if it is served while descending
      * \param start_floor Starting floor for the evaluation
      * \param stop_floor Cutoff floor to stop at
      *
      * \return A pair containign the Amount of time it would take to get through the current queue of stops,
      * and the last floor that was stopped at
      */
-    private QueueEvaluation evaluate_queue(PriorityQueue<StopRequest> stop_queue, int start_floor, int stop_floor) {
+    private QueueEvaluation evaluate_queue(StopQueue stop_queue, boolean ascending, int start_floor, int stop_floor) {
         // If you are starting at the requested stop floor, return 0 for no time elapsed
         if (start_floor == stop_floor) {
             return new QueueEvaluation(0, start_floor);
@@ -339,25 +981,34 @@ public class Elevator {
         int elapsed_time = 0;
         int cur_floor = start_floor;
 
-        // Sum the time it would take to get through the queue
-        for (StopRequest stop_request : stop_queue) {
-            // We only know the first floor of the stop request, so extract that for predictions
-            int floor = stop_request.get_pick_up_floor();
-
-            // Break early if you've reached the stop floor
-            if (floor == stop_floor) {
-                // Update time required to get to the new floor only, but don't add in stop time
-                elapsed_time += Math.abs(floor - cur_floor) * move_time_unit_;
+        // Sum the time it would take to get through the queue, visiting the floors in the order the elevator would
+        int last_floor = stop_queue.is_empty() ? 0 : (ascending ? stop_queue.highest_floor() : stop_queue.lowest_floor());
+        for (int queue_floor : stop_queue.floors(ascending)) {
+            // Break early if you've reached or passed the stop floor
+            int floor = landing(queue_floor);
+            if (ascending ? floor >= stop_floor : floor <= stop_floor) {
                 break;
             }
 
-            // Compute elapsed time. Assume no elapsed time if you are already at the floor from the queue
+            // Hall calls heading the other way are passed by on this trip
+            if (queue_floor != last_floor && is_passed_by(stop_queue, queue_floor, ascending)) {
+                continue;
+            }
+
+            // Compute elapsed time, with the doors held open for the passengers at the landing. Assume no elapsed time if you
+            // are already at the floor from the queue
             if (floor != cur_floor) {
-                elapsed_time += drop_off_time_unit_ + Math.abs(floor - cur_floor) * move_time_unit_;
+                elapsed_time += profile_.get_dwell_time(landing_passengers(stop_queue, floor)) + Math.abs(floor - cur_floor) * move_time_unit_;
             }
             cur_floor = floor;
         }
 
+        // Update time required to get to the stop floor only, but don't add in stop time
+        if (stop_floor >= 1 && stop_floor <= num_floors_) {
+            elapsed_time += Math.abs(stop_floor - cur_floor) * move_time_unit_;
+            cur_floor = stop_floor;
+        }
+
         return new QueueEvaluation(elapsed_time, cur_floor);
     }
 
@@ -374,14 +1025,23 @@ public class Elevator {
     // Class Attributes
     //--------------------------------------
 
-    private String name_;                           //!< Name of the elevator
+    private String name_;                           //!< Name of the elevator, or null to name it after its number
+    private int number_;                            //!< Number of the elevator within its building, used when there is no name
     private int time_;                              //!< Time, stored as integer number of "time units"
     private int num_floors_;                        //!< Number of floors that the elevator operates on
     private int cur_floor_;                         //!< The current floor that the elevator is at
-    private int drop_off_time_unit_;                //!< Amount of time for which the doors stay open when picking up/dropping off [sec]
+    private int dwell_time_;                        //!< Amount of time for which the doors stay open at the current stop, set on arrival [sec]
     private int move_time_unit_;                    //!< Time it takes the elevator to move between floors [sec]
+    private ElevatorProfile profile_;               //!< Performance profile of the elevator
+    private int move_count_;                        //!< Integer indicating number of time counts that the elevator has been moving towards the next floor
     private ElevatorState elevator_state_;          //!< Defines the state of the current elevator
     private int at_stop_count_;                     //!< Integer indicating number of time counts that the elevator has been at a stop for
-    private PriorityQueue<StopRequest> asc_queue_;  //!< Queue defining stop requests in the ascending direction
-    private PriorityQueue<StopRequest> des_queue_;  //!< Queue defining stop requests in the ascending direction
+    private StopQueue asc_queue_;                   //!< Queue defining stop requests in the ascending direction, or null while there are no stops to serve
+    private StopQueue des_queue_;                   //!< Queue defining stop requests in the descending direction, or null while there are no stops to serve
+    private int[] planned_drop_offs_;               //!< Number of queued pick ups heading to each floor, indexed by floor, or null while none are queued
+    private StopQueue preempting_queue_;            //!< Stop requests from either queue whose priority class preempts the sweep, or null while there are no stops to serve
+    private ArrayList<StopRequest> served_stops_;   //!< Stop requests served during the most recent time step, or null if there were none and there are no stops to serve
+    private ArrayList<StopRequest> immediate_stops_; //!< Stop requests served as soon as they were added, reported with the next time step, or null while there are no stops to serve
+    private boolean publishes_snapshots_;           //!< Whether snapshots are published, which copies don't do
+    private volatile ElevatorSnapshot snapshot_;    //!< Latest snapshot of the elevator, for monitoring threads
 }
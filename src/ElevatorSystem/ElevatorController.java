@@ -7,10 +7,25 @@
 package ElevatorSystem;
 
 // Standard library imports
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
 
 // Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.DispatchMode;
 import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorProfile;
+import ElevatorSystem.ElevatorSnapshot;
+import ElevatorSystem.FleetMirror;
+import ElevatorSystem.FleetSnapshot;
+import ElevatorSystem.RequestLog;
+import ElevatorSystem.RequestPriority;
 import ElevatorSystem.StopRequest;
 
 public class ElevatorController {
@@ -26,21 +41,67 @@ public class ElevatorController {
      * \param num_elevators The number of elevators in the building
      */
     public ElevatorController(int num_floors, int num_elevators) throws IllegalArgumentException {
+        this(num_floors, standard_profiles(num_elevators));
+    }
+
+    /*!
+     * \brief Construct an ElevatorController object for a heterogeneous fleet, with one elevator per performance profile
+     *
+     * \param num_floors Number of floors that the elevator operates on
+     * \param profiles Performance profile of each elevator in the building
+     */
+    public ElevatorController(int num_floors, List<ElevatorProfile> profiles) throws IllegalArgumentException {
         // Error Checking
         if (num_floors <= 1) {
             throw new IllegalArgumentException("ElevatorController() - num_floors value must be greater than or equal to 2.");
         }
-        if (num_elevators < 1) {
-            throw new IllegalArgumentException("ElevatorController() - num_elevators value must be greater than 0.");
+        if (profiles.size() < 1) {
+            throw new IllegalArgumentException("ElevatorController() - at least one elevator profile must be provided.");
         }
 
         // Set values
         num_floors_ = num_floors;
-        elevators_ = new ArrayList<Elevator>();
-        for (int k = 0; k < num_elevators; k++) {
-            elevators_.add(new Elevator("Elevator " + Integer.toString(k + 1), num_floors));
+        time_ = 0;
+        elevators_ = new ArrayList<Elevator>(profiles.size());
+        for (int k = 0; k < profiles.size(); k++) {
+            elevators_.add(new Elevator(k + 1, num_floors, profiles.get(k)));
         }
-
+        shaft_of_ = new int[profiles.size()];
+        Arrays.fill(shaft_of_, -1);                     // Every elevator has its own shaft until told otherwise
+        num_shafts_ = profiles.size();
+        pending_ = null;                                // The controller starts out hibernating, until its first request
+        hall_calls_ = null;
+        num_merged_calls_ = 0;
+        num_picked_up_ = new long[RequestPriority.values().length];
+        total_wait_ = new long[RequestPriority.values().length];
+        max_wait_ = new long[RequestPriority.values().length];
+        wait_counts_ = new long[RequestPriority.values().length][];     // Each histogram is allocated by its first pick up
+        request_log_ = null;
+        fleet_mirror_ = null;
+        next_request_id_ = 0;
+        dispatch_mode_ = DispatchMode.ESTIMATED_TIME;
+        reassign_period_ = 0;                           // Reassignment is disabled until it is configured
+        reassign_threshold_ = 0;
+        reassign_cooldown_ = 0;
+        num_reassignments_ = 0;
+        time_to_live_ = 0;                              // Pick ups wait as long as it takes until a time to live is set
+        expiry_queue_ = null;
+        num_cancelled_ = 0;
+        num_expired_ = 0;
+        min_spacing_ = 0;                               // Spacing control is disabled until it is configured
+        bunching_penalty_ = 0;
+        bunched_ = new boolean[profiles.size()];
+        parking_ = new StopRequest[profiles.size()];
+        num_bunched_ = 0;
+        num_parked_ = 0;
+        wait_deadline_ = 0;                             // Pick ups are served in sweep order until a deadline is set
+        deadline_queue_ = null;
+        num_escalated_ = 0;
+        num_deadline_misses_ = 0;
+        hibernate_after_ = 0;                           // Controllers only hibernate when asked to until this is set
+        num_idle_steps_ = 0;
+        num_hibernations_ = 0;
+        publish_snapshot();
     }
 
 
@@ -48,6 +109,16 @@ public class ElevatorController {
     // Class Methods
     //--------------------------------------
 
+    /*!
+     * \brief Return a snapshot of every elevator taken at the end of the latest time step or request, which is safe to
+     * call from any thread
+     *
+     * \return A snapshot of every elevator
+     */
+    public FleetSnapshot get_snapshot() {
+        return snapshot_;
+    }
+
     /*!
      * \brief Return the number of elevators in the system
      *
@@ -57,6 +128,66 @@ public class ElevatorController {
         return elevators_.size();
     }
 
+    /*!
+     * \brief Return the elevators in the system, in the order they were created
+     *
+     * \return The elevators in the system, which cannot be added to or removed from
+     */
+    public List<Elevator> get_elevators() {
+        return Collections.unmodifiableList(elevators_);
+    }
+
+    /*!
+     * \brief Stack several elevators in one shaft, from the bottom car to the top car
+     *
+     * \note Cars in a shared shaft must have disjoint zones of served floors, in the same order as the cars, with no floor
+     * reachable by two cars. Each car starts at the bottom of its zone and only travels between the floors it serves, so
+     * the cars can never meet. Trips that cross zones are dispatched to other elevators
+     *
+     * \param elevator_indices Indices of the elevators in the shaft, from the bottom car to the top car
+     */
+    public void share_shaft(int... elevator_indices) throws IllegalArgumentException {
+        // Error Checking
+        if (elevator_indices.length < 2) {
+            throw new IllegalArgumentException("ElevatorController.share_shaft() - a shared shaft must hold at least 2 elevators.");
+        }
+        for (int k = 0; k < elevator_indices.length; k++) {
+            int index = elevator_indices[k];
+            if (index < 0 || index >= elevators_.size() || shaft_of_[index] >= 0) {
+                throw new IllegalArgumentException("ElevatorController.share_shaft() - elevator " + Integer.toString(index) + " does not exist or already shares a shaft.");
+            }
+            for (int n = 0; n < k; n++) {
+                if (elevator_indices[n] == index) {
+                    throw new IllegalArgumentException("ElevatorController.share_shaft() - elevator " + Integer.toString(index) + " is listed twice.");
+                }
+            }
+            if (k > 0) {
+                ElevatorProfile lower = elevators_.get(elevator_indices[k - 1]).get_profile();
+                ElevatorProfile upper = elevators_.get(index).get_profile();
+                int lower_top = lower.landing_floor(lower.get_highest_floor(num_floors_)) + lower.get_num_decks() - 1;
+                if (lower_top >= upper.landing_floor(upper.get_lowest_floor())) {
+                    throw new IllegalArgumentException("ElevatorController.share_shaft() - the zones of elevators " + Integer.toString(elevator_indices[k - 1])
+                            + " and " + Integer.toString(index) + " overlap.");
+                }
+            }
+        }
+
+        // Every elevator in the shaft shares the shaft number of the bottom car
+        for (int index : elevator_indices) {
+            shaft_of_[index] = elevator_indices[0];
+        }
+        num_shafts_ -= elevator_indices.length - 1;
+    }
+
+    /*!
+     * \brief Return the number of shafts in the building
+     *
+     * \return The number of shafts in the building
+     */
+    public int get_num_shafts() {
+        return num_shafts_;
+    }
+
     /*!
      * \brief Return the number of floors that the elevator system operates on
      *
@@ -66,11 +197,524 @@ public class ElevatorController {
         return num_floors_;
     }
 
+    /*!
+     * \brief Return the number of pick ups that have been handed to an elevator but not yet reached
+     *
+     * \return The number of pick ups that have been handed to an elevator but not yet reached
+     */
+    public int get_num_pending() {
+        return pending_ == null ? 0 : pending_.size();
+    }
+
+    /*!
+     * \brief Return the number of requests of a priority class that have been picked up
+     *
+     * \param priority The priority class
+     *
+     * \return The number of requests of the priority class that have been picked up
+     */
+    public long get_num_picked_up(RequestPriority priority) {
+        return num_picked_up_[priority.ordinal()];
+    }
+
+    /*!
+     * \brief Return the mean wait for a pick up of a priority class, from the request being added to it being reached
+     *
+     * \param priority The priority class
+     *
+     * \return The mean wait for a pick up of the priority class [time steps], or 0 if none have been picked up
+     */
+    public double get_mean_wait(RequestPriority priority) {
+        long num_picked_up = num_picked_up_[priority.ordinal()];
+        return num_picked_up == 0 ? 0 : (double) total_wait_[priority.ordinal()] / num_picked_up;
+    }
+
+    /*!
+     * \brief Return the longest wait for a pick up of a priority class, from the request being added to it being reached
+     *
+     * \param priority The priority class
+     *
+     * \return The longest wait for a pick up of the priority class [time steps]
+     */
+    public long get_max_wait(RequestPriority priority) {
+        return max_wait_[priority.ordinal()];
+    }
+
+    /*!
+     * \brief Return the wait for a pick up of a priority class that a fraction of the requests picked up didn't exceed,
+     * such as 0.999 for the 99.9th percentile
+     *
+     * \param priority The priority class
+     * \param fraction Fraction of the requests picked up, between 0 and 1
+     *
+     * \return The wait at that percentile [time steps], or 0 if none have been picked up
+     */
+    public long get_wait_percentile(RequestPriority priority, double fraction) throws IllegalArgumentException {
+        // Error Checking
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("ElevatorController.get_wait_percentile() - fraction must be between 0 and 1.");
+        }
+
+        // Walk the histogram until the fraction of requests is covered
+        long[] wait_counts = wait_counts_[priority.ordinal()];
+        if (wait_counts == null) {
+            return 0;
+        }
+        long num_covered = (long) Math.ceil(fraction * num_picked_up_[priority.ordinal()]);
+        long count = 0;
+        for (int wait = 0; wait < wait_counts.length; wait++) {
+            count += wait_counts[wait];
+            if (count >= num_covered && count > 0) {
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    /*!
+     * \brief Return the number of pick ups that were at risk of missing the wait deadline and were escalated
+     *
+     * \return The number of pick ups that were escalated
+     */
+    public long get_num_escalated() {
+        return num_escalated_;
+    }
+
+    /*!
+     * \brief Return the number of pick ups that were reached after waiting longer than the wait deadline
+     *
+     * \return The number of pick ups that missed the wait deadline
+     */
+    public long get_num_deadline_misses() {
+        return num_deadline_misses_;
+    }
+
+    /*!
+     * \brief Return the number of times a pending pick up has been moved to a different elevator
+     *
+     * \return The number of times a pending pick up has been moved to a different elevator
+     */
+    public int get_num_reassignments() {
+        return num_reassignments_;
+    }
+
+    /*!
+     * \brief Return the number of repeated hall button presses that were merged into an active hall call
+     *
+     * \return The number of repeated hall button presses that were merged into an active hall call
+     */
+    public int get_num_merged_calls() {
+        return num_merged_calls_;
+    }
+
+    /*!
+     * \brief Return the number of pick ups cancelled with cancel_stop()
+     *
+     * \return The number of pick ups cancelled with cancel_stop()
+     */
+    public long get_num_cancelled() {
+        return num_cancelled_;
+    }
+
+    /*!
+     * \brief Return the number of pick ups that expired after waiting longer than the time to live
+     *
+     * \return The number of pick ups that expired
+     */
+    public long get_num_expired() {
+        return num_expired_;
+    }
+
+    /*!
+     * \brief Return the number of time steps elevators spent bunched behind another elevator, counted once per trailing
+     * elevator per time step
+     *
+     * \return The number of time steps elevators spent bunched behind another elevator
+     */
+    public long get_num_bunched() {
+        return num_bunched_;
+    }
+
+    /*!
+     * \brief Return the number of times an idle elevator was sent away from the rest of the fleet
+     *
+     * \return The number of times an idle elevator was sent away from the rest of the fleet
+     */
+    public long get_num_parked() {
+        return num_parked_;
+    }
+
+    /*!
+     * \brief Set how long a pick up may wait before it expires and is dropped from its elevator
+     *
+     * \note Only requests added after the time to live is set are given one
+     *
+     * \param time_to_live Number of time steps a pick up may wait, or 0 to let pick ups wait as long as it takes
+     */
+    public void set_time_to_live(long time_to_live) throws IllegalArgumentException {
+        // Error Checking
+        if (time_to_live < 0) {
+            throw new IllegalArgumentException("ElevatorController.set_time_to_live() - time_to_live must be greater than or equal to 0.");
+        }
+
+        time_to_live_ = time_to_live;
+        if (time_to_live_ == 0 && expiry_queue_ != null) {
+            expiry_queue_.clear();
+        }
+    }
+
+    /*!
+     * \brief Cancel a request that hasn't been picked up yet, removing it from the elevator that owns it. If that was the
+     * elevator's last stop in its direction of travel, it turns around or stops straight away
+     *
+     * \note Cancelling a hall call also cancels the repeated presses of its button that joined it. A repeated press that
+     * joined another call can't be cancelled on its own
+     *
+     * \param stop The stop request, as passed to add_stop()
+     *
+     * \return true if the request was cancelled, false if it was already picked up or isn't tracked by the controller
+     */
+    public boolean cancel_stop(StopRequest stop) {
+        PendingPickUp pick_up = pending_ == null ? null : pending_.get(stop);
+        if (pick_up == null) {
+            return false;
+        }
+
+        drop_pick_up(pick_up);
+        num_cancelled_ += 1;
+        publish_snapshot();
+        return true;
+    }
+
+    /*!
+     * \brief Return the elevator that owns the active hall call for a floor and direction
+     *
+     * \param floor Floor on which the hall button was pressed
+     * \param direction Direction of the hall button
+     *
+     * \return The elevator that owns the active hall call, or null if there is no active hall call
+     */
+    public Elevator get_hall_call_owner(int floor, DirectionRequest direction) throws IllegalArgumentException {
+        // Error Checking on floor
+        if (floor < 1 || floor > num_floors_) {
+            throw new IllegalArgumentException("ElevatorController.get_hall_call_owner() - floor number must be between 1 and num_floors.");
+        }
+
+        PendingPickUp pick_up = hall_call(floor, direction);
+        return pick_up == null ? null : pick_up.owner;
+    }
+
+    /*!
+     * \brief Return the stop request of the active hall call for a floor and direction, which repeated presses of the
+     * hall button join
+     *
+     * \param floor Floor on which the hall button was pressed
+     * \param direction Direction of the hall button
+     *
+     * \return The stop request of the active hall call, or null if there is no active hall call
+     */
+    public StopRequest get_hall_call(int floor, DirectionRequest direction) throws IllegalArgumentException {
+        // Error Checking on floor
+        if (floor < 1 || floor > num_floors_) {
+            throw new IllegalArgumentException("ElevatorController.get_hall_call() - floor number must be between 1 and num_floors.");
+        }
+
+        PendingPickUp pick_up = hall_call(floor, direction);
+        return pick_up == null ? null : pick_up.stop;
+    }
+
+    /*!
+     * \brief Enable periodic reassignment of pending pick ups between elevators
+     *
+     * \note A pick up is only moved when another elevator would finish it at least threshold time steps sooner, and a
+     * pick up that was just moved must wait out the cooldown before it may move again. The cooldown must be longer than
+     * the period, so a pick up always sits out at least the next pass and two cars trading the lead don't flap it
+     *
+     * \param period Number of time steps between reassignment passes, or 0 to disable reassignment
+     * \param threshold Minimum improvement in estimated time required before a pick up is moved
+     * \param cooldown Number of time steps a moved pick up must wait before it may move again
+     */
+    public void set_reassignment(int period, int threshold, int cooldown) throws IllegalArgumentException {
+        // Error Checking
+        if (period < 0) {
+            throw new IllegalArgumentException("ElevatorController.set_reassignment() - period must be greater than or equal to 0.");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("ElevatorController.set_reassignment() - threshold must be greater than 0.");
+        }
+        if (period > 0 && cooldown <= period) {
+            throw new IllegalArgumentException("ElevatorController.set_reassignment() - cooldown must be greater than period.");
+        }
+
+        reassign_period_ = period;
+        reassign_threshold_ = threshold;
+        reassign_cooldown_ = cooldown;
+    }
+
+    /*!
+     * \brief Set a deadline on the wait for a pick up, so a pick up can't be passed over forever by traffic that keeps
+     * extending its elevator's sweep
+     *
+     * \note Pick ups age once they have waited a quarter of the deadline. Each time step, an aged pick up whose elevator
+     * wouldn't reach it within three quarters of the deadline, leaving the last quarter for estimates that turn out
+     * optimistic as other stops are added, is moved to an elevator that would reach it sooner and within the deadline, if
+     * there is one. Either way, it then preempts its elevator's sweep like an emergency call, so the elevator turns around
+     * if needed and skips other stops to reach it. A moved pick up would otherwise fall behind again as stops are added,
+     * and hop from car to car, so a pick up is moved at most once. Only requests added after the deadline is set are given
+     * one
+     *
+     * \param wait_deadline Number of time steps a pick up should wait at most, or 0 to serve pick ups in sweep order
+     */
+    public void set_wait_deadline(long wait_deadline) throws IllegalArgumentException {
+        // Error Checking
+        if (wait_deadline < 0) {
+            throw new IllegalArgumentException("ElevatorController.set_wait_deadline() - wait_deadline must be greater than or equal to 0.");
+        }
+
+        wait_deadline_ = wait_deadline;
+        if (wait_deadline_ == 0 && deadline_queue_ != null) {
+            deadline_queue_.clear();
+        }
+    }
+
+    /*!
+     * \brief Enable spacing control, which keeps elevators from travelling together and leaving long gaps in service
+     *
+     * \note Each time step, an elevator moving within min_spacing floors behind another elevator travelling the same way
+     * is bunched. The car ahead reaches the calls in front of them first, so a bunched elevator has bunching_penalty
+     * added to its estimated time for those calls, and they go to the car ahead or to an elevator elsewhere in the
+     * building. An idle elevator within min_spacing floors of another idle elevator is sent to the floor furthest from the
+     * other idle elevators, which is often the opposite end of the building, and drops that trip as soon as it is given a
+     * request. Each elevator is sent at most once between requests, so idle elevators settle. Elevators in a shared shaft
+     * are never sent. The penalty only applies to DispatchMode.ESTIMATED_TIME
+     *
+     * \param min_spacing Number of floors elevators should keep between them, or 0 to disable spacing control
+     * \param bunching_penalty Number of time steps added to a bunched elevator's estimate for calls ahead of it
+     */
+    public void set_spacing(int min_spacing, int bunching_penalty) throws IllegalArgumentException {
+        // Error Checking
+        if (min_spacing < 0) {
+            throw new IllegalArgumentException("ElevatorController.set_spacing() - min_spacing must be greater than or equal to 0.");
+        }
+        if (bunching_penalty < 0) {
+            throw new IllegalArgumentException("ElevatorController.set_spacing() - bunching_penalty must be greater than or equal to 0.");
+        }
+
+        min_spacing_ = min_spacing;
+        bunching_penalty_ = bunching_penalty;
+        Arrays.fill(bunched_, false);
+    }
+
+    /*!
+     * \brief Hibernate the controller if it is at rest, releasing the storage it only needs while pick ups are pending
+     *
+     * \note A controller is at rest when no pick ups are pending and every elevator is idle. Hibernating keeps the
+     * elevators, their floors and every statistic, trimming each wait histogram to the longest wait seen. The controller
+     * wakes by itself when a request is added, and can go on being stepped while it hibernates. A new controller starts
+     * out hibernating
+     *
+     * \return true if the controller is hibernating, false if it isn't at rest
+     */
+    public boolean hibernate() {
+        if (pending_ == null) {
+            return true;
+        }
+        if (!pending_.isEmpty() || is_active()) {
+            return false;
+        }
+
+        pending_ = null;
+        hall_calls_ = null;
+        expiry_queue_ = null;
+        deadline_queue_ = null;
+        for (int k = 0; k < wait_counts_.length; k++) {
+            if (wait_counts_[k] != null) {
+                wait_counts_[k] = Arrays.copyOf(wait_counts_[k], (int) max_wait_[k] + 1);
+            }
+        }
+        num_hibernations_ += 1;
+        return true;
+    }
+
+    /*!
+     * \brief Returns true if the controller is hibernating, false otherwise
+     *
+     * \return true if the controller is hibernating, false otherwise
+     */
+    public boolean is_hibernating() {
+        return pending_ == null;
+    }
+
+    /*!
+     * \brief Hibernate the controller by itself once it has been at rest for a number of time steps, for hosting many
+     * buildings that sit idle most of the time
+     *
+     * \param hibernate_after Number of time steps at rest before the controller hibernates, or 0 to only hibernate when
+     * hibernate() is called
+     */
+    public void set_hibernation(int hibernate_after) throws IllegalArgumentException {
+        // Error Checking
+        if (hibernate_after < 0) {
+            throw new IllegalArgumentException("ElevatorController.set_hibernation() - hibernate_after must be greater than or equal to 0.");
+        }
+
+        hibernate_after_ = hibernate_after;
+        num_idle_steps_ = 0;
+    }
+
+    /*!
+     * \brief Return the number of times the controller has gone into hibernation
+     *
+     * \return The number of times the controller has gone into hibernation
+     */
+    public long get_num_hibernations() {
+        return num_hibernations_;
+    }
+
+    /*!
+     * \brief Return how the controller chooses the elevator for a new request
+     *
+     * \return How the controller chooses the elevator for a new request
+     */
+    public DispatchMode get_dispatch_mode() {
+        return dispatch_mode_;
+    }
+
+    /*!
+     * \brief Set how the controller chooses the elevator for a new request
+     *
+     * \param dispatch_mode How the controller chooses the elevator for a new request
+     */
+    public void set_dispatch_mode(DispatchMode dispatch_mode) {
+        dispatch_mode_ = dispatch_mode;
+    }
+
+    /*!
+     * \brief Mirror the state of every elevator into shared memory at the end of each time step, for monitoring
+     * processes to read
+     *
+     * \param fleet_mirror The mirror, or null to stop mirroring
+     */
+    public void set_fleet_mirror(FleetMirror fleet_mirror) throws IllegalArgumentException {
+        // Error Checking
+        if (fleet_mirror != null && fleet_mirror.get_num_elevators() != elevators_.size()) {
+            throw new IllegalArgumentException("ElevatorController.set_fleet_mirror() - the mirror must have one record per elevator.");
+        }
+
+        fleet_mirror_ = fleet_mirror;
+        if (fleet_mirror_ != null) {
+            fleet_mirror_.publish(time_, elevators_);
+        }
+    }
+
+    /*!
+     * \brief Write every request to a write-ahead log before it is dispatched, committing the log once per time step
+     *
+     * \param request_log The log, or null to stop logging
+     */
+    public void set_request_log(RequestLog request_log) {
+        request_log_ = request_log;
+    }
+
+    /*!
+     * \brief Rebuild the system from the state replayed out of a request log, placing each elevator back on its last
+     * logged floor, restoring the stops of passengers who were riding, and dispatching the requests that were waiting
+     *
+     * \note This should be called on a freshly constructed controller, after set_request_log() if the recovered state
+     * should be written to a new log
+     *
+     * \param recovery State replayed out of a request log
+     */
+    public void recover(RequestLog.Recovery recovery) throws IllegalArgumentException {
+        // Error Checking
+        int[] floors = recovery.get_floors();
+        if (floors != null && floors.length != elevators_.size()) {
+            throw new IllegalArgumentException("ElevatorController.recover() - the log was written for " + Integer.toString(floors.length) + " elevators.");
+        }
+
+        for (int k = 0; k < elevators_.size(); k++) {
+            Elevator elevator = elevators_.get(k);
+            if (floors != null) {
+                elevator.restore_floor(floors[k]);
+            }
+
+            // Passengers who were riding still need to reach their floors
+            for (int floor : recovery.get_riding(k)) {
+                if (request_log_ != null) {
+                    request_log_.log_riding(k, floor);
+                }
+                elevator.add_stop(new StopRequest(floor));
+            }
+        }
+
+        // Requests that were waiting are dispatched again
+        for (StopRequest stop : recovery.get_pending()) {
+            add_stop(stop);
+        }
+
+        if (request_log_ != null) {
+            log_floors();
+            request_log_.commit();
+        }
+    }
+
     //! Step all elevators in the system forward by one time step
     public void step() {
-        for (Elevator elevator : elevators_) {
+        time_ += 1;
+
+        // Drop the pick ups that have waited too long before any elevator moves towards them
+        if (time_to_live_ > 0 && pending_ != null) {
+            expire_pending();
+        }
+
+        // Make sure the pick ups that are running out of time will be reached before their deadline
+        if (wait_deadline_ > 0 && pending_ != null) {
+            escalate_overdue();
+        }
+
+        for (int k = 0; k < elevators_.size(); k++) {
+            Elevator elevator = elevators_.get(k);
             elevator.step();
+
+            // Pick ups that were reached can no longer be moved, and their hall calls are answered. Any other stop lets off
+            // the passengers logged as riding to it, which the log skips if there are none
+            for (StopRequest stop : elevator.get_served_stops()) {
+                if (!complete_pick_up(stop) && request_log_ != null) {
+                    request_log_.log_dropped_off(k, stop.get_pick_up_floor());
+                }
+            }
+        }
+
+        // Periodically hand pending pick ups to elevators that can now reach them sooner
+        if (reassign_period_ > 0 && time_ % reassign_period_ == 0 && pending_ != null) {
+            reassign_pending();
+        }
+
+        // Find the elevators travelling together, and spread out the idle ones
+        if (min_spacing_ > 0) {
+            find_bunched();
+            park_idle();
+        }
+
+        // Release the storage of a controller that has been at rest for long enough
+        if (hibernate_after_ > 0 && pending_ != null) {
+            num_idle_steps_ = pending_.isEmpty() && !is_active() ? num_idle_steps_ + 1 : 0;
+            if (num_idle_steps_ >= hibernate_after_) {
+                hibernate();
+                num_idle_steps_ = 0;
+            }
+        }
+
+        // Every request added during this time step becomes durable with a single commit
+        if (request_log_ != null) {
+            log_floors();
+            request_log_.commit();
         }
+
+        if (fleet_mirror_ != null) {
+            fleet_mirror_.publish(time_, elevators_);
+        }
+        publish_snapshot();
     }
 
     //! Display the status of each elevator within the system
@@ -104,36 +748,632 @@ public class ElevatorController {
      * \brief Add a stop to an elevator within the system.
      *
      * \param stop Stop request specifying
+     *
+     * \return The elevator assigned the stop request, which for a repeated hall button press is the owner of the call it joined
      */
-    public void add_stop(StopRequest stop) throws IllegalArgumentException  {
+    public Elevator add_stop(StopRequest stop) throws IllegalArgumentException  {
         // Error Checking on stop request
         if (stop.get_pick_up_floor() < 1 || stop.get_pick_up_floor() > num_floors_ ) {
             throw new IllegalArgumentException("Elevator.add_stop() - floor number must be between 1 and num_floors.");
         }
+        wake();
+
+        // A repeated press of an active hall button joins the existing call, provided it is of the same priority class and
+        // its owner serves the new floors. Destination dispatch groups passengers by their drop off floors instead
+        DirectionRequest direction = stop.get_direction();
+        if (direction != null && dispatch_mode_ != DispatchMode.DESTINATION) {
+            PendingPickUp hall_call = hall_call(stop.get_pick_up_floor(), direction);
+            if (hall_call != null && hall_call.stop.get_priority() == stop.get_priority() && hall_call.owner.get_profile().serves_stop(stop)) {
+                if (request_log_ != null) {
+                    request_log_.log_add(hall_call.id, stop);
+                }
+                hall_call.owner.merge_stop(hall_call.stop, stop);
+                num_merged_calls_ += 1;
+                return hall_call.owner;
+            }
+        }
 
         // Determine the best Elevator to use
+        Elevator best_elevator = null;
+        switch (dispatch_mode_) {
+            case DispatchMode.ESTIMATED_TIME: {
+                best_elevator = choose_by_estimated_time(stop);
+                break;
+            }
+            case DispatchMode.ROLLOUT: {
+                best_elevator = choose_by_rollout(stop);
+                break;
+            }
+            case DispatchMode.DESTINATION: {
+                best_elevator = choose_by_destination(stop);
+                break;
+            }
+        }
+
+        // Add the stop, logging it first
+        if (best_elevator == null) {
+            throw new IllegalArgumentException("ElevatorController.add_stop() - no elevator serves every floor of the stop request.");
+        }
+        long request_id = next_request_id_++;
+        if (request_log_ != null) {
+            request_log_.log_add(request_id, stop);
+        }
+        cancel_parking(elevators_.indexOf(best_elevator));
+        best_elevator.add_stop(stop);     // Once it has served the request it may be sent again
+
+        // Track the pick up until it is reached, unless the elevator was already waiting on that floor
+        if (!best_elevator.has_stop(stop)) {
+            if (request_log_ != null) {
+                request_log_.log_picked_up(request_id, elevators_.indexOf(best_elevator));
+            }
+            record_wait(stop.get_priority(), 0);
+        } else {
+            PendingPickUp pick_up = new PendingPickUp(request_id, stop, direction, best_elevator, time_);
+            pending_.put(stop, pick_up);
+            if (time_to_live_ > 0) {
+                expiry_queue_.add(pick_up);
+            }
+            if (wait_deadline_ > 0) {
+                deadline_queue_.add(pick_up);
+            }
+
+            // Register the hall call so repeated presses can join it, unless another call already holds the button
+            if (direction != null && hall_calls_[stop.get_pick_up_floor()][direction.ordinal()] == null) {
+                hall_calls_[stop.get_pick_up_floor()][direction.ordinal()] = pick_up;
+            }
+        }
+        publish_snapshot();
+        return best_elevator;
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    //! Allocate the storage for pending pick ups if the controller is hibernating
+    private void wake() {
+        if (pending_ == null) {
+            pending_ = new IdentityHashMap<StopRequest, PendingPickUp>();
+            hall_calls_ = new PendingPickUp[num_floors_ + 1][DirectionRequest.values().length];
+            expiry_queue_ = new ArrayDeque<PendingPickUp>();
+            deadline_queue_ = new ArrayDeque<PendingPickUp>();
+        }
+    }
+
+    /*!
+     * \brief Return the active hall call for a floor and direction
+     *
+     * \param floor Floor on which the hall button was pressed
+     * \param direction Direction of the hall button
+     *
+     * \return The active hall call, or null if there is none
+     */
+    private PendingPickUp hall_call(int floor, DirectionRequest direction) {
+        return hall_calls_ == null ? null : hall_calls_[floor][direction.ordinal()];
+    }
+
+    /*!
+     * \brief Build the standard profile for each elevator of a homogeneous fleet
+     *
+     * \param num_elevators The number of elevators in the building
+     *
+     * \return The standard profile for each elevator
+     */
+    private static List<ElevatorProfile> standard_profiles(int num_elevators) throws IllegalArgumentException {
+        // Error Checking
+        if (num_elevators < 1) {
+            throw new IllegalArgumentException("ElevatorController() - num_elevators value must be greater than 0.");
+        }
+
+        return Collections.nCopies(num_elevators, ElevatorProfile.STANDARD);
+    }
+
+    /*!
+     * \brief Stop tracking a pick up that has been reached, clearing its hall call
+     *
+     * \param stop The stop request that was served
+     *
+     * \return true if the stop request was a pending pick up, false otherwise
+     */
+    private boolean complete_pick_up(StopRequest stop) {
+        PendingPickUp pick_up = pending_ == null ? null : pending_.remove(stop);
+        if (pick_up == null) {
+            return false;
+        }
+
+        if (request_log_ != null) {
+            request_log_.log_picked_up(pick_up.id, elevators_.indexOf(pick_up.owner));
+        }
+        long wait = time_ - pick_up.added_time;
+        record_wait(stop.get_priority(), wait);
+        if (wait_deadline_ > 0 && wait > wait_deadline_) {
+            num_deadline_misses_ += 1;
+        }
+        if (pick_up.direction != null) {
+            PendingPickUp[] hall_call = hall_calls_[stop.get_pick_up_floor()];
+            if (hall_call[pick_up.direction.ordinal()] == pick_up) {
+                hall_call[pick_up.direction.ordinal()] = null;
+            }
+        }
+        return true;
+    }
+
+    /*!
+     * \brief Drop a pending pick up that was cancelled or expired, removing it from its owner and clearing its hall call
+     *
+     * \param pick_up The pending pick up
+     */
+    private void drop_pick_up(PendingPickUp pick_up) {
+        pending_.remove(pick_up.stop);
+        pick_up.owner.remove_stop(pick_up.stop);
+
+        if (request_log_ != null) {
+            request_log_.log_cancelled(pick_up.id);
+        }
+        if (pick_up.direction != null) {
+            PendingPickUp[] hall_call = hall_calls_[pick_up.stop.get_pick_up_floor()];
+            if (hall_call[pick_up.direction.ordinal()] == pick_up) {
+                hall_call[pick_up.direction.ordinal()] = null;
+            }
+        }
+    }
+
+    //! Drop every pending pick up that has waited longer than the time to live, oldest first
+    private void expire_pending() {
+        PendingPickUp pick_up;
+        while ((pick_up = expiry_queue_.peek()) != null && time_ - pick_up.added_time > time_to_live_) {
+            expiry_queue_.poll();
+
+            // Pick ups that were already reached or cancelled have nothing left to drop
+            if (pending_.get(pick_up.stop) == pick_up) {
+                drop_pick_up(pick_up);
+                num_expired_ += 1;
+            }
+        }
+    }
+
+    //! Move or escalate each aged pick up that its elevator wouldn't reach before the wait deadline
+    private void escalate_overdue() {
+        Iterator<PendingPickUp> iterator = deadline_queue_.iterator();
+        while (iterator.hasNext()) {
+            PendingPickUp pick_up = iterator.next();
+
+            // Pick ups are queued in the order they were added, so the rest are too young to age
+            long age = time_ - pick_up.added_time;
+            if (4 * age < wait_deadline_) {
+                break;
+            }
+
+            // Pick ups that were already reached, cancelled or escalated have nothing left to do
+            if (pending_.get(pick_up.stop) != pick_up || pick_up.escalated) {
+                iterator.remove();
+                continue;
+            }
+
+            // Estimates leave out the stops added later, so a pick up should be reached within three quarters of the deadline
+            StopRequest stop = pick_up.stop;
+            long time_left = wait_deadline_ - wait_deadline_ / 4 - age;
+            int owner_time = pick_up.owner.estimate_time_to_stop(stop);
+            if (owner_time <= time_left) {
+                continue;
+            }
+
+            // Hand the pick up to the elevator that would reach it soonest, if that beats its owner and is in time
+            Elevator best_elevator = null;
+            int min_time = (int) Math.min(owner_time, wait_deadline_ - age + 1);
+            for (Elevator elevator : elevators_) {
+                if (elevator == pick_up.owner || !elevator.get_profile().serves_stop(stop)) {
+                    continue;
+                }
+
+                int estimated_time = elevator.estimate_time_to_stop(stop);
+                if (estimated_time < min_time) {
+                    best_elevator = elevator;
+                    min_time = estimated_time;
+                }
+            }
+            if (best_elevator != null && pick_up.owner.remove_stop(stop)) {
+                cancel_parking(elevators_.indexOf(best_elevator));
+                best_elevator.add_stop(stop);
+                pick_up.owner = best_elevator;
+                pick_up.assigned_time = time_;
+                num_reassignments_ += 1;
+
+                // A pick up handed to a car sitting on its floor is served straight away
+                if (!best_elevator.has_stop(stop)) {
+                    complete_pick_up(stop);
+                    iterator.remove();
+                    continue;
+                }
+            }
+
+            // The owner goes straight there, whether the pick up was just handed to it or no other elevator would make it
+            // in sweep order. Either way the pick up is settled, so it can't hop between cars as its time runs out
+            pick_up.owner.escalate_stop(stop);
+            pick_up.escalated = true;
+            num_escalated_ += 1;
+            iterator.remove();
+        }
+    }
+
+    /*!
+     * \brief Record the wait of a request that was picked up
+     *
+     * \param priority Priority class of the request
+     * \param wait Time from the request being added to it being picked up [time steps]
+     */
+    private void record_wait(RequestPriority priority, long wait) {
+        num_picked_up_[priority.ordinal()] += 1;
+        total_wait_[priority.ordinal()] += wait;
+        max_wait_[priority.ordinal()] = Math.max(max_wait_[priority.ordinal()], wait);
+
+        // Waits are counted in a histogram that doubles in size when a longer wait comes along
+        long[] wait_counts = wait_counts_[priority.ordinal()];
+        if (wait_counts == null) {
+            wait_counts = new long[Math.max(WAIT_HISTOGRAM_SIZE, (int) wait + 1)];
+            wait_counts_[priority.ordinal()] = wait_counts;
+        } else if (wait >= wait_counts.length) {
+            wait_counts = Arrays.copyOf(wait_counts, Math.max(2 * wait_counts.length, (int) wait + 1));
+            wait_counts_[priority.ordinal()] = wait_counts;
+        }
+        wait_counts[(int) wait] += 1;
+    }
+
+    /*!
+     * \brief Choose the elevator with the lowest estimated time to pick up the request and carry it to its destination,
+     * so faster cars win long trips
+     *
+     * \param stop The stop request
+     *
+     * \return The chosen elevator, or null if no elevator serves every floor of the stop request
+     */
+    private Elevator choose_by_estimated_time(StopRequest stop) {
         Elevator best_elevator = null;
         int min_time = 0;
 
         for (Elevator elevator : elevators_) {
-            // Get the estimated time to reach the first floor of the stop request
-            int estimated_time = elevator.estimate_time_to_stop(stop);
+            // Skip express cars that cannot stop at every floor of the request
+            if (!elevator.get_profile().serves_stop(stop)) {
+                continue;
+            }
+
+            int estimated_time = elevator.estimate_time_to_destination(stop);
+            if (min_spacing_ > 0 && is_bunched_ahead(elevator, stop.get_pick_up_floor())) {
+                estimated_time += bunching_penalty_;
+            }
             if (best_elevator == null || estimated_time < min_time) {
                 best_elevator = elevator;
                 min_time = estimated_time;
             }
         }
 
-        // Add the stop
-        if (best_elevator != null) {
-            best_elevator.add_stop(stop);
+        return best_elevator;
+    }
+
+    /*!
+     * \brief Choose the elevator with the lowest destination dispatch cost, grouping passengers with common drop off
+     * floors into the same elevator
+     *
+     * \param stop The stop request
+     *
+     * \return The chosen elevator, or null if no elevator serves every floor of the stop request
+     */
+    private Elevator choose_by_destination(StopRequest stop) {
+        Elevator best_elevator = null;
+        int min_cost = 0;
+
+        for (Elevator elevator : elevators_) {
+            // Skip express cars that cannot stop at every floor of the request
+            if (!elevator.get_profile().serves_stop(stop)) {
+                continue;
+            }
+
+            int cost = elevator.estimate_destination_cost(stop);
+            if (best_elevator == null || cost < min_cost) {
+                best_elevator = elevator;
+                min_cost = cost;
+            }
+        }
+
+        return best_elevator;
+    }
+
+    /*!
+     * \brief Choose the elevator whose simulated route is delayed least by the request, simulating every candidate in
+     * parallel
+     *
+     * \param stop The stop request
+     *
+     * \return The chosen elevator, or null if no elevator serves every floor of the stop request
+     */
+    private Elevator choose_by_rollout(StopRequest stop) {
+        // Each task only touches its own elevator, so the rollouts can run side by side
+        long[] costs = new long[elevators_.size()];
+        IntStream.range(0, costs.length).parallel().forEach(k -> {
+            Elevator elevator = elevators_.get(k);
+            if (elevator.get_profile().serves_stop(stop)) {
+                // Simulate long enough for two full sweeps of the building, stopping at every floor
+                ElevatorProfile profile = elevator.get_profile();
+                int horizon = 2 * num_floors_ * (profile.get_move_time_unit() + profile.get_max_drop_off_time_unit());
+                costs[k] = elevator.estimate_rollout_cost(stop, horizon);
+            } else {
+                costs[k] = Long.MAX_VALUE;
+            }
+        });
+
+        Elevator best_elevator = null;
+        long min_cost = Long.MAX_VALUE;
+        for (int k = 0; k < costs.length; k++) {
+            if (costs[k] < min_cost) {
+                best_elevator = elevators_.get(k);
+                min_cost = costs[k];
+            }
+        }
+
+        return best_elevator;
+    }
+
+    /*!
+     * \brief Return true if an elevator is bunched behind another elevator and a floor lies ahead of it, where the car in
+     * front will get first
+     *
+     * \param elevator The elevator
+     * \param floor The floor
+     *
+     * \return true if the elevator is bunched and the floor is ahead of it, false otherwise
+     */
+    private boolean is_bunched_ahead(Elevator elevator, int floor) {
+        if (!bunched_[elevators_.indexOf(elevator)]) {
+            return false;
+        }
+
+        int cur_floor = elevator.get_current_floor();
+        return elevator.get_elevator_state() == ElevatorState.ASCENDING ? floor > cur_floor : floor < cur_floor;
+    }
+
+    //! Mark each moving elevator that is within the minimum spacing behind another elevator travelling the same way
+    private void find_bunched() {
+        for (int k = 0; k < elevators_.size(); k++) {
+            Elevator elevator = elevators_.get(k);
+            ElevatorState state = elevator.get_elevator_state();
+            int floor = elevator.get_current_floor();
+            bunched_[k] = false;
+            if (state == ElevatorState.IDLE) {
+                continue;
+            }
+
+            for (int n = 0; n < elevators_.size(); n++) {
+                Elevator other = elevators_.get(n);
+                if (n == k || other.get_elevator_state() != state) {
+                    continue;
+                }
+
+                // The elevator ahead is further along in the direction of travel, with ties going to the lower index
+                int lead = state == ElevatorState.ASCENDING ? other.get_current_floor() - floor : floor - other.get_current_floor();
+                if (lead < min_spacing_ && (lead > 0 || (lead == 0 && n < k))) {
+                    bunched_[k] = true;
+                    num_bunched_ += 1;
+                    break;
+                }
+            }
+        }
+    }
+
+    //! Send each idle elevator that is too close to another idle elevator to the floor furthest from the other idle elevators
+    private void park_idle() {
+        for (int k = 0; k < elevators_.size(); k++) {
+            Elevator elevator = elevators_.get(k);
+            if (parking_[k] != null || shaft_of_[k] >= 0 || elevator.get_elevator_state() != ElevatorState.IDLE) {
+                continue;
+            }
+
+            int cur_floor = elevator.get_current_floor();
+            int cur_spacing = spacing(k, cur_floor);
+            if (cur_spacing >= min_spacing_) {
+                continue;
+            }
+
+            // Find the floor furthest from every other elevator, preferring the closest such floor
+            ElevatorProfile profile = elevator.get_profile();
+            int best_floor = cur_floor;
+            int max_spacing = cur_spacing;
+            for (int floor = 1; floor <= num_floors_; floor++) {
+                if (!profile.serves_floor(floor)) {
+                    continue;
+                }
+
+                int floor_spacing = spacing(k, floor);
+                if (floor_spacing > max_spacing || (floor_spacing == max_spacing && best_floor != cur_floor
+                        && Math.abs(floor - cur_floor) < Math.abs(best_floor - cur_floor))) {
+                    best_floor = floor;
+                    max_spacing = floor_spacing;
+                }
+            }
+
+            // Send the elevator like a passenger riding to that floor, so a recovered log sends it there too
+            if (best_floor != cur_floor) {
+                if (request_log_ != null) {
+                    request_log_.log_riding(k, best_floor);
+                }
+                parking_[k] = new StopRequest(best_floor);
+                elevator.add_stop(parking_[k]);
+                num_parked_ += 1;
+            }
+        }
+    }
+
+    /*!
+     * \brief Drop the trip an elevator was sent on while idle, as it is about to be given a request
+     *
+     * \param elevator_index Index of the elevator
+     */
+    private void cancel_parking(int elevator_index) {
+        StopRequest parking = parking_[elevator_index];
+        if (parking != null) {
+            // The trip was logged like a passenger riding to the floor, so the log must see them get off
+            if (elevators_.get(elevator_index).remove_stop(parking) && request_log_ != null) {
+                request_log_.log_dropped_off(elevator_index, parking.get_pick_up_floor());
+            }
+            parking_[elevator_index] = null;
+        }
+    }
+
+    /*!
+     * \brief Return the distance from a floor to the nearest other idle elevator
+     *
+     * \param elevator_index Index of the elevator to leave out
+     * \param floor The floor
+     *
+     * \return The number of floors between the floor and the nearest other idle elevator
+     */
+    private int spacing(int elevator_index, int floor) {
+        int min_distance = num_floors_;
+        for (int k = 0; k < elevators_.size(); k++) {
+            // Elevators that were sent away count as already idle on the floor they were sent to
+            if (k == elevator_index) {
+                continue;
+            } else if (parking_[k] != null) {
+                min_distance = Math.min(min_distance, Math.abs(parking_[k].get_pick_up_floor() - floor));
+            } else if (elevators_.get(k).get_elevator_state() == ElevatorState.IDLE) {
+                min_distance = Math.min(min_distance, Math.abs(elevators_.get(k).get_current_floor() - floor));
+            }
+        }
+
+        return min_distance;
+    }
+
+    //! Publish a snapshot of every elevator for monitoring threads
+    private void publish_snapshot() {
+        ElevatorSnapshot[] elevators = new ElevatorSnapshot[elevators_.size()];
+        for (int k = 0; k < elevators.length; k++) {
+            elevators[k] = elevators_.get(k).get_snapshot();
         }
+
+        // The constructor publishes the first snapshot, so this must not call methods a subclass could override
+        snapshot_ = new FleetSnapshot(time_, elevators, pending_ == null ? 0 : pending_.size());
+    }
+
+    //! Log the floor of every elevator
+    private void log_floors() {
+        int[] floors = new int[elevators_.size()];
+        for (int k = 0; k < floors.length; k++) {
+            floors[k] = elevators_.get(k).get_current_floor();
+        }
+        request_log_.log_floors(floors);
+    }
+
+    //! Move each pending pick up to the elevator that would finish it soonest, if that beats its owner by the threshold
+    private void reassign_pending() {
+        ArrayList<StopRequest> completed = new ArrayList<StopRequest>();
+        for (PendingPickUp pick_up : pending_.values()) {
+            StopRequest stop = pick_up.stop;
+
+            // Let recently moved pick ups settle, never pull a pick up away from a car already at its floor, and leave
+            // escalated pick ups with the car driving to them
+            boolean settling = pick_up.assigned_time > pick_up.added_time && time_ - pick_up.assigned_time < reassign_cooldown_;
+            if (settling || pick_up.owner.get_current_floor() == stop.get_pick_up_floor() || pick_up.escalated) {
+                continue;
+            }
+
+            // Find the elevator that would finish the pick up soonest
+            int owner_time = pick_up.owner.estimate_time_to_destination(stop);
+            Elevator best_elevator = null;
+            int min_time = owner_time - reassign_threshold_ + 1;
+            for (Elevator elevator : elevators_) {
+                if (elevator == pick_up.owner || !elevator.get_profile().serves_stop(stop)) {
+                    continue;
+                }
+
+                int estimated_time = elevator.estimate_time_to_destination(stop);
+                if (estimated_time < min_time) {
+                    best_elevator = elevator;
+                    min_time = estimated_time;
+                }
+            }
+
+            // Move the pick up
+            if (best_elevator != null && pick_up.owner.remove_stop(stop)) {
+                cancel_parking(elevators_.indexOf(best_elevator));
+                best_elevator.add_stop(stop);
+                pick_up.owner = best_elevator;
+                pick_up.assigned_time = time_;
+                num_reassignments_ += 1;
+
+                // A pick up handed to a car sitting on its floor is served straight away
+                if (!best_elevator.has_stop(stop)) {
+                    completed.add(stop);
+                }
+            }
+        }
+
+        for (StopRequest stop : completed) {
+            complete_pick_up(stop);
+        }
+    }
+
+    //! Records the elevator that currently owns a pick up that hasn't been reached yet
+    private static class PendingPickUp {
+
+        PendingPickUp(long id, StopRequest stop, DirectionRequest direction, Elevator owner, long assigned_time) {
+            this.id = id;
+            this.stop = stop;
+            this.direction = direction;
+            this.owner = owner;
+            this.assigned_time = assigned_time;
+            this.added_time = assigned_time;
+            this.escalated = false;
+        }
+        public long id;                     //!< Id of the request, as written to the request log
+        public StopRequest stop;            //!< The stop request waiting to be picked up
+        public DirectionRequest direction;  //!< Hall button the pick up answers, or null if it has no single direction
+        public Elevator owner;              //!< Elevator that the pick up is currently assigned to
+        public long assigned_time;          //!< Time step at which the pick up was last assigned
+        public long added_time;             //!< Time step at which the request was added
+        public boolean escalated;           //!< Whether the pick up was escalated to preempt its elevator's sweep
     }
 
     //--------------------------------------
     // Class Attributes
     //--------------------------------------
 
+    private static final int WAIT_HISTOGRAM_SIZE = 256;    //!< Initial number of waits counted by each histogram [time steps]
+
     private int num_floors_;                    //!< Number of floors in the building
+    private long time_;                         //!< Time, stored as integer number of "time units"
     private ArrayList<Elevator> elevators_;     //!< Elevators contained within the builidng
+    private int[] shaft_of_;                    //!< Index of the bottom car of each elevator's shared shaft, or -1 if it has its own
+    private int num_shafts_;                    //!< Number of shafts in the building
+    private IdentityHashMap<StopRequest, PendingPickUp> pending_;   //!< Pick ups not yet reached, and the elevator that owns each, or null while hibernating
+    private PendingPickUp[][] hall_calls_;      //!< Active hall call for each floor and direction, indexed by [floor][direction], or null while hibernating
+    private int num_merged_calls_;              //!< Number of repeated hall button presses merged into an active hall call
+    private long[] num_picked_up_;              //!< Number of requests picked up, indexed by priority class
+    private long[] total_wait_;                 //!< Total wait for a pick up, indexed by priority class [time steps]
+    private long[] max_wait_;                   //!< Longest wait for a pick up, indexed by priority class [time steps]
+    private long[][] wait_counts_;              //!< Number of pick ups with each wait, indexed by [priority class][wait], or null for a class with no pick ups
+    private RequestLog request_log_;            //!< Write-ahead log of requests, or null if requests aren't logged
+    private FleetMirror fleet_mirror_;          //!< Shared memory mirror of the elevators, or null if they aren't mirrored
+    private long next_request_id_;              //!< Id given to the next request
+    private DispatchMode dispatch_mode_;        //!< How the elevator for a new request is chosen
+    private volatile FleetSnapshot snapshot_;   //!< Latest snapshot of every elevator, for monitoring threads
+    private int reassign_period_;               //!< Number of time steps between reassignment passes, 0 if disabled
+    private int reassign_threshold_;            //!< Minimum improvement in estimated time required to move a pick up
+    private int reassign_cooldown_;             //!< Number of time steps a moved pick up must wait before moving again
+    private int num_reassignments_;             //!< Number of times a pending pick up has been moved
+    private long time_to_live_;                 //!< Number of time steps a pick up may wait before it expires, 0 if disabled
+    private ArrayDeque<PendingPickUp> expiry_queue_;    //!< Pick ups given a time to live, in the order they were added, or null while hibernating
+    private long num_cancelled_;                //!< Number of pick ups cancelled
+    private long num_expired_;                  //!< Number of pick ups that expired
+    private int min_spacing_;                   //!< Number of floors elevators should keep between them, 0 if spacing control is disabled
+    private int bunching_penalty_;              //!< Time steps added to a bunched elevator's estimate for calls ahead of it
+    private boolean[] bunched_;                 //!< Whether each elevator was bunched behind another at the end of the last time step
+    private StopRequest[] parking_;             //!< Stop each elevator was last sent to while idle, or null once it is given a request
+    private long num_bunched_;                  //!< Number of time steps elevators spent bunched behind another elevator
+    private long num_parked_;                   //!< Number of times an idle elevator was sent away from the fleet
+    private long wait_deadline_;                //!< Number of time steps a pick up should wait at most, 0 if there is no deadline
+    private ArrayDeque<PendingPickUp> deadline_queue_;  //!< Pick ups given a deadline and not yet escalated, in the order they were added, or null while hibernating
+    private long num_escalated_;                //!< Number of pick ups escalated to preempt their elevator's sweep
+    private long num_deadline_misses_;          //!< Number of pick ups reached after the wait deadline
+    private int hibernate_after_;               //!< Number of time steps at rest before the controller hibernates, 0 if it only hibernates when asked
+    private int num_idle_steps_;                //!< Number of time steps the controller has been at rest
+    private long num_hibernations_;             //!< Number of times the controller has gone into hibernation
 }
@@ -0,0 +1,312 @@
+/*!
+ * \file ElevatorNode.java
+ * \brief Defines a process that runs a share of a building's elevators for a DistributedElevatorController
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+// Elevator System imports
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorProfile;
+import ElevatorSystem.FrameChannel;
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Runs a share of a building's elevators, answering one tick frame from the coordinator at a time
+ *
+ * \note Every frame from the coordinator starts with the calls this node has won since the last frame, which are added
+ * straight away. A bid frame then carries the open calls, and the node replies with the estimate of every local elevator
+ * for each call, both to its pick up and to its destination, along with the dwell time the call would add to that
+ * elevator's route. A tick frame steps the elevators,
+ * and the node replies with the calls it picked up and the floor and state of each elevator
+ */
+public class ElevatorNode implements Runnable {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct an ElevatorNode, listening on the loopback interface
+     *
+     * \param port Port to listen on, or 0 to pick any free port
+     * \param num_floors Number of floors in the building
+     * \param profiles Performance profile of each elevator run by this node
+     */
+    public ElevatorNode(int port, int num_floors, List<ElevatorProfile> profiles) throws IOException, IllegalArgumentException {
+        // Error Checking
+        if (profiles.size() < 1) {
+            throw new IllegalArgumentException("ElevatorNode() - at least one elevator profile must be provided.");
+        }
+
+        // Set values
+        elevators_ = new ArrayList<Elevator>();
+        for (int k = 0; k < profiles.size(); k++) {
+            elevators_.add(new Elevator("Elevator " + Integer.toString(k + 1), num_floors, profiles.get(k)));
+        }
+        calls_ = new IdentityHashMap<StopRequest, Long>();
+        served_ = new ArrayList<Long>();
+
+        // Start listening
+        selector_ = Selector.open();
+        server_ = ServerSocketChannel.open();
+        server_.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server_.configureBlocking(false);
+        server_.register(selector_, SelectionKey.OP_ACCEPT);
+        running_ = true;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the port the node is listening on
+     *
+     * \return The port the node is listening on
+     */
+    public int get_port() {
+        return server_.socket().getLocalPort();
+    }
+
+    /*!
+     * \brief Return the number of elevators run by this node
+     *
+     * \return The number of elevators run by this node
+     */
+    public int get_num_elevators() {
+        return elevators_.size();
+    }
+
+    //! Serve the coordinator until it disconnects or close() is called
+    @Override
+    public void run() {
+        try {
+            while (running_) {
+                selector_.select();
+
+                for (SelectionKey key : selector_.selectedKeys()) {
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable() && !read_frames((FrameChannel) key.attachment())) {
+                        running_ = false;
+                    } else if (key.isValid() && key.isWritable() && ((FrameChannel) key.attachment()).flush()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                }
+                selector_.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            System.err.println("ElevatorNode.run() - " + e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    //! Stop serving, which makes run() return
+    public void close() {
+        running_ = false;
+        selector_.wakeup();
+    }
+
+    /*!
+     * \brief Run a node in its own process
+     *
+     * \param args The port, the number of floors, and the number of elevators to run
+     */
+    public static void main(String[] args) throws Exception {
+        // Error Checking
+        if (args.length != 3) {
+            throw new IllegalArgumentException("ElevatorNode.main() - usage: ElevatorNode <port> <num_floors> <num_elevators>");
+        }
+
+        ArrayList<ElevatorProfile> profiles = new ArrayList<ElevatorProfile>();
+        for (int k = 0; k < Integer.parseInt(args[2]); k++) {
+            profiles.add(new ElevatorProfile());
+        }
+
+        ElevatorNode node = new ElevatorNode(Integer.parseInt(args[0]), Integer.parseInt(args[1]), profiles);
+        System.out.println("ElevatorNode listening on port " + Integer.toString(node.get_port()));
+        node.run();
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    //! Accept the coordinator's connection
+    private void accept() throws IOException {
+        SocketChannel channel = server_.accept();
+        if (channel == null) {
+            return;
+        }
+
+        channel.socket().setTcpNoDelay(true);
+        FrameChannel frame_channel = new FrameChannel(channel);
+        channel.register(selector_, SelectionKey.OP_READ, frame_channel);
+    }
+
+    /*!
+     * \brief Read and answer every complete tick frame that has arrived from the coordinator
+     *
+     * \param channel Connection to the coordinator
+     *
+     * \return false if the coordinator disconnected, true otherwise
+     */
+    private boolean read_frames(FrameChannel channel) throws IOException {
+        if (!channel.read()) {
+            return false;
+        }
+
+        ByteBuffer frame;
+        while ((frame = channel.next_frame()) != null) {
+            long tick = frame.getLong();
+            int kind = frame.getInt();
+            add_assignments(frame);
+            if (kind == BID_FRAME) {
+                process_bids(tick, frame, channel);
+            } else {
+                process_tick(tick, channel);
+            }
+        }
+
+        // Wait for the socket to drain if the reply didn't fit
+        if (!channel.flush()) {
+            channel.get_channel().keyFor(selector_).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        return true;
+    }
+
+    /*!
+     * \brief Add the calls this node won, which start every frame from the coordinator
+     *
+     * \param frame Body of the frame, after its header
+     */
+    private void add_assignments(ByteBuffer frame) {
+        int num_assignments = frame.getInt();
+        for (int k = 0; k < num_assignments; k++) {
+            long call_id = frame.getLong();
+            Elevator elevator = elevators_.get(frame.getInt());
+            StopRequest stop = StopRequest.read_from(frame);
+            elevator.add_stop(stop);
+
+            // Track the call until it is picked up, unless the elevator was already waiting on that floor
+            if (elevator.has_stop(stop)) {
+                calls_.put(stop, call_id);
+            } else {
+                served_.add(call_id);
+            }
+        }
+    }
+
+    /*!
+     * \brief Answer one bid frame from the coordinator, queueing the estimate of every local elevator for each open call
+     * along with the time to its pick up and the dwell time the call would add to its route
+     *
+     * \param tick The tick the frame belongs to
+     * \param frame Body of the bid frame, after the won calls
+     * \param channel Connection to the coordinator
+     */
+    private void process_bids(long tick, ByteBuffer frame, FrameChannel channel) {
+        int num_calls = frame.getInt();
+        ByteBuffer reply = channel.begin_frame(Long.BYTES + 2 * Integer.BYTES + num_calls * (Long.BYTES + elevators_.size() * 3 * Integer.BYTES));
+        reply.putLong(tick);
+
+        // Bid every local elevator for each open call, or -1 for an elevator that doesn't serve it, followed by the time to
+        // the pick up and the delay winning the call would cause to the calls picked up after it
+        reply.putInt(elevators_.size());
+        reply.putInt(num_calls);
+        for (int k = 0; k < num_calls; k++) {
+            long call_id = frame.getLong();
+            StopRequest stop = StopRequest.read_from(frame);
+
+            reply.putLong(call_id);
+            for (Elevator elevator : elevators_) {
+                boolean serves_stop = elevator.get_profile().serves_stop(stop);
+                reply.putInt(serves_stop ? elevator.estimate_time_to_destination(stop) : -1);
+                reply.putInt(serves_stop ? elevator.estimate_time_to_stop(stop) : -1);
+                reply.putInt(serves_stop ? elevator.estimate_added_dwell_time(stop) : 0);
+            }
+        }
+        channel.end_frame();
+    }
+
+    /*!
+     * \brief Step the elevators for one tick frame from the coordinator and queue the reply
+     *
+     * \param tick The tick the frame belongs to
+     * \param channel Connection to the coordinator
+     */
+    private void process_tick(long tick, FrameChannel channel) {
+        // Begin the reply, which holds the picked up calls and elevator status
+        ByteBuffer reply = channel.begin_frame(Long.BYTES + 2 * Integer.BYTES + (calls_.size() + served_.size()) * Long.BYTES
+                + elevators_.size() * 2 * Integer.BYTES);
+        reply.putLong(tick);
+
+        // Step the elevators, noting the calls they picked up
+        for (Elevator elevator : elevators_) {
+            elevator.step();
+            for (StopRequest stop : elevator.get_served_stops()) {
+                Long call_id = calls_.remove(stop);
+                if (call_id != null) {
+                    served_.add(call_id);
+                }
+            }
+        }
+
+        reply.putInt(served_.size());
+        for (long call_id : served_) {
+            reply.putLong(call_id);
+        }
+        served_.clear();
+
+        // Report the floor and state of each elevator
+        reply.putInt(elevators_.size());
+        for (Elevator elevator : elevators_) {
+            reply.putInt(elevator.get_current_floor());
+            reply.putInt(elevator.get_elevator_state().ordinal());
+        }
+        channel.end_frame();
+    }
+
+    //! Close the listening socket, the coordinator connection and the selector
+    private void shutdown() {
+        try {
+            for (SelectionKey key : selector_.keys()) {
+                key.channel().close();
+            }
+            selector_.close();
+        } catch (IOException e) {
+            System.err.println("ElevatorNode.shutdown() - " + e.getMessage());
+        }
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    static final int BID_FRAME = 0;     //!< Kind of frame asking for bids on the open calls
+    static final int TICK_FRAME = 1;    //!< Kind of frame stepping the elevators
+
+    private ArrayList<Elevator> elevators_;             //!< Elevators run by this node
+    private IdentityHashMap<StopRequest, Long> calls_;  //!< Calls that haven't been picked up yet, and their call ids
+    private ArrayList<Long> served_;                    //!< Calls picked up since the last reply
+    private Selector selector_;                         //!< Selector watching the listening socket and the coordinator
+    private ServerSocketChannel server_;                //!< Listening socket
+    private volatile boolean running_;                  //!< Set to false to make run() return
+}
@@ -0,0 +1,255 @@
+/*!
+ * \file ElevatorProfile.java
+ * \brief Defines the performance profile of a single elevator car
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+//! Defines the performance profile of a single elevator car, allowing a building to mix car generations and express cars
+public class ElevatorProfile {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct the standard profile, which moves one floor per time step, stays at a stop for two time steps and
+     * serves every floor in the building
+     */
+    public ElevatorProfile() {
+        this(1, 2);
+    }
+
+    /*!
+     * \brief Construct a profile that serves every floor in the building
+     *
+     * \param move_time_unit Number of time steps it takes the car to move one floor
+     * \param drop_off_time_unit Number of time steps the car stays at a stop
+     */
+    public ElevatorProfile(int move_time_unit, int drop_off_time_unit) throws IllegalArgumentException {
+        this(move_time_unit, drop_off_time_unit, null);
+    }
+
+    /*!
+     * \brief Construct a profile for an express car, which only stops at the given floors and skips all others
+     *
+     * \param move_time_unit Number of time steps it takes the car to move one floor
+     * \param drop_off_time_unit Number of time steps the car stays at a stop
+     * \param served_floors Floors that the car stops at, or null if the car serves every floor
+     */
+    public ElevatorProfile(int move_time_unit, int drop_off_time_unit, Set<Integer> served_floors) throws IllegalArgumentException {
+        this(move_time_unit, drop_off_time_unit, served_floors, 1);
+    }
+
+    /*!
+     * \brief Construct a profile for a multi-deck car, such as a double-deck car serving two adjacent floors per stop
+     *
+     * \note A car with n decks only stops at landings n floors apart, starting from the first floor, so a double-deck car
+     * stops with its lower deck on floors 1, 3, 5, and so on. Passengers are assumed to board the deck that serves their
+     * drop off floor, as they would from a two level lobby
+     *
+     * \param move_time_unit Number of time steps it takes the car to move one floor
+     * \param drop_off_time_unit Number of time steps the car stays at a stop
+     * \param served_floors Floors that the car stops at, or null if the car serves every floor
+     * \param num_decks Number of decks stacked in the car
+     */
+    public ElevatorProfile(int move_time_unit, int drop_off_time_unit, Set<Integer> served_floors, int num_decks) throws IllegalArgumentException {
+        this(move_time_unit, drop_off_time_unit, served_floors, num_decks, 0.0, drop_off_time_unit);
+    }
+
+    /*!
+     * \brief Construct a profile whose dwell time at each stop depends on the number of passengers boarding and alighting
+     *
+     * \note The doors stay open for dwell_time_per_passenger time steps per passenger, rounded up, but never less than
+     * drop_off_time_unit or more than max_drop_off_time_unit time steps
+     *
+     * \param move_time_unit Number of time steps it takes the car to move one floor
+     * \param drop_off_time_unit Least number of time steps the car stays at a stop
+     * \param served_floors Floors that the car stops at, or null if the car serves every floor
+     * \param num_decks Number of decks stacked in the car
+     * \param dwell_time_per_passenger Number of time steps each passenger boarding or alighting holds the doors open
+     * \param max_drop_off_time_unit Most number of time steps the car stays at a stop
+     */
+    public ElevatorProfile(int move_time_unit, int drop_off_time_unit, Set<Integer> served_floors, int num_decks,
+                           double dwell_time_per_passenger, int max_drop_off_time_unit) throws IllegalArgumentException {
+        // Error Checking
+        if (move_time_unit < 1) {
+            throw new IllegalArgumentException("ElevatorProfile() - move_time_unit value must be greater than 0.");
+        }
+        if (drop_off_time_unit < 1) {
+            throw new IllegalArgumentException("ElevatorProfile() - drop_off_time_unit value must be greater than 0.");
+        }
+        if (served_floors != null && served_floors.size() < 2) {
+            throw new IllegalArgumentException("ElevatorProfile() - served_floors must contain at least 2 floors.");
+        }
+        if (num_decks < 1) {
+            throw new IllegalArgumentException("ElevatorProfile() - num_decks value must be greater than 0.");
+        }
+        if (!(dwell_time_per_passenger >= 0.0) || Double.isInfinite(dwell_time_per_passenger)) {
+            throw new IllegalArgumentException("ElevatorProfile() - dwell_time_per_passenger value must be a finite number of at least 0.");
+        }
+        if (max_drop_off_time_unit < drop_off_time_unit) {
+            throw new IllegalArgumentException("ElevatorProfile() - max_drop_off_time_unit value must be at least drop_off_time_unit.");
+        }
+
+        // Set values
+        move_time_unit_ = move_time_unit;
+        drop_off_time_unit_ = drop_off_time_unit;
+        TreeSet<Integer> sorted_floors = served_floors == null ? null : new TreeSet<Integer>(served_floors);
+        served_floors_ = sorted_floors == null ? null : Collections.unmodifiableSet(sorted_floors);
+        lowest_served_floor_ = sorted_floors == null ? 0 : sorted_floors.first();
+        highest_served_floor_ = sorted_floors == null ? 0 : sorted_floors.last();
+        num_decks_ = num_decks;
+        dwell_time_per_passenger_ = dwell_time_per_passenger;
+        max_drop_off_time_unit_ = max_drop_off_time_unit;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the number of time steps it takes the car to move one floor
+     *
+     * \return The number of time steps it takes the car to move one floor
+     */
+    public int get_move_time_unit() {
+        return move_time_unit_;
+    }
+
+    /*!
+     * \brief Return the least number of time steps the car stays at a stop
+     *
+     * \return The least number of time steps the car stays at a stop
+     */
+    public int get_drop_off_time_unit() {
+        return drop_off_time_unit_;
+    }
+
+    /*!
+     * \brief Return the most number of time steps the car stays at a stop
+     *
+     * \return The most number of time steps the car stays at a stop
+     */
+    public int get_max_drop_off_time_unit() {
+        return max_drop_off_time_unit_;
+    }
+
+    /*!
+     * \brief Return the number of time steps each passenger boarding or alighting holds the doors open
+     *
+     * \return The number of time steps each passenger boarding or alighting holds the doors open
+     */
+    public double get_dwell_time_per_passenger() {
+        return dwell_time_per_passenger_;
+    }
+
+    /*!
+     * \brief Return the number of time steps the car stays at a stop where passengers board or alight
+     *
+     * \param num_passengers Number of passengers boarding and alighting at the stop
+     *
+     * \return The number of time steps the car stays at the stop
+     */
+    public int get_dwell_time(int num_passengers) {
+        int dwell_time = (int) Math.ceil(dwell_time_per_passenger_ * num_passengers);
+        return Math.min(Math.max(dwell_time, drop_off_time_unit_), max_drop_off_time_unit_);
+    }
+
+    /*!
+     * \brief Return the floors the car stops at
+     *
+     * \return The floors the car stops at, or null if the car serves every floor
+     */
+    public Set<Integer> get_served_floors() {
+        return served_floors_;
+    }
+
+    /*!
+     * \brief Return the number of decks stacked in the car
+     *
+     * \return The number of decks stacked in the car
+     */
+    public int get_num_decks() {
+        return num_decks_;
+    }
+
+    /*!
+     * \brief Return the lowest floor the car can reach, which is the lowest floor it serves
+     *
+     * \return The lowest floor the car can reach
+     */
+    public int get_lowest_floor() {
+        return served_floors_ == null ? 1 : lowest_served_floor_;
+    }
+
+    /*!
+     * \brief Return the highest floor the car can reach, which is the highest floor it serves
+     *
+     * \param num_floors Number of floors in the building
+     *
+     * \return The highest floor the car can reach
+     */
+    public int get_highest_floor(int num_floors) {
+        return served_floors_ == null ? num_floors : highest_served_floor_;
+    }
+
+    /*!
+     * \brief Return the landing the car stops at to serve a floor, which is the floor its lowest deck is on
+     *
+     * \param floor Floor being served
+     *
+     * \return The landing the car stops at to serve the floor
+     */
+    public int landing_floor(int floor) {
+        return floor - (floor - 1) % num_decks_;
+    }
+
+    /*!
+     * \brief Returns true if the car can stop at the given floor, false otherwise
+     *
+     * \param floor Floor being checked
+     *
+     * \return true if the car can stop at the given floor, false otherwise
+     */
+    public boolean serves_floor(int floor) {
+        return served_floors_ == null || served_floors_.contains(floor);
+    }
+
+    /*!
+     * \brief Returns true if the car can serve the pick up floor and every drop off floor of the stop request
+     *
+     * \param stop The stop request being evaluated
+     *
+     * \return true if the car can serve the pick up floor and every drop off floor of the stop request
+     */
+    public boolean serves_stop(StopRequest stop) {
+        if (served_floors_ == null) {
+            return true;
+        }
+
+        return served_floors_.contains(stop.get_pick_up_floor()) && served_floors_.containsAll(stop.get_drop_off_floors());
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    public static final ElevatorProfile STANDARD = new ElevatorProfile();  //!< The standard profile, shared by every car that uses it as profiles can't change
+
+    private final int move_time_unit_;              //!< Number of time steps it takes the car to move one floor
+    private final int drop_off_time_unit_;          //!< Least number of time steps the car stays at a stop
+    private final Set<Integer> served_floors_;      //!< Floors the car stops at, or null if the car serves every floor
+    private final int lowest_served_floor_;         //!< Lowest floor the car stops at, if it doesn't serve every floor
+    private final int highest_served_floor_;        //!< Highest floor the car stops at, if it doesn't serve every floor
+    private final int num_decks_;                   //!< Number of decks stacked in the car
+    private final double dwell_time_per_passenger_; //!< Number of time steps each passenger boarding or alighting holds the doors open
+    private final int max_drop_off_time_unit_;      //!< Most number of time steps the car stays at a stop
+}
@@ -0,0 +1,116 @@
+/*!
+ * \file ElevatorSnapshot.java
+ * \brief Defines an immutable snapshot of the state of one elevator
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Elevator System imports
+import ElevatorSystem.ElevatorState;
+
+/*!
+ * \brief Immutable snapshot of the floor, state and load of one elevator, taken between time steps
+ *
+ * \note Snapshots are published by the thread stepping the elevator and can be read from any thread, so a monitor always
+ * sees a floor, state and load that belong together
+ */
+public final class ElevatorSnapshot {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct an ElevatorSnapshot
+     *
+     * \param name Name of the elevator
+     * \param floor Floor the elevator is on
+     * \param state State of the elevator
+     * \param load Number of stops the elevator has to serve
+     */
+    public ElevatorSnapshot(String name, int floor, ElevatorState state, int load) {
+        this(name, 0, floor, state, load);
+    }
+
+    /*!
+     * \brief Construct an ElevatorSnapshot for an elevator that may be named after its number
+     *
+     * \param name Name of the elevator, or null to name it after its number
+     * \param number Number of the elevator within its building, used when there is no name
+     * \param floor Floor the elevator is on
+     * \param state State of the elevator
+     * \param load Number of stops the elevator has to serve
+     */
+    ElevatorSnapshot(String name, int number, int floor, ElevatorState state, int load) {
+        name_ = name;
+        number_ = number;
+        floor_ = floor;
+        state_ = state;
+        load_ = load;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the name of the elevator
+     *
+     * \return The name of the elevator
+     */
+    public String get_name() {
+        return name_ != null ? name_ : "Elevator " + Integer.toString(number_);
+    }
+
+    /*!
+     * \brief Return the floor the elevator was on
+     *
+     * \return The floor the elevator was on
+     */
+    public int get_floor() {
+        return floor_;
+    }
+
+    /*!
+     * \brief Return the state of the elevator
+     *
+     * \return The state of the elevator
+     */
+    public ElevatorState get_state() {
+        return state_;
+    }
+
+    /*!
+     * \brief Return the number of stops the elevator had to serve
+     *
+     * \return The number of stops the elevator had to serve
+     */
+    public int get_load() {
+        return load_;
+    }
+
+    /*!
+     * \brief Returns true if the snapshot has the given floor, state and load, false otherwise
+     *
+     * \param floor Floor being compared
+     * \param state State being compared
+     * \param load Load being compared
+     *
+     * \return true if the snapshot has the given floor, state and load, false otherwise
+     */
+    boolean matches(int floor, ElevatorState state, int load) {
+        return floor_ == floor && state_ == state && load_ == load;
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private final String name_;             //!< Name of the elevator, or null to name it after its number
+    private final int number_;              //!< Number of the elevator within its building, used when there is no name
+    private final int floor_;               //!< Floor the elevator was on
+    private final ElevatorState state_;     //!< State of the elevator
+    private final int load_;                //!< Number of stops the elevator had to serve
+}
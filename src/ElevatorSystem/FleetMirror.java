@@ -0,0 +1,292 @@
+/*!
+ * \file FleetMirror.java
+ * \brief Defines a memory mapped mirror of the state of every elevator, readable by other processes
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Elevator System imports
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorState;
+
+/*!
+ * \brief Mirrors the floor, state, load and time step of every elevator into a memory mapped file, so that monitoring
+ * processes can map the same file and read the live state of the fleet without copies or calls into this process
+ *
+ * \note The file is a header followed by a fixed array of one record per elevator. The header holds a sequence word that
+ * the writer makes odd while it updates the records and even once it is done, so a reader that sees the same even
+ * sequence before and after reading the records knows it read a consistent snapshot of the fleet. There must only be one
+ * writer, and it only ever waits for the operating system to write the pages back
+ */
+public class FleetMirror implements AutoCloseable {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Create a mirror file for a fleet, replacing any file that already exists at the path
+     *
+     * \param path Path of the mirror file
+     * \param num_elevators Number of elevators in the fleet
+     */
+    public FleetMirror(Path path, int num_elevators) throws IOException, IllegalArgumentException {
+        // Error Checking
+        if (num_elevators < 1) {
+            throw new IllegalArgumentException("FleetMirror() - num_elevators value must be greater than 0.");
+        }
+
+        // Map the file, and write the header
+        arena_ = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            segment_ = channel.map(FileChannel.MapMode.READ_WRITE, 0, file_size(num_elevators), arena_);
+        } catch (IOException e) {
+            arena_.close();
+            throw e;
+        }
+        num_elevators_ = num_elevators;
+        sequence_ = 0;
+        segment_.set(ValueLayout.JAVA_INT, MAGIC_OFFSET, MAGIC);
+        segment_.set(ValueLayout.JAVA_INT, NUM_ELEVATORS_OFFSET, num_elevators);
+        segment_.set(ValueLayout.JAVA_LONG, SEQUENCE_OFFSET, sequence_);
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the number of elevators in the mirror
+     *
+     * \return The number of elevators in the mirror
+     */
+    public int get_num_elevators() {
+        return num_elevators_;
+    }
+
+    /*!
+     * \brief Write the state of every elevator into the mirror as one consistent snapshot
+     *
+     * \param tick The current time step
+     * \param elevators The elevators, in the order of the records
+     */
+    public void publish(long tick, List<Elevator> elevators) throws IllegalArgumentException {
+        // Error Checking
+        if (elevators.size() != num_elevators_) {
+            throw new IllegalArgumentException("FleetMirror.publish() - expected " + Integer.toString(num_elevators_) + " elevators.");
+        }
+
+        // Mark the snapshot as being written before any record changes
+        segment_.set(ValueLayout.JAVA_LONG, SEQUENCE_OFFSET, ++sequence_);
+        VarHandle.storeStoreFence();
+
+        for (int k = 0; k < num_elevators_; k++) {
+            Elevator elevator = elevators.get(k);
+            long offset = record_offset(k);
+            segment_.set(ValueLayout.JAVA_LONG, offset + TICK_OFFSET, tick);
+            segment_.set(ValueLayout.JAVA_INT, offset + FLOOR_OFFSET, elevator.get_current_floor());
+            segment_.set(ValueLayout.JAVA_INT, offset + STATE_OFFSET, elevator.get_elevator_state().ordinal());
+            segment_.set(ValueLayout.JAVA_INT, offset + LOAD_OFFSET, elevator.get_load());
+        }
+
+        // Mark the snapshot as complete once every record has been written
+        VarHandle.releaseFence();
+        segment_.set(ValueLayout.JAVA_LONG, SEQUENCE_OFFSET, ++sequence_);
+    }
+
+    //! Unmap the mirror file
+    @Override
+    public void close() {
+        arena_.close();
+    }
+
+    /*!
+     * \brief Print the state of the fleet in a mirror file, as a monitoring process would read it
+     *
+     * \param args The path of the mirror file
+     */
+    public static void main(String[] args) throws Exception {
+        // Error Checking
+        if (args.length != 1) {
+            throw new IllegalArgumentException("FleetMirror.main() - usage: FleetMirror <path>");
+        }
+
+        try (Reader reader = new Reader(Paths.get(args[0]))) {
+            int[] floors = new int[reader.get_num_elevators()];
+            ElevatorState[] states = new ElevatorState[reader.get_num_elevators()];
+            int[] loads = new int[reader.get_num_elevators()];
+            long tick = reader.read(floors, states, loads);
+
+            System.out.println("Time step: " + Long.toString(tick));
+            for (int k = 0; k < floors.length; k++) {
+                System.out.println("Elevator " + Integer.toString(k + 1) + " - Floor: " + Integer.toString(floors[k]) + ", State: " + states[k].toString() + ", Load: " + Integer.toString(loads[k]));
+            }
+        }
+    }
+
+    //! Maps a mirror file read only, and reads consistent snapshots of the fleet from it
+    public static class Reader implements AutoCloseable {
+
+        /*!
+         * \brief Map a mirror file written by a FleetMirror, which may belong to another process
+         *
+         * \param path Path of the mirror file
+         */
+        public Reader(Path path) throws IOException, IllegalArgumentException {
+            arena_ = Arena.ofShared();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // Error Checking
+                if (channel.size() < HEADER.byteSize()) {
+                    throw new IllegalArgumentException("FleetMirror.Reader() - " + path.toString() + " is not a fleet mirror.");
+                }
+
+                segment_ = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena_);
+                num_elevators_ = segment_.get(ValueLayout.JAVA_INT, NUM_ELEVATORS_OFFSET);
+                if (segment_.get(ValueLayout.JAVA_INT, MAGIC_OFFSET) != MAGIC || num_elevators_ < 1 || channel.size() < file_size(num_elevators_)) {
+                    throw new IllegalArgumentException("FleetMirror.Reader() - " + path.toString() + " is not a fleet mirror.");
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                arena_.close();
+                throw e;
+            }
+        }
+
+        /*!
+         * \brief Return the number of elevators in the mirror
+         *
+         * \return The number of elevators in the mirror
+         */
+        public int get_num_elevators() {
+            return num_elevators_;
+        }
+
+        /*!
+         * \brief Read a consistent snapshot of the fleet, retrying while the writer is part way through an update
+         *
+         * \param[out] floors Floor of each elevator
+         * \param[out] states State of each elevator
+         * \param[out] loads Load of each elevator
+         *
+         * \return The time step of the snapshot
+         */
+        public long read(int[] floors, ElevatorState[] states, int[] loads) {
+            while (true) {
+                long sequence = segment_.get(ValueLayout.JAVA_LONG, SEQUENCE_OFFSET);
+                VarHandle.acquireFence();
+
+                long tick = 0;
+                for (int k = 0; k < num_elevators_; k++) {
+                    long offset = record_offset(k);
+                    tick = segment_.get(ValueLayout.JAVA_LONG, offset + TICK_OFFSET);
+                    floors[k] = segment_.get(ValueLayout.JAVA_INT, offset + FLOOR_OFFSET);
+                    states[k] = STATES[Math.floorMod(segment_.get(ValueLayout.JAVA_INT, offset + STATE_OFFSET), STATES.length)];
+                    loads[k] = segment_.get(ValueLayout.JAVA_INT, offset + LOAD_OFFSET);
+                }
+
+                // Keep the snapshot only if no update started or finished while it was read
+                VarHandle.loadLoadFence();
+                if ((sequence & 1) == 0 && segment_.get(ValueLayout.JAVA_LONG, SEQUENCE_OFFSET) == sequence) {
+                    return tick;
+                }
+                num_retries_ += 1;
+                Thread.onSpinWait();
+            }
+        }
+
+        /*!
+         * \brief Return the number of times a read was retried because the writer was updating the mirror
+         *
+         * \return The number of times a read was retried
+         */
+        public long get_num_retries() {
+            return num_retries_;
+        }
+
+        //! Unmap the mirror file
+        @Override
+        public void close() {
+            arena_.close();
+        }
+
+        private Arena arena_;               //!< Arena owning the mapping
+        private MemorySegment segment_;     //!< The mapped file
+        private int num_elevators_;         //!< Number of elevators in the mirror
+        private long num_retries_;          //!< Number of reads retried because of a concurrent update
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the size of a mirror file
+     *
+     * \param num_elevators Number of elevators in the fleet
+     *
+     * \return The size of the mirror file [bytes]
+     */
+    private static long file_size(int num_elevators) {
+        return HEADER.byteSize() + num_elevators * RECORD.byteSize();
+    }
+
+    /*!
+     * \brief Return the offset of an elevator's record in the mirror file
+     *
+     * \param elevator_index Index of the elevator
+     *
+     * \return The offset of the record [bytes]
+     */
+    private static long record_offset(int elevator_index) {
+        return HEADER.byteSize() + elevator_index * RECORD.byteSize();
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    //! Layout of the header at the start of the file
+    private static final StructLayout HEADER = MemoryLayout.structLayout(
+            ValueLayout.JAVA_INT.withName("magic"),
+            ValueLayout.JAVA_INT.withName("num_elevators"),
+            ValueLayout.JAVA_LONG.withName("sequence"));
+
+    //! Layout of each elevator's record, which follow the header
+    private static final StructLayout RECORD = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("tick"),
+            ValueLayout.JAVA_INT.withName("floor"),
+            ValueLayout.JAVA_INT.withName("state"),
+            ValueLayout.JAVA_INT.withName("load"),
+            MemoryLayout.paddingLayout(4));
+
+    private static final ElevatorState[] STATES = ElevatorState.values();   //!< Elevator states, indexed by ordinal
+    private static final int MAGIC = 0x454c5631;    //!< Marks a fleet mirror file, "ELV1"
+    private static final long MAGIC_OFFSET = HEADER.byteOffset(PathElement.groupElement("magic"));
+    private static final long NUM_ELEVATORS_OFFSET = HEADER.byteOffset(PathElement.groupElement("num_elevators"));
+    private static final long SEQUENCE_OFFSET = HEADER.byteOffset(PathElement.groupElement("sequence"));
+    private static final long TICK_OFFSET = RECORD.byteOffset(PathElement.groupElement("tick"));
+    private static final long FLOOR_OFFSET = RECORD.byteOffset(PathElement.groupElement("floor"));
+    private static final long STATE_OFFSET = RECORD.byteOffset(PathElement.groupElement("state"));
+    private static final long LOAD_OFFSET = RECORD.byteOffset(PathElement.groupElement("load"));
+
+    private Arena arena_;               //!< Arena owning the mapping
+    private MemorySegment segment_;     //!< The mapped file
+    private int num_elevators_;         //!< Number of elevators in the mirror
+    private long sequence_;             //!< Last sequence word written, which is even between updates
+}
@@ -0,0 +1,81 @@
+/*!
+ * \file FleetSnapshot.java
+ * \brief Defines an immutable snapshot of every elevator in a building at the end of a time step
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Elevator System imports
+import ElevatorSystem.ElevatorSnapshot;
+
+/*!
+ * \brief Immutable snapshot of every elevator in a building, all taken at the same point between time steps
+ *
+ * \note Published by the ElevatorController through a volatile field, so any thread can read the whole fleet without
+ * locks and without holding up the thread stepping the controller
+ */
+public final class FleetSnapshot {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a FleetSnapshot
+     *
+     * \param time The time step the snapshot was taken at
+     * \param elevators Snapshot of each elevator, in the order the elevators were created
+     * \param num_pending Number of pick ups that had not been reached
+     */
+    FleetSnapshot(long time, ElevatorSnapshot[] elevators, int num_pending) {
+        time_ = time;
+        elevators_ = Collections.unmodifiableList(Arrays.asList(elevators));
+        num_pending_ = num_pending;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the time step the snapshot was taken at
+     *
+     * \return The time step the snapshot was taken at
+     */
+    public long get_time() {
+        return time_;
+    }
+
+    /*!
+     * \brief Return the snapshot of each elevator, in the order the elevators were created
+     *
+     * \return The snapshot of each elevator
+     */
+    public List<ElevatorSnapshot> get_elevators() {
+        return elevators_;
+    }
+
+    /*!
+     * \brief Return the number of pick ups that had not been reached
+     *
+     * \return The number of pick ups that had not been reached
+     */
+    public int get_num_pending() {
+        return num_pending_;
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private final long time_;                           //!< The time step the snapshot was taken at
+    private final List<ElevatorSnapshot> elevators_;    //!< Snapshot of each elevator
+    private final int num_pending_;                     //!< Number of pick ups that had not been reached
+}
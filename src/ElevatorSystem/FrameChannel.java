@@ -0,0 +1,185 @@
+/*!
+ * \file FrameChannel.java
+ * \brief Defines a non-blocking socket channel that exchanges length prefixed frames
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/*!
+ * \brief Wraps a non-blocking SocketChannel, splitting the incoming bytes into frames and queueing outgoing frames
+ *
+ * \note Each frame is an int holding the length of the body followed by the body. The read and write buffers are reused
+ * for the life of the channel, and only grow when a frame larger than any seen before arrives or is sent
+ */
+class FrameChannel {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a FrameChannel around a connected socket, switching it to non-blocking mode
+     *
+     * \param channel Connected socket channel
+     */
+    FrameChannel(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel_ = channel;
+        read_buffer_ = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        write_buffer_ = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        write_buffer_.flip();
+        frame_length_ = -1;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the underlying socket channel
+     *
+     * \return The underlying socket channel
+     */
+    SocketChannel get_channel() {
+        return channel_;
+    }
+
+    /*!
+     * \brief Read whatever bytes are available from the socket without blocking
+     *
+     * \return false if the other end closed the connection, true otherwise
+     */
+    boolean read() throws IOException {
+        release_frame();
+
+        // Make room for more bytes if the buffer is full
+        if (!read_buffer_.hasRemaining()) {
+            read_buffer_ = grow(read_buffer_, read_buffer_.capacity() * 2);
+        }
+
+        return channel_.read(read_buffer_) >= 0;
+    }
+
+    /*!
+     * \brief Return the body of the next complete frame that has been read, if there is one
+     *
+     * \note The returned buffer is only valid until the next call to read() or next_frame()
+     *
+     * \return The body of the next frame, or null if a complete frame hasn't arrived yet
+     */
+    ByteBuffer next_frame() throws IOException {
+        release_frame();
+
+        // Check whether the next frame has fully arrived
+        int available = read_buffer_.position();
+        if (available < Integer.BYTES) {
+            return null;
+        }
+        int length = read_buffer_.getInt(0);
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("FrameChannel.next_frame() - frame length " + Integer.toString(length) + " is invalid.");
+        }
+        if (available < Integer.BYTES + length) {
+            // Make sure the whole frame will fit once it arrives
+            if (read_buffer_.capacity() < Integer.BYTES + length) {
+                read_buffer_ = grow(read_buffer_, Integer.BYTES + length);
+            }
+            return null;
+        }
+
+        // Hand out a view of the frame body, and remember to drop it on the next call
+        read_buffer_.flip();
+        ByteBuffer frame = read_buffer_.slice(Integer.BYTES, length);
+        frame_length_ = length;
+        return frame;
+    }
+
+    /*!
+     * \brief Begin a new outgoing frame, returning a buffer that the body should be written into
+     *
+     * \param max_length Upper bound on the number of bytes in the body
+     *
+     * \return Buffer that the body should be written into, before calling end_frame()
+     */
+    ByteBuffer begin_frame(int max_length) {
+        // Move any unsent bytes to the front of the buffer, growing it if the new frame won't fit
+        write_buffer_.compact();
+        if (write_buffer_.remaining() < Integer.BYTES + max_length) {
+            write_buffer_ = grow(write_buffer_, write_buffer_.position() + Integer.BYTES + max_length);
+        }
+
+        // Leave room for the length, which is filled in by end_frame()
+        frame_start_ = write_buffer_.position();
+        write_buffer_.putInt(0);
+        return write_buffer_;
+    }
+
+    //! Finish the frame started by begin_frame(), queueing it to be sent by flush()
+    void end_frame() {
+        write_buffer_.putInt(frame_start_, write_buffer_.position() - frame_start_ - Integer.BYTES);
+        write_buffer_.flip();
+    }
+
+    /*!
+     * \brief Write as many queued bytes as the socket will accept without blocking
+     *
+     * \return true if every queued byte has been written, false otherwise
+     */
+    boolean flush() throws IOException {
+        channel_.write(write_buffer_);
+        return !write_buffer_.hasRemaining();
+    }
+
+    //! Close the underlying socket
+    void close() throws IOException {
+        channel_.close();
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    //! Drop the frame last returned by next_frame(), keeping any bytes that arrived after it
+    private void release_frame() {
+        if (frame_length_ >= 0) {
+            read_buffer_.position(Integer.BYTES + frame_length_);
+            read_buffer_.compact();
+            frame_length_ = -1;
+        }
+    }
+
+    /*!
+     * \brief Copy a buffer in write mode into a larger one
+     *
+     * \param buffer Buffer being grown
+     * \param min_capacity Minimum capacity of the new buffer
+     *
+     * \return The larger buffer, positioned after the copied bytes
+     */
+    private static ByteBuffer grow(ByteBuffer buffer, int min_capacity) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(min_capacity, buffer.capacity() * 2));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;        //!< Initial size of the read and write buffers [bytes]
+    private static final int MAX_FRAME_SIZE = 64 << 20;         //!< Largest frame that will be accepted [bytes]
+
+    private SocketChannel channel_;         //!< Underlying socket channel
+    private ByteBuffer read_buffer_;        //!< Bytes read from the socket, in write mode
+    private ByteBuffer write_buffer_;       //!< Bytes waiting to be written to the socket, in read mode
+    private int frame_length_;              //!< Length of the frame last returned by next_frame(), or -1 if none
+    private int frame_start_;               //!< Position of the length of the frame being built
+}
@@ -0,0 +1,294 @@
+/*!
+ * \file PacedRunner.java
+ * \brief Defines a loop that steps an ElevatorController in real time
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Elevator System imports
+import ElevatorSystem.CatchUpPolicy;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Steps an ElevatorController once every tick period of wall clock time
+ *
+ * \note Deadlines are computed from the start time, rather than from the end of the previous time step, so that sleep
+ * error never accumulates into drift. The runner parks until shortly before each deadline and spins the rest of the way.
+ * Requests may be submitted from any thread; they are queued and handed to the controller at the start of the next time
+ * step, up to a count and time budget per time step (by default half the tick period), so a burst of requests is spread
+ * over several time steps instead of stretching one of them. The controller must only be used by the runner while it is running
+ */
+public class PacedRunner implements Runnable {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a PacedRunner
+     *
+     * \param controller The controller to step
+     * \param tick_period_ns Wall clock time between time steps [ns]
+     * \param catch_up_policy What to do with the time steps missed after a time step overruns its deadline
+     */
+    public PacedRunner(ElevatorController controller, long tick_period_ns, CatchUpPolicy catch_up_policy) throws IllegalArgumentException {
+        // Error Checking
+        if (tick_period_ns < 1) {
+            throw new IllegalArgumentException("PacedRunner() - tick_period_ns value must be greater than 0.");
+        }
+
+        // Set values
+        controller_ = controller;
+        tick_period_ns_ = tick_period_ns;
+        catch_up_policy_ = catch_up_policy;
+        submitted_ = new ConcurrentLinkedQueue<StopRequest>();
+        max_requests_per_tick_ = DEFAULT_MAX_REQUESTS_PER_TICK;
+        max_hand_off_ns_ = tick_period_ns / 2;
+        jitter_histogram_ = new long[Long.SIZE];
+        running_ = false;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Set how much of each time step may be spent handing queued requests to the controller
+     *
+     * \param max_requests_per_tick The most requests handed to the controller in a single time step
+     * \param max_hand_off_ns The longest time spent handing requests to the controller in a single time step [ns]
+     */
+    public void set_hand_off_limits(int max_requests_per_tick, long max_hand_off_ns) throws IllegalArgumentException {
+        // Error Checking
+        if (max_requests_per_tick < 1) {
+            throw new IllegalArgumentException("PacedRunner.set_hand_off_limits() - max_requests_per_tick value must be greater than 0.");
+        } else if (max_hand_off_ns < 1) {
+            throw new IllegalArgumentException("PacedRunner.set_hand_off_limits() - max_hand_off_ns value must be greater than 0.");
+        }
+
+        max_requests_per_tick_ = max_requests_per_tick;
+        max_hand_off_ns_ = max_hand_off_ns;
+    }
+
+    /*!
+     * \brief Queue a request for the controller, which is safe to call from any thread
+     *
+     * \param stop The stop request
+     */
+    public void submit(StopRequest stop) {
+        submitted_.add(stop);
+    }
+
+    //! Step the controller until close() is called
+    @Override
+    public void run() {
+        run_ticks(Long.MAX_VALUE);
+    }
+
+    /*!
+     * \brief Step the controller until the given number of tick periods have passed, or close() is called
+     *
+     * \param num_ticks Number of tick periods to run for, counting the time steps dropped by CatchUpPolicy.SKIP
+     */
+    public void run_ticks(long num_ticks) {
+        running_ = true;
+        long start_ns = System.nanoTime();
+        long tick = 0;
+
+        while (running_ && tick < num_ticks) {
+            // Wait for the deadline, which is always a whole number of periods after the start
+            long deadline_ns = start_ns + tick * tick_period_ns_;
+            long now_ns = wait_until(deadline_ns);
+
+            // Run the time step
+            hand_off_requests(now_ns);
+            controller_.step();
+            long end_ns = System.nanoTime();
+            record_tick(now_ns - deadline_ns, end_ns - deadline_ns > tick_period_ns_);
+            tick += 1;
+
+            // Drop the time steps whose deadlines have already passed, if asked to
+            long next_deadline_ns = start_ns + tick * tick_period_ns_;
+            if (catch_up_policy_ == CatchUpPolicy.SKIP && end_ns > next_deadline_ns) {
+                long num_missed = Math.min((end_ns - next_deadline_ns) / tick_period_ns_ + 1, num_ticks - tick);
+                record_skipped(num_missed);
+                tick += num_missed;
+            }
+        }
+        running_ = false;
+    }
+
+    //! Make run() or run_ticks() return after the current time step, which is safe to call from any thread
+    public void close() {
+        running_ = false;
+    }
+
+    /*!
+     * \brief Return the number of time steps run
+     *
+     * \return The number of time steps run
+     */
+    public synchronized long get_num_ticks() {
+        return num_ticks_;
+    }
+
+    /*!
+     * \brief Return the number of time steps that finished after the next deadline
+     *
+     * \return The number of time steps that finished after the next deadline
+     */
+    public synchronized long get_num_deadline_misses() {
+        return num_deadline_misses_;
+    }
+
+    /*!
+     * \brief Return the number of time steps dropped by CatchUpPolicy.SKIP
+     *
+     * \return The number of time steps dropped by CatchUpPolicy.SKIP
+     */
+    public synchronized long get_num_skipped_ticks() {
+        return num_skipped_ticks_;
+    }
+
+    /*!
+     * \brief Return the number of requests the controller rejected
+     *
+     * \return The number of requests the controller rejected
+     */
+    public synchronized long get_num_rejected() {
+        return num_rejected_;
+    }
+
+    /*!
+     * \brief Return the largest delay between a deadline and the start of its time step
+     *
+     * \return The largest delay between a deadline and the start of its time step [ns]
+     */
+    public synchronized long get_max_jitter_ns() {
+        return max_jitter_ns_;
+    }
+
+    /*!
+     * \brief Return an upper bound on the given percentile of the delay between a deadline and the start of its time step
+     *
+     * \note The delays are kept in power of two buckets, so the result is the upper edge of the bucket the percentile
+     * falls in, which is within a factor of two of the exact value
+     *
+     * \param percentile The percentile, from 0 to 100
+     *
+     * \return An upper bound on the percentile of the delay [ns]
+     */
+    public synchronized long get_jitter_percentile_ns(double percentile) throws IllegalArgumentException {
+        // Error Checking
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("PacedRunner.get_jitter_percentile_ns() - percentile value must be from 0 to 100.");
+        }
+
+        long rank = (long) Math.ceil(percentile / 100 * num_ticks_);
+        long count = 0;
+        for (int bucket = 0; bucket < jitter_histogram_.length; bucket++) {
+            count += jitter_histogram_[bucket];
+            if (count >= rank && count > 0) {
+                return Math.min(bucket == 0 ? 0 : (1L << bucket) - 1, max_jitter_ns_);
+            }
+        }
+        return 0;
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Park until shortly before the deadline, then spin until it arrives
+     *
+     * \param deadline_ns The deadline [ns]
+     *
+     * \return The time the wait ended [ns]
+     */
+    private long wait_until(long deadline_ns) {
+        long now_ns = System.nanoTime();
+        while (now_ns < deadline_ns) {
+            long remaining_ns = deadline_ns - now_ns;
+            if (remaining_ns > SPIN_NS) {
+                LockSupport.parkNanos(remaining_ns - SPIN_NS);
+            } else {
+                Thread.onSpinWait();
+            }
+            now_ns = System.nanoTime();
+        }
+        return now_ns;
+    }
+
+    /*!
+     * \brief Hand queued requests to the controller, until either per time step limit is reached
+     *
+     * \param start_ns Start of the time step [ns]
+     */
+    private void hand_off_requests(long start_ns) {
+        StopRequest stop;
+        int num_handed_off = 0;
+        while (num_handed_off < max_requests_per_tick_ && System.nanoTime() - start_ns < max_hand_off_ns_ && (stop = submitted_.poll()) != null) {
+            try {
+                controller_.add_stop(stop);
+            } catch (IllegalArgumentException e) {
+                synchronized (this) {
+                    num_rejected_ += 1;
+                }
+            }
+            num_handed_off += 1;
+        }
+    }
+
+    /*!
+     * \brief Record a finished time step
+     *
+     * \param jitter_ns Delay between the deadline and the start of the time step [ns]
+     * \param missed_deadline Whether the time step finished after the next deadline
+     */
+    private synchronized void record_tick(long jitter_ns, boolean missed_deadline) {
+        num_ticks_ += 1;
+        if (missed_deadline) {
+            num_deadline_misses_ += 1;
+        }
+        jitter_histogram_[Long.SIZE - Long.numberOfLeadingZeros(jitter_ns)] += 1;
+        max_jitter_ns_ = Math.max(max_jitter_ns_, jitter_ns);
+    }
+
+    /*!
+     * \brief Record time steps dropped by CatchUpPolicy.SKIP
+     *
+     * \param num_skipped Number of time steps dropped
+     */
+    private synchronized void record_skipped(long num_skipped) {
+        num_skipped_ticks_ += num_skipped;
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private static final int DEFAULT_MAX_REQUESTS_PER_TICK = 64;    //!< Default most requests handed off per time step
+    private static final long SPIN_NS = 50000;                      //!< Time before a deadline to stop parking and spin [ns]
+
+    private ElevatorController controller_;                         //!< The controller being stepped
+    private long tick_period_ns_;                                   //!< Wall clock time between time steps [ns]
+    private CatchUpPolicy catch_up_policy_;                         //!< What to do with the missed time steps after an overrun
+    private ConcurrentLinkedQueue<StopRequest> submitted_;          //!< Requests waiting to be handed to the controller
+    private int max_requests_per_tick_;                             //!< Most requests handed to the controller per time step
+    private long max_hand_off_ns_;                                  //!< Longest time spent handing off requests per time step [ns]
+    private long[] jitter_histogram_;                               //!< Count of jitters in each power of two bucket [ns]
+    private long num_ticks_;                                        //!< Number of time steps run
+    private long num_deadline_misses_;                              //!< Number of time steps that finished after the next deadline
+    private long num_skipped_ticks_;                                //!< Number of time steps dropped by CatchUpPolicy.SKIP
+    private long num_rejected_;                                     //!< Number of requests the controller rejected
+    private long max_jitter_ns_;                                    //!< Largest jitter seen [ns]
+    private volatile boolean running_;                              //!< Set to false to make run() return
+}
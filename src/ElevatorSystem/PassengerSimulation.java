@@ -0,0 +1,511 @@
+/*!
+ * \file PassengerSimulation.java
+ * \brief Defines a simulation of passengers as agents on virtual threads, riding the elevators of an ElevatorController
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Simulates a building full of passengers, each an agent on its own virtual thread that arrives in the lobby, calls
+ * an elevator, waits, rides to its floor, stays there a while, and calls again for its next trip
+ *
+ * \note The controller is only ever used by the thread calling run(). Agents block until something concerns them: their
+ * arrival or the end of a stay, or an elevator carrying them to their drop off floor. Each time step has two phases. First
+ * the agents whose timers expire are woken, and call for their trips. Then their requests are added to the controller in
+ * agent order, the controller steps, and the agents that reached their floors are woken to start their stays. Each phase
+ * ends at a barrier, once every woken agent has blocked again. Agents don't wake on time steps that have nothing to do
+ * with them, so the cost of a time step follows the number of events rather than the number of agents. Each agent draws
+ * from its own random number generator, split from the seed, and requests are added in agent order, so a seed always
+ * gives the same run
+ */
+public class PassengerSimulation {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a PassengerSimulation
+     *
+     * \param controller The controller whose elevators the passengers ride
+     * \param num_agents Number of passengers
+     * \param seed Seed for the random numbers
+     */
+    public PassengerSimulation(ElevatorController controller, int num_agents, long seed) throws IllegalArgumentException {
+        // Error Checking
+        if (num_agents < 1) {
+            throw new IllegalArgumentException("PassengerSimulation() - num_agents value must be greater than 0.");
+        }
+        if (controller.get_num_floors() < 2) {
+            throw new IllegalArgumentException("PassengerSimulation() - the building must have at least 2 floors.");
+        }
+
+        // Set values
+        controller_ = controller;
+        elevators_ = controller.get_elevators();
+        num_agents_ = num_agents;
+        seed_ = seed;
+        num_trips_per_agent_ = DEFAULT_NUM_TRIPS;
+        arrival_window_ = DEFAULT_ARRIVAL_WINDOW;
+        mean_stay_ = DEFAULT_MEAN_STAY;
+        outstanding_ = new AtomicInteger(0);
+        requests_ = new ConcurrentLinkedQueue<Agent>();
+        boarding_ = new IdentityHashMap<StopRequest, ArrayList<Agent>>();
+        riding_ = new ArrayList<ArrayList<Agent>>();
+        for (int k = 0; k < elevators_.size() * (controller.get_num_floors() + 1); k++) {
+            riding_.add(new ArrayList<Agent>());
+        }
+        cur_tick_ = 0;
+        stopped_ = false;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Set how the passengers behave
+     *
+     * \param num_trips_per_agent Number of trips each passenger makes, at least 2, the last of which is back to the lobby
+     * \param arrival_window Passengers arrive in the lobby at random over this many time steps
+     * \param mean_stay Mean number of time steps a passenger stays on a floor between trips
+     */
+    public void set_behaviour(int num_trips_per_agent, int arrival_window, int mean_stay) throws IllegalArgumentException {
+        // Error Checking
+        if (num_trips_per_agent < 2) {
+            throw new IllegalArgumentException("PassengerSimulation.set_behaviour() - num_trips_per_agent value must be greater than 1.");
+        } else if (arrival_window < 1) {
+            throw new IllegalArgumentException("PassengerSimulation.set_behaviour() - arrival_window value must be greater than 0.");
+        } else if (mean_stay < 1) {
+            throw new IllegalArgumentException("PassengerSimulation.set_behaviour() - mean_stay value must be greater than 0.");
+        }
+
+        num_trips_per_agent_ = num_trips_per_agent;
+        arrival_window_ = arrival_window;
+        mean_stay_ = mean_stay;
+    }
+
+    /*!
+     * \brief Run the simulation until every passenger has made all of their trips, or the time step limit is reached, at
+     * which point any passengers still travelling are stopped
+     *
+     * \param max_ticks Most number of time steps to run
+     *
+     * \return The number of time steps run
+     */
+    public long run(long max_ticks) throws InterruptedException {
+        coordinator_ = Thread.currentThread();
+        long start_ns = System.nanoTime();
+
+        // Timers are kept on a wheel with a slot for every time step a passenger can wait, so adding and expiring one is cheap
+        int max_wait = Math.max(arrival_window_, MAX_STAY_FACTOR * mean_stay_) + 1;
+        wheel_ = new ArrayList<ConcurrentLinkedQueue<Agent>>();
+        for (int k = 0; k < Integer.highestOneBit(max_wait) << 1; k++) {
+            wheel_.add(new ConcurrentLinkedQueue<Agent>());
+        }
+
+        // Start every agent, and wait for them all to set their arrival timers
+        SplittableRandom random = new SplittableRandom(seed_);
+        agents_ = new Agent[num_agents_];
+        outstanding_.set(num_agents_);
+        for (int k = 0; k < num_agents_; k++) {
+            Agent agent = new Agent(k, random.split());
+            agents_[k] = agent;
+            agent.thread = Thread.ofVirtual().name("Passenger " + Integer.toString(k + 1)).start(() -> live(agent));
+        }
+        await_agents();
+
+        ArrayList<Agent> requests = new ArrayList<Agent>();
+        ArrayList<Agent> arrived = new ArrayList<Agent>();
+        long tick = 0;
+        while (num_finished_ < num_agents_ && tick < max_ticks) {
+            tick += 1;
+            cur_tick_ = tick;
+
+            // Wake the agents whose timers expired, and let them call for their trips
+            ConcurrentLinkedQueue<Agent> slot = wheel_.get((int) (tick & (wheel_.size() - 1)));
+            if (!slot.isEmpty()) {
+                ArrayList<Agent> due = new ArrayList<Agent>(slot);
+                slot.clear();
+                wake_agents(due);
+            }
+
+            // Add the calls in agent order, so the run doesn't depend on how the agents were scheduled
+            requests.clear();
+            Agent agent;
+            while ((agent = requests_.poll()) != null) {
+                requests.add(agent);
+            }
+            requests.sort(BY_ID);
+            for (Agent caller : requests) {
+                call_elevator(caller);
+            }
+
+            // Step the building, boarding and dropping off passengers, and wake the passengers that reached their floors
+            controller_.step();
+            arrived.clear();
+            for (int k = 0; k < elevators_.size(); k++) {
+                serve_passengers(k, elevators_.get(k).get_served_stops(), arrived);
+            }
+            wake_agents(arrived);
+        }
+
+        // Stop the passengers still travelling
+        stopped_ = true;
+        for (Agent agent : agents_) {
+            agent.woken = true;
+            LockSupport.unpark(agent.thread);
+        }
+        for (Agent agent : agents_) {
+            agent.thread.join();
+        }
+        elapsed_ns_ = System.nanoTime() - start_ns;
+        num_ticks_ = tick;
+        return tick;
+    }
+
+    /*!
+     * \brief Return the number of passengers that made all of their trips
+     *
+     * \return The number of passengers that made all of their trips
+     */
+    public int get_num_finished() {
+        return num_finished_;
+    }
+
+    /*!
+     * \brief Return the number of trips completed
+     *
+     * \return The number of trips completed
+     */
+    public long get_num_trips() {
+        return num_trips_;
+    }
+
+    /*!
+     * \brief Return the mean time passengers waited to be picked up
+     *
+     * \return The mean time passengers waited to be picked up [time steps]
+     */
+    public double get_mean_wait() {
+        return num_boarded_ == 0 ? 0.0 : (double) total_wait_ / num_boarded_;
+    }
+
+    /*!
+     * \brief Return the longest time a passenger waited to be picked up
+     *
+     * \return The longest time a passenger waited to be picked up [time steps]
+     */
+    public long get_max_wait() {
+        return max_wait_;
+    }
+
+    /*!
+     * \brief Return the mean time passengers spent riding to their floors
+     *
+     * \return The mean time passengers spent riding to their floors [time steps]
+     */
+    public double get_mean_ride() {
+        return num_trips_ == 0 ? 0.0 : (double) total_ride_ / num_trips_;
+    }
+
+    /*!
+     * \brief Return the number of wall clock nanoseconds the last run took, including starting and stopping the agents
+     *
+     * \return The number of wall clock nanoseconds the last run took [ns]
+     */
+    public long get_elapsed_ns() {
+        return elapsed_ns_;
+    }
+
+    /*!
+     * \brief Return the number of time steps run per wall clock second in the last run
+     *
+     * \return The number of time steps run per wall clock second
+     */
+    public double get_ticks_per_second() {
+        return elapsed_ns_ == 0 ? 0.0 : num_ticks_ * 1e9 / elapsed_ns_;
+    }
+
+    /*!
+     * \brief Return the number of trips completed per wall clock second in the last run
+     *
+     * \return The number of trips completed per wall clock second
+     */
+    public double get_trips_per_second() {
+        return elapsed_ns_ == 0 ? 0.0 : num_trips_ * 1e9 / elapsed_ns_;
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief The life of one passenger: arrive in the lobby, make each trip with a stay in between, and leave from the lobby
+     *
+     * \param agent The passenger
+     */
+    private void live(Agent agent) {
+        try {
+            wait_until(agent, 1 + agent.random.nextInt(arrival_window_));
+            int num_floors = controller_.get_num_floors();
+            for (int trip = 0; trip < num_trips_per_agent_; trip++) {
+                // Head to a random other floor, or back to the lobby for the last trip
+                boolean last_trip = trip == num_trips_per_agent_ - 1;
+                int destination = last_trip ? 1 : 2 + agent.random.nextInt(num_floors - 1);
+                if (destination == agent.floor) {
+                    destination = destination == num_floors ? destination - 1 : destination + 1;
+                }
+                ride(agent, destination);
+
+                // Stay a while, drawn from an exponential distribution
+                if (!last_trip) {
+                    long stay = 1 + (long) (-Math.log(1.0 - agent.random.nextDouble()) * mean_stay_);
+                    wait_until(agent, cur_tick_ + Math.min(stay, MAX_STAY_FACTOR * mean_stay_));
+                }
+            }
+        } catch (SimulationStopped e) {
+            return;
+        }
+
+        release_coordinator();
+    }
+
+    /*!
+     * \brief Block an agent until a time step
+     *
+     * \param agent The passenger
+     * \param tick Time step to wake at, which is moved to the next time step if it has already passed
+     */
+    private void wait_until(Agent agent, long tick) {
+        tick = Math.max(tick, cur_tick_ + 1);
+        wheel_.get((int) (tick & (wheel_.size() - 1))).add(agent);
+        block(agent);
+    }
+
+    /*!
+     * \brief Call an elevator, and block the agent until it is dropped off
+     *
+     * \param agent The passenger
+     * \param destination Floor the passenger is heading to
+     */
+    private void ride(Agent agent, int destination) {
+        agent.destination = destination;
+        requests_.add(agent);
+        block(agent);
+        agent.floor = destination;
+    }
+
+    /*!
+     * \brief Block an agent until the coordinator wakes it, releasing the coordinator if it was the last agent it was waiting on
+     *
+     * \param agent The passenger
+     */
+    private void block(Agent agent) {
+        release_coordinator();
+        while (!agent.woken) {
+            LockSupport.park(this);
+        }
+        agent.woken = false;
+
+        if (stopped_) {
+            throw new SimulationStopped();
+        }
+    }
+
+    //! Count an agent as blocked, waking the coordinator if every agent it was waiting on is now blocked
+    private void release_coordinator() {
+        if (outstanding_.decrementAndGet() == 0) {
+            LockSupport.unpark(coordinator_);
+        }
+    }
+
+    /*!
+     * \brief Wake a group of agents, and wait until each of them has blocked again
+     *
+     * \param agents The passengers to wake
+     */
+    private void wake_agents(List<Agent> agents) {
+        if (agents.isEmpty()) {
+            return;
+        }
+
+        outstanding_.set(agents.size());
+        for (Agent agent : agents) {
+            agent.woken = true;
+            LockSupport.unpark(agent.thread);
+        }
+        await_agents();
+    }
+
+    //! Wait until every agent that was woken has blocked again
+    private void await_agents() {
+        while (outstanding_.get() > 0) {
+            LockSupport.park(this);
+        }
+    }
+
+    /*!
+     * \brief Add an agent's call to the controller, noting the stop request that will carry it, which for a repeated press
+     * of a hall button is the hall call it joined
+     *
+     * \param agent The passenger
+     */
+    private void call_elevator(Agent agent) {
+        StopRequest stop = new StopRequest(agent.floor, agent.destination);
+        long num_merged = controller_.get_num_merged_calls();
+        controller_.add_stop(stop);
+
+        StopRequest carrier = stop;
+        if (controller_.get_num_merged_calls() != num_merged) {
+            DirectionRequest direction = agent.destination > agent.floor ? DirectionRequest.ASCENDING : DirectionRequest.DESCENDING;
+            carrier = controller_.get_hall_call(agent.floor, direction);
+        }
+
+        ArrayList<Agent> waiting = boarding_.get(carrier);
+        if (waiting == null) {
+            waiting = new ArrayList<Agent>(1);
+            boarding_.put(carrier, waiting);
+        }
+        waiting.add(agent);
+        agent.request_tick = cur_tick_;
+    }
+
+    /*!
+     * \brief Board the passengers whose pick ups an elevator served, and drop off the passengers it carried to their floors
+     *
+     * \param elevator_index Index of the elevator
+     * \param served Stop requests the elevator served in the time step
+     * \param[inout] arrived Passengers that reached their floors, which are added to
+     */
+    private void serve_passengers(int elevator_index, List<StopRequest> served, ArrayList<Agent> arrived) {
+        for (StopRequest stop : served) {
+            ArrayList<Agent> boarding = boarding_.remove(stop);
+            if (boarding == null) {
+                continue;
+            }
+
+            for (Agent agent : boarding) {
+                long wait = cur_tick_ - agent.request_tick;
+                total_wait_ += wait;
+                max_wait_ = Math.max(max_wait_, wait);
+                num_boarded_ += 1;
+                agent.board_tick = cur_tick_;
+
+                riding(elevator_index, agent.destination).add(agent);
+            }
+        }
+
+        // Everyone riding to a floor the elevator stopped at gets off
+        for (StopRequest stop : served) {
+            ArrayList<Agent> riding = riding(elevator_index, stop.get_pick_up_floor());
+            if (stop.size() > 0 || riding.isEmpty()) {
+                continue;
+            }
+
+            for (Agent agent : riding) {
+                total_ride_ += cur_tick_ - agent.board_tick;
+                num_trips_ += 1;
+                if (++agent.num_trips == num_trips_per_agent_) {
+                    num_finished_ += 1;
+                }
+            }
+            arrived.addAll(riding);
+            riding.clear();
+        }
+    }
+
+    /*!
+     * \brief Return the passengers riding an elevator to a floor
+     *
+     * \param elevator_index Index of the elevator
+     * \param floor Drop off floor
+     *
+     * \return The passengers riding the elevator to the floor
+     */
+    private ArrayList<Agent> riding(int elevator_index, int floor) {
+        return riding_.get(elevator_index * (controller_.get_num_floors() + 1) + floor);
+    }
+
+    //! One passenger, and the state the coordinator keeps for it
+    private static class Agent {
+
+        Agent(int id, SplittableRandom random) {
+            this.id = id;
+            this.random = random;
+            this.floor = 1;
+        }
+        public int id;                      //!< Index of the passenger
+        public SplittableRandom random;     //!< Random number generator of the passenger
+        public Thread thread;               //!< Virtual thread the passenger lives on
+        public volatile boolean woken;      //!< Set by the coordinator to let the passenger continue
+        public int floor;                   //!< Floor the passenger is on
+        public int destination;             //!< Floor the passenger is heading to
+        public long request_tick;           //!< Time step at which the passenger called an elevator
+        public long board_tick;             //!< Time step at which the passenger boarded
+        public int num_trips;               //!< Number of trips the passenger has completed
+    }
+
+    //! Thrown inside an agent to unwind it when the simulation stops
+    private static class SimulationStopped extends RuntimeException {
+
+        SimulationStopped() {
+            super(null, null, false, false);
+        }
+
+        private static final long serialVersionUID = 1L;    //!< Version of the serialized form
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private static final int DEFAULT_NUM_TRIPS = 3;             //!< Default number of trips each passenger makes
+    private static final int DEFAULT_ARRIVAL_WINDOW = 1000;     //!< Default number of time steps over which passengers arrive
+    private static final int DEFAULT_MEAN_STAY = 200;           //!< Default mean number of time steps a passenger stays on a floor
+    private static final int MAX_STAY_FACTOR = 8;               //!< Longest stay, as a multiple of the mean stay
+    private static final Comparator<Agent> BY_ID = Comparator.comparingInt(agent -> agent.id);  //!< Orders agents by index
+
+    private ElevatorController controller_;     //!< The controller whose elevators the passengers ride
+    private List<Elevator> elevators_;          //!< Elevators of the controller
+    private int num_agents_;                    //!< Number of passengers
+    private long seed_;                         //!< Seed for the random numbers
+    private int num_trips_per_agent_;           //!< Number of trips each passenger makes
+    private int arrival_window_;                //!< Number of time steps over which passengers arrive
+    private int mean_stay_;                     //!< Mean number of time steps a passenger stays on a floor
+    private Agent[] agents_;                    //!< Every passenger
+    private Thread coordinator_;                //!< Thread running the simulation
+    private AtomicInteger outstanding_;         //!< Number of woken agents that haven't blocked again
+    private ArrayList<ConcurrentLinkedQueue<Agent>> wheel_; //!< Agents waiting on a timer, indexed by time step modulo the wheel size
+    private ConcurrentLinkedQueue<Agent> requests_;         //!< Agents that called an elevator in the current time step
+    private IdentityHashMap<StopRequest, ArrayList<Agent>> boarding_;   //!< Agents waiting to board, by the stop request carrying them
+    private ArrayList<ArrayList<Agent>> riding_;    //!< Agents riding each elevator, indexed by elevator * (num_floors + 1) + drop off floor
+    private volatile long cur_tick_;            //!< Current time step
+    private volatile boolean stopped_;          //!< Set once the simulation stops, which unwinds the agents still travelling
+    private int num_finished_;                  //!< Number of passengers that made all of their trips
+    private long num_trips_;                    //!< Number of trips completed
+    private long num_boarded_;                  //!< Number of times a passenger boarded
+    private long total_wait_;                   //!< Total time passengers waited to be picked up [time steps]
+    private long max_wait_;                     //!< Longest time a passenger waited to be picked up [time steps]
+    private long total_ride_;                   //!< Total time passengers spent riding [time steps]
+    private long num_ticks_;                    //!< Number of time steps in the last run
+    private long elapsed_ns_;                   //!< Wall clock time the last run took [ns]
+}
@@ -0,0 +1,331 @@
+/*!
+ * \file RequestGateway.java
+ * \brief Defines a non-blocking socket gateway that lets button panels add requests to an ElevatorController
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+// Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Accepts requests from button panels over local sockets, adding them to an ElevatorController once per time step
+ * and acknowledging each with the elevator it was assigned to
+ *
+ * \note Every message is a fixed size record of big endian fields, so requests are parsed in place from each connection's
+ * read buffer without allocating. A request is REQUEST_SIZE bytes: an int tag chosen by the panel, the int pick up floor,
+ * the int drop off floor, or 0 for a call with no drop off floor, and a byte holding the DirectionRequest ordinal of the
+ * hall button pressed, or NO_DIRECTION. A hall button press has no drop off floor, and becomes a hall call that repeated
+ * presses of the same button join. Each request is answered, in order, with an ACK_SIZE byte
+ * acknowledgement holding the tag and the index of the assigned elevator, or REJECTED if the request was invalid.
+ * Nothing happens between calls to poll(), which must be made once per time step from the thread that steps the
+ * controller, so every request that arrived since the last time step is added as one batch without any locking
+ */
+public class RequestGateway implements AutoCloseable {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a RequestGateway, listening on the loopback interface
+     *
+     * \param controller The controller that requests are added to
+     * \param port Port to listen on, or 0 to pick any free port
+     */
+    public RequestGateway(ElevatorController controller, int port) throws IOException {
+        controller_ = controller;
+        elevators_ = controller.get_elevators();
+        selector_ = Selector.open();
+        server_ = ServerSocketChannel.open();
+        server_.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), ACCEPT_BACKLOG);
+        server_.configureBlocking(false);
+        server_.register(selector_, SelectionKey.OP_ACCEPT);
+        num_connections_ = 0;
+        num_requests_ = 0;
+        num_rejected_ = 0;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the port the gateway is listening on
+     *
+     * \return The port the gateway is listening on
+     */
+    public int get_port() {
+        return server_.socket().getLocalPort();
+    }
+
+    /*!
+     * \brief Return the number of button panels connected
+     *
+     * \return The number of button panels connected
+     */
+    public int get_num_connections() {
+        return num_connections_;
+    }
+
+    /*!
+     * \brief Return the number of requests added to the controller
+     *
+     * \return The number of requests added to the controller
+     */
+    public long get_num_requests() {
+        return num_requests_;
+    }
+
+    /*!
+     * \brief Return the number of requests rejected as invalid
+     *
+     * \return The number of requests rejected as invalid
+     */
+    public long get_num_rejected() {
+        return num_rejected_;
+    }
+
+    /*!
+     * \brief Accept new button panels, add every request that has arrived to the controller, and queue the
+     * acknowledgements, without blocking
+     *
+     * \return The number of requests handled
+     */
+    public int poll() throws IOException {
+        if (selector_.selectNow() == 0) {
+            return 0;
+        }
+
+        int num_handled = 0;
+        for (SelectionKey key : selector_.selectedKeys()) {
+            if (!key.isValid()) {
+                continue;
+            }
+
+            if (key.isAcceptable()) {
+                try {
+                    accept();
+                } catch (IOException e) {
+                    // Out of file descriptors, so the rest of the panels wait in the backlog until connections close
+                }
+                continue;
+            }
+
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    int num_read = read_requests(connection);
+                    if (num_read < 0) {
+                        disconnect(key);
+                        continue;
+                    }
+                    num_handled += num_read;
+                }
+
+                // Write the acknowledgements, waiting for the socket to drain if they don't all fit
+                connection.channel.write(connection.write_buffer);
+                key.interestOps(connection.write_buffer.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            } catch (IOException e) {
+                // A panel that drops its connection only loses its own acknowledgements
+                disconnect(key);
+            }
+        }
+        selector_.selectedKeys().clear();
+
+        return num_handled;
+    }
+
+    //! Close every connection, the listening socket and the selector
+    @Override
+    public void close() throws IOException {
+        for (SelectionKey key : selector_.keys()) {
+            key.channel().close();
+        }
+        selector_.close();
+        num_connections_ = 0;
+    }
+
+    /*!
+     * \brief Run a building with a gateway in its own process, stepping it in real time
+     *
+     * \param args The port, the number of floors, the number of elevators, and the tick period [ms]
+     */
+    public static void main(String[] args) throws Exception {
+        // Error Checking
+        if (args.length != 4) {
+            throw new IllegalArgumentException("RequestGateway.main() - usage: RequestGateway <port> <num_floors> <num_elevators> <tick_period_ms>");
+        }
+
+        ElevatorController controller = new ElevatorController(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        RequestGateway gateway = new RequestGateway(controller, Integer.parseInt(args[0]));
+        long tick_period_ms = Long.parseLong(args[3]);
+        System.out.println("RequestGateway listening on port " + Integer.toString(gateway.get_port()));
+
+        while (true) {
+            gateway.poll();
+            controller.step();
+            Thread.sleep(tick_period_ms);
+        }
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    //! Accept every button panel waiting to connect
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server_.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector_, SelectionKey.OP_READ, new Connection(channel));
+            num_connections_ += 1;
+        }
+    }
+
+    /*!
+     * \brief Read whatever a button panel has sent, adding each complete request to the controller and queueing its
+     * acknowledgement
+     *
+     * \param connection Connection to the button panel
+     *
+     * \return The number of requests handled, or -1 if the panel closed the connection
+     */
+    private int read_requests(Connection connection) throws IOException {
+        ByteBuffer read_buffer = connection.read_buffer;
+        int num_handled = 0;
+        int num_read;
+        boolean filled;
+        do {
+            num_read = connection.channel.read(read_buffer);
+            filled = !read_buffer.hasRemaining();
+
+            // Parse the complete requests in place, leaving a partial one for the next read
+            int limit = read_buffer.position() - read_buffer.position() % REQUEST_SIZE;
+            for (int offset = 0; offset < limit; offset += REQUEST_SIZE) {
+                handle_request(connection, read_buffer.getInt(offset), read_buffer.getInt(offset + Integer.BYTES),
+                        read_buffer.getInt(offset + 2 * Integer.BYTES), read_buffer.get(offset + 3 * Integer.BYTES));
+                num_handled += 1;
+            }
+            read_buffer.flip().position(limit);
+            read_buffer.compact();
+        } while (num_read > 0 && filled);   // A full buffer may have left more requests waiting in the socket
+
+        return num_read < 0 ? -1 : num_handled;
+    }
+
+    /*!
+     * \brief Add one request to the controller and queue its acknowledgement
+     *
+     * \param connection Connection to the button panel that sent the request
+     * \param tag Tag chosen by the button panel
+     * \param pick_up_floor Pick up floor of the request
+     * \param drop_off_floor Drop off floor of the request, or 0 if there is none
+     * \param direction DirectionRequest ordinal of the hall button pressed, or NO_DIRECTION if the request isn't a hall
+     * button press
+     */
+    private void handle_request(Connection connection, int tag, int pick_up_floor, int drop_off_floor, byte direction) {
+        int elevator_index = REJECTED;
+        int num_floors = controller_.get_num_floors();
+        boolean valid_direction = direction == NO_DIRECTION || (direction >= 0 && direction < DirectionRequest.values().length && drop_off_floor == 0);
+        if (pick_up_floor >= 1 && pick_up_floor <= num_floors && drop_off_floor >= 0 && drop_off_floor <= num_floors && valid_direction) {
+            try {
+                StopRequest stop;
+                if (direction != NO_DIRECTION) {
+                    stop = new StopRequest(pick_up_floor, DirectionRequest.values()[direction]);
+                } else if (drop_off_floor == 0) {
+                    stop = new StopRequest(pick_up_floor);
+                } else {
+                    stop = new StopRequest(pick_up_floor, drop_off_floor);
+                }
+                Elevator elevator = controller_.add_stop(stop);
+                elevator_index = elevators_.indexOf(elevator);
+                num_requests_ += 1;
+            } catch (IllegalArgumentException e) {
+                // No elevator serves the request
+                elevator_index = REJECTED;
+            }
+        }
+        if (elevator_index == REJECTED) {
+            num_rejected_ += 1;
+        }
+
+        // Make room for the acknowledgement, which only allocates if the panel isn't reading them
+        ByteBuffer write_buffer = connection.write_buffer;
+        if (write_buffer.capacity() - write_buffer.limit() < ACK_SIZE) {
+            write_buffer.compact();
+            if (write_buffer.remaining() < ACK_SIZE) {
+                ByteBuffer larger = ByteBuffer.allocate(write_buffer.capacity() * 2);
+                write_buffer.flip();
+                larger.put(write_buffer);
+                write_buffer = larger;
+            }
+            write_buffer.flip();
+            connection.write_buffer = write_buffer;
+        }
+
+        // Append the acknowledgement after the bytes still waiting to be sent
+        int end = write_buffer.limit();
+        write_buffer.limit(end + ACK_SIZE);
+        write_buffer.putInt(end, tag);
+        write_buffer.putInt(end + Integer.BYTES, elevator_index);
+    }
+
+    //! Close a connection to a button panel
+    private void disconnect(SelectionKey key) throws IOException {
+        key.cancel();
+        key.channel().close();
+        num_connections_ -= 1;
+    }
+
+    //! Buffers for one button panel's connection, reused for the life of the connection
+    private static class Connection {
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.read_buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            this.write_buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            this.write_buffer.flip();
+        }
+        public SocketChannel channel;       //!< Connection to the button panel
+        public ByteBuffer read_buffer;      //!< Bytes read from the panel, in write mode
+        public ByteBuffer write_buffer;     //!< Acknowledgements waiting to be sent to the panel, in read mode
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    public static final int REQUEST_SIZE = 3 * Integer.BYTES + 1;   //!< Size of a request: tag, pick up floor, drop off floor, hall button [bytes]
+    public static final int ACK_SIZE = 2 * Integer.BYTES;           //!< Size of an acknowledgement: tag, elevator index [bytes]
+    public static final int REJECTED = -1;                          //!< Elevator index acknowledging an invalid request
+    public static final byte NO_DIRECTION = -1;                     //!< Hall button of a request that isn't a hall button press
+    private static final int READ_BUFFER_SIZE = 32 * REQUEST_SIZE;  //!< Size of each connection's read buffer [bytes]
+    private static final int WRITE_BUFFER_SIZE = 32 * ACK_SIZE;     //!< Initial size of each connection's write buffer [bytes]
+    private static final int ACCEPT_BACKLOG = 4096;                 //!< Connections that may wait to be accepted
+
+    private ElevatorController controller_;     //!< The controller that requests are added to
+    private List<Elevator> elevators_;          //!< Elevators of the controller, used to find the index of an assigned elevator
+    private Selector selector_;                 //!< Selector watching the listening socket and every button panel
+    private ServerSocketChannel server_;        //!< Listening socket
+    private int num_connections_;               //!< Number of button panels connected
+    private long num_requests_;                 //!< Number of requests added to the controller
+    private long num_rejected_;                 //!< Number of requests rejected as invalid
+}
@@ -0,0 +1,629 @@
+/*!
+ * \file RequestLog.java
+ * \brief Defines a write-ahead log of the requests handled by an ElevatorController, used to recover after a crash
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+// Elevator System imports
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Write-ahead log of the requests handled by an ElevatorController
+ *
+ * \note Records are appended to an in-memory batch and only written and forced to disk by commit(), which the controller
+ * calls once per time step, so every request added during a time step shares a single force(). A request is durable once
+ * the time step it was added in has been committed. The floors of the elevators ride along with the next commit that has
+ * a request record, and only those that changed are written, so an idle controller never forces the log. Each record
+ * carries a CRC32C so that a record torn by a crash ends the replay instead of corrupting it
+ *
+ * \note The log keeps the state it would replay to, so that compact() can rewrite the log as just that state, once it
+ * grows past the size set by set_max_log_bytes()
+ */
+public class RequestLog implements AutoCloseable {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Create a new, empty log, replacing any log that already exists at the path
+     *
+     * \param path Path of the log file
+     * \param max_batch_records Number of records after which the batch is committed without waiting for the time step
+     */
+    public RequestLog(Path path, int max_batch_records) throws IOException, IllegalArgumentException {
+        // Error Checking
+        if (max_batch_records < 1) {
+            throw new IllegalArgumentException("RequestLog() - max_batch_records value must be greater than 0.");
+        }
+
+        // Set values
+        path_ = path;
+        channel_ = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        live_ = new Recovery();
+        batch_ = ByteBuffer.allocateDirect(INITIAL_BATCH_SIZE);
+        crc_ = new CRC32C();
+        max_batch_records_ = max_batch_records;
+        max_log_bytes_ = 0;        // Default to a log that is never compacted
+        floors_ = null;
+        batch_records_ = 0;
+        log_bytes_ = 0;
+        compacted_bytes_ = 0;
+        num_records_ = 0;
+        num_commits_ = 0;
+        num_compactions_ = 0;
+        bytes_written_ = 0;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the number of records appended to the log
+     *
+     * \return The number of records appended to the log
+     */
+    public synchronized long get_num_records() {
+        return num_records_;
+    }
+
+    /*!
+     * \brief Return the number of commits, each of which forced the log to disk once
+     *
+     * \return The number of commits
+     */
+    public synchronized long get_num_commits() {
+        return num_commits_;
+    }
+
+    /*!
+     * \brief Return the number of times the log was rewritten as the state it would replay to
+     *
+     * \return The number of compactions
+     */
+    public synchronized long get_num_compactions() {
+        return num_compactions_;
+    }
+
+    /*!
+     * \brief Return the number of bytes written to the log file, including those written by compactions
+     *
+     * \return The number of bytes written to the log file
+     */
+    public synchronized long get_bytes_written() {
+        return bytes_written_;
+    }
+
+    /*!
+     * \brief Return the size of the log file
+     *
+     * \return The size of the log file [bytes]
+     */
+    public synchronized long get_log_bytes() {
+        return log_bytes_;
+    }
+
+    /*!
+     * \brief Compact the log on a commit that would grow it past a size, and past twice its size after the last compaction
+     *
+     * \param max_log_bytes Size past which the log is compacted [bytes], or 0 to never compact it
+     */
+    public synchronized void set_max_log_bytes(long max_log_bytes) throws IllegalArgumentException {
+        // Error Checking
+        if (max_log_bytes < 0) {
+            throw new IllegalArgumentException("RequestLog.set_max_log_bytes() - max_log_bytes value must be 0 or greater.");
+        }
+
+        max_log_bytes_ = max_log_bytes;
+    }
+
+    /*!
+     * \brief Log a request that is about to be dispatched. A repeated hall button press is logged with the id of the hall
+     * call it joins
+     *
+     * \param request_id Id of the request
+     * \param stop The stop request
+     */
+    public synchronized void log_add(long request_id, StopRequest stop) {
+        ByteBuffer record = begin_record(ADD, Long.BYTES + stop.encoded_size());
+        record.putLong(request_id);
+        stop.write_to(record);
+        end_record();
+    }
+
+    /*!
+     * \brief Log that a request was picked up, so its passengers are now riding an elevator
+     *
+     * \param request_id Id of the request
+     * \param elevator_index Index of the elevator that picked up the request
+     */
+    public synchronized void log_picked_up(long request_id, int elevator_index) {
+        ByteBuffer record = begin_record(PICKED_UP, Long.BYTES + Integer.BYTES);
+        record.putLong(request_id);
+        record.putInt(elevator_index);
+        end_record();
+    }
+
+    /*!
+     * \brief Log that a request was cancelled or expired before it was picked up
+     *
+     * \param request_id Id of the request
+     */
+    public synchronized void log_cancelled(long request_id) {
+        ByteBuffer record = begin_record(CANCELLED, Long.BYTES);
+        record.putLong(request_id);
+        end_record();
+    }
+
+    /*!
+     * \brief Log that an elevator is carrying passengers to a floor, without a request to tie them to
+     *
+     * \param elevator_index Index of the elevator
+     * \param floor Floor the passengers are riding to
+     */
+    public synchronized void log_riding(int elevator_index, int floor) {
+        ByteBuffer record = begin_record(RIDING, 2 * Integer.BYTES);
+        record.putInt(elevator_index);
+        record.putInt(floor);
+        end_record();
+    }
+
+    /*!
+     * \brief Log that an elevator stopped at a floor, letting off everyone riding to it
+     *
+     * \note Nothing is logged if nobody was logged as riding the elevator to the floor, such as for a pick up that was
+     * served as soon as it was added
+     *
+     * \param elevator_index Index of the elevator
+     * \param floor Floor the elevator stopped at
+     */
+    public synchronized void log_dropped_off(int elevator_index, int floor) {
+        if (!live_.get_riding(elevator_index).contains(floor)) {
+            return;
+        }
+
+        ByteBuffer record = begin_record(DROPPED_OFF, 2 * Integer.BYTES);
+        record.putInt(elevator_index);
+        record.putInt(floor);
+        end_record();
+    }
+
+    /*!
+     * \brief Note the floor of every elevator at the end of a time step, to be logged with the next commit that has a
+     * request record
+     *
+     * \param floors Current floor of each elevator
+     */
+    public synchronized void log_floors(int[] floors) {
+        if (floors_ == null || floors_.length != floors.length) {
+            floors_ = new int[floors.length];
+        }
+        System.arraycopy(floors, 0, floors_, 0, floors.length);
+    }
+
+    //! Write every record in the batch, along with the floors that changed, and force them to disk with a single force()
+    public synchronized void commit() {
+        // Floors alone aren't worth a force, so they wait for the next request record
+        if (batch_records_ == 0) {
+            return;
+        }
+
+        // A log that has grown too large is rewritten instead, which makes the batch durable as well
+        append_floors();
+        long new_bytes = log_bytes_ + batch_.position();
+        if (max_log_bytes_ > 0 && new_bytes > max_log_bytes_ && new_bytes > 2 * compacted_bytes_) {
+            compact();
+        } else {
+            write_batch();
+        }
+    }
+
+    /*!
+     * \brief Rewrite the log as the state it would replay to, including the records waiting in the batch, replacing the
+     * log file in a single atomic move once the new file has been forced to disk
+     */
+    public synchronized void compact() {
+        append_floors();
+        batch_.clear();
+        batch_records_ = 0;
+
+        // Write one record for each waiting request, each floor someone is riding to, and the floor of every elevator
+        for (Map.Entry<Long, StopRequest> pending : live_.pending_.entrySet()) {
+            ByteBuffer record = begin_record(ADD, Long.BYTES + pending.getValue().encoded_size());
+            record.putLong(pending.getKey());
+            pending.getValue().write_to(record);
+            seal_record();
+        }
+        for (int k = 0; k < live_.riding_.size(); k++) {
+            for (int floor : live_.riding_.get(k)) {
+                ByteBuffer record = begin_record(RIDING, 2 * Integer.BYTES);
+                record.putInt(k);
+                record.putInt(floor);
+                seal_record();
+            }
+        }
+        if (live_.floors_ != null) {
+            ByteBuffer record = begin_record(FLOORS, Integer.BYTES * (2 + 2 * live_.floors_.length));
+            record.putInt(live_.floors_.length);
+            record.putInt(live_.floors_.length);
+            for (int k = 0; k < live_.floors_.length; k++) {
+                record.putInt(k);
+                record.putInt(live_.floors_[k]);
+            }
+            seal_record();
+        }
+
+        // Replace the log only once the new one is on disk, so a crash part way through leaves the old log intact
+        Path compact_path = path_.resolveSibling(path_.getFileName() + ".compact");
+        try (FileChannel compact_channel = FileChannel.open(compact_path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            batch_.flip();
+            log_bytes_ = 0;
+            while (batch_.hasRemaining()) {
+                log_bytes_ += compact_channel.write(batch_);
+            }
+            compact_channel.force(false);
+
+            channel_.close();
+            Files.move(compact_path, path_, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel_ = FileChannel.open(path_, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("RequestLog.compact() - " + e.getMessage(), e);
+        } finally {
+            batch_.clear();
+        }
+
+        bytes_written_ += log_bytes_;
+        compacted_bytes_ = log_bytes_;
+        num_commits_ += 1;
+        num_compactions_ += 1;
+    }
+
+    //! Commit any remaining records, along with the floors that changed, and close the log file
+    @Override
+    public synchronized void close() throws IOException {
+        write_batch();
+        channel_.close();
+    }
+
+    /*!
+     * \brief Read a log back, working out the state that was durable when it was last committed
+     *
+     * \param path Path of the log file
+     *
+     * \return The recovered state
+     */
+    public static Recovery replay(Path path) throws IOException {
+        Recovery recovery = new Recovery();
+        CRC32C crc = new CRC32C();
+        byte[] record = new byte[INITIAL_RECORD_SIZE];
+
+        // Read the records one at a time, so the log never has to fit in memory
+        try (DataInputStream log = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            long remaining = Files.size(path);
+            while (remaining >= 2 * Integer.BYTES) {
+                // Stop at the first record that is incomplete or corrupt, as it was torn by the crash
+                int length = log.readInt();
+                int checksum = log.readInt();
+                remaining -= 2 * Integer.BYTES;
+                if (length < 1 || length > remaining) {
+                    break;
+                }
+                if (length > record.length) {
+                    record = new byte[Math.max(length, 2 * record.length)];
+                }
+                log.readFully(record, 0, length);
+                remaining -= length;
+                crc.reset();
+                crc.update(record, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                if (!recovery.apply(ByteBuffer.wrap(record, 0, length))) {
+                    throw new IOException("RequestLog.replay() - unknown record type.");
+                }
+                recovery.num_records_ += 1;
+            }
+        }
+
+        return recovery;
+    }
+
+    //! State recovered from a log by replay()
+    public static class Recovery {
+
+        Recovery() {
+            pending_ = new LinkedHashMap<Long, StopRequest>();
+            riding_ = new ArrayList<TreeSet<Integer>>();
+            floors_ = null;
+            num_records_ = 0;
+        }
+
+        /*!
+         * \brief Return the requests that had not been picked up, in the order they were added
+         *
+         * \return The requests that had not been picked up
+         */
+        public Collection<StopRequest> get_pending() {
+            return pending_.values();
+        }
+
+        /*!
+         * \brief Return the floors the passengers riding an elevator were heading to
+         *
+         * \param elevator_index Index of the elevator
+         *
+         * \return The floors the passengers riding the elevator were heading to
+         */
+        public Set<Integer> get_riding(int elevator_index) {
+            return elevator_index < riding_.size() ? riding_.get(elevator_index) : new TreeSet<Integer>();
+        }
+
+        /*!
+         * \brief Return the floor of every elevator at the last committed time step
+         *
+         * \return The floor of every elevator, or null if no time step was committed
+         */
+        public int[] get_floors() {
+            return floors_;
+        }
+
+        /*!
+         * \brief Return the number of intact records that were replayed
+         *
+         * \return The number of intact records that were replayed
+         */
+        public long get_num_records() {
+            return num_records_;
+        }
+
+        /*!
+         * \brief Apply one intact record to the state
+         *
+         * \param record Body of the record, starting with its type
+         *
+         * \return true if the record was applied, false if its type is unknown
+         */
+        private boolean apply(ByteBuffer record) {
+            switch (record.get()) {
+                case ADD: {
+                    long request_id = record.getLong();
+                    StopRequest stop = StopRequest.read_from(record);
+                    StopRequest pending = pending_.get(request_id);
+                    if (pending == null) {
+                        pending_.put(request_id, stop);
+                    } else {
+                        pending.combine_destination_floors(stop);
+                    }
+                    break;
+                }
+                case PICKED_UP: {
+                    long request_id = record.getLong();
+                    int elevator_index = record.getInt();
+                    StopRequest stop = pending_.remove(request_id);
+                    if (stop != null) {
+                        riding(elevator_index).addAll(stop.get_drop_off_floors());
+                    }
+                    break;
+                }
+                case RIDING: {
+                    int elevator_index = record.getInt();
+                    riding(elevator_index).add(record.getInt());
+                    break;
+                }
+                case DROPPED_OFF: {
+                    int elevator_index = record.getInt();
+                    riding(elevator_index).remove(record.getInt());
+                    break;
+                }
+                case CANCELLED: {
+                    pending_.remove(record.getLong());
+                    break;
+                }
+                case FLOORS: {
+                    int num_elevators = record.getInt();
+                    if (floors_ == null || floors_.length != num_elevators) {
+                        floors_ = new int[num_elevators];
+                    }
+                    int num_changed = record.getInt();
+                    for (int k = 0; k < num_changed; k++) {
+                        int elevator_index = record.getInt();
+                        floors_[elevator_index] = record.getInt();
+                    }
+                    break;
+                }
+                default: {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /*!
+         * \brief Return the floors riders of an elevator are heading to, creating the entry if necessary
+         *
+         * \param elevator_index Index of the elevator
+         *
+         * \return The floors riders of the elevator are heading to
+         */
+        private TreeSet<Integer> riding(int elevator_index) {
+            while (riding_.size() <= elevator_index) {
+                riding_.add(new TreeSet<Integer>());
+            }
+            return riding_.get(elevator_index);
+        }
+
+        private LinkedHashMap<Long, StopRequest> pending_;  //!< Requests that had not been picked up, by request id
+        private ArrayList<TreeSet<Integer>> riding_;        //!< Floors riders of each elevator are heading to
+        private int[] floors_;                              //!< Floor of every elevator at the last committed time step
+        private long num_records_;                          //!< Number of intact records that were replayed
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Start a record in the batch, leaving room for its length and checksum
+     *
+     * \param type Type of the record
+     * \param payload_length Number of bytes in the record after its type
+     *
+     * \return The batch, positioned to write the payload of the record
+     */
+    private ByteBuffer begin_record(byte type, int payload_length) {
+        // Make sure the record will fit
+        int record_length = 2 * Integer.BYTES + 1 + payload_length;
+        if (batch_.remaining() < record_length) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(batch_.capacity() * 2, batch_.position() + record_length));
+            batch_.flip();
+            larger.put(batch_);
+            batch_ = larger;
+        }
+
+        record_start_ = batch_.position();
+        batch_.putInt(0);
+        batch_.putInt(0);
+        batch_.put(type);
+        return batch_;
+    }
+
+    //! Write the batch, along with the floors that changed, and force it to disk if it holds any records
+    private void write_batch() {
+        append_floors();
+        if (batch_.position() == 0) {
+            return;
+        }
+
+        try {
+            batch_.flip();
+            while (batch_.hasRemaining()) {
+                int num_bytes = channel_.write(batch_);
+                bytes_written_ += num_bytes;
+                log_bytes_ += num_bytes;
+            }
+            channel_.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("RequestLog.commit() - " + e.getMessage(), e);
+        } finally {
+            batch_.clear();
+        }
+
+        batch_records_ = 0;
+        num_commits_ += 1;
+    }
+
+    //! Append a record of the floors that changed since they were last written, or of every floor the first time
+    private void append_floors() {
+        if (floors_ == null) {
+            return;
+        }
+
+        int[] written_floors = live_.floors_;
+        boolean resized = written_floors == null || written_floors.length != floors_.length;
+        int num_changed = 0;
+        for (int k = 0; k < floors_.length; k++) {
+            if (resized || written_floors[k] != floors_[k]) {
+                num_changed += 1;
+            }
+        }
+        if (num_changed == 0) {
+            return;
+        }
+
+        ByteBuffer record = begin_record(FLOORS, Integer.BYTES * (2 + 2 * num_changed));
+        record.putInt(floors_.length);
+        record.putInt(num_changed);
+        for (int k = 0; k < floors_.length; k++) {
+            if (resized || written_floors[k] != floors_[k]) {
+                record.putInt(k);
+                record.putInt(floors_[k]);
+            }
+        }
+        append_record();
+    }
+
+    //! Fill in the length and checksum of the record started by begin_record(), committing the batch if it is full
+    private void end_record() {
+        append_record();
+        batch_records_ += 1;
+        if (batch_records_ >= max_batch_records_) {
+            commit();
+        }
+    }
+
+    //! Seal the record started by begin_record() and apply it to the state the log would replay to
+    private void append_record() {
+        live_.apply(seal_record());
+        num_records_ += 1;
+    }
+
+    /*!
+     * \brief Fill in the length and checksum of the record started by begin_record()
+     *
+     * \return Body of the record, starting with its type
+     */
+    private ByteBuffer seal_record() {
+        int body_start = record_start_ + 2 * Integer.BYTES;
+        int length = batch_.position() - body_start;
+        crc_.reset();
+        crc_.update(batch_.slice(body_start, length));
+        batch_.putInt(record_start_, length);
+        batch_.putInt(record_start_ + Integer.BYTES, (int) crc_.getValue());
+        return batch_.slice(body_start, length);
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private static final byte ADD = 1;                      //!< Record of a request about to be dispatched
+    private static final byte PICKED_UP = 2;                //!< Record of a request being picked up
+    private static final byte RIDING = 3;                   //!< Record of passengers riding to a floor
+    private static final byte DROPPED_OFF = 4;              //!< Record of an elevator letting passengers off
+    private static final byte FLOORS = 5;                   //!< Record of the floors of the elevators that moved
+    private static final byte CANCELLED = 6;                //!< Record of a request dropped before it was picked up
+    private static final int INITIAL_BATCH_SIZE = 64 << 10; //!< Initial size of the batch buffer [bytes]
+    private static final int INITIAL_RECORD_SIZE = 256;     //!< Initial size of the buffer each record is read into by replay() [bytes]
+
+    private Path path_;                     //!< Path of the log file
+    private FileChannel channel_;           //!< Log file
+    private Recovery live_;                 //!< State the log would replay to, including the records in the batch
+    private ByteBuffer batch_;              //!< Records waiting to be committed
+    private CRC32C crc_;                    //!< Checksum used for each record
+    private int max_batch_records_;         //!< Number of records after which the batch is committed early
+    private long max_log_bytes_;            //!< Size past which the log is compacted [bytes], or 0 if it is never compacted
+    private int[] floors_;                  //!< Floor of every elevator at the end of the last time step, or null if not yet noted
+    private int batch_records_;             //!< Number of request records waiting to be committed
+    private int record_start_;              //!< Position of the record being built
+    private long log_bytes_;                //!< Size of the log file [bytes]
+    private long compacted_bytes_;          //!< Size of the log file after the last compaction [bytes]
+    private long num_records_;              //!< Number of records appended
+    private long num_commits_;              //!< Number of commits, including compactions
+    private long num_compactions_;          //!< Number of compactions
+    private long bytes_written_;            //!< Number of bytes written to the log file
+}
@@ -0,0 +1,35 @@
+/*!
+ * \file RequestPriority.java
+ * \brief Defines the priority classes of a stop request, from most to least urgent
+ */
+
+// Define package
+package ElevatorSystem;
+
+//! Defines the priority classes of a stop request, from most to least urgent
+public enum RequestPriority {
+    EMERGENCY(true),    //!< Fire service and emergency calls, which turn the elevator around and skip other stops
+    VIP(true),          //!< Calls that turn the elevator around and skip other stops, behind emergency calls
+    FREIGHT(false),     //!< Freight calls, served in sweep order and never merged into a passenger hall call
+    NORMAL(false);      //!< Ordinary passenger calls
+
+    /*!
+     * \brief Define a priority class
+     *
+     * \param preempts true if stop requests of this class preempt the elevator's current sweep
+     */
+    RequestPriority(boolean preempts) {
+        preempts_ = preempts;
+    }
+
+    /*!
+     * \brief Returns true if stop requests of this class preempt the elevator's current sweep, false otherwise
+     *
+     * \return true if stop requests of this class preempt the elevator's current sweep, false otherwise
+     */
+    public boolean preempts() {
+        return preempts_;
+    }
+
+    private final boolean preempts_;    //!< Whether stop requests of this class preempt the elevator's current sweep
+}
@@ -0,0 +1,333 @@
+/*!
+ * \file StopQueue.java
+ * \brief Defines the queue of stop requests an elevator serves in one direction
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Elevator System imports
+import ElevatorSystem.StopRequest;
+
+/*!
+ * \brief Queue of stop requests ordered by floor, where every stop request on a floor is served together
+ *
+ * \note Stop requests are kept as separate entries, rather than merged, so that a single request can be found and removed
+ * in O(log n) time when it is handed to another elevator. An empty queue holds no storage, which is only allocated when
+ * a stop request is added and released again once the last one leaves, so idle elevators stay small
+ */
+class StopQueue {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    //! Construct an empty StopQueue
+    StopQueue() {
+        floors_ = null;
+        size_ = 0;
+    }
+
+    /*!
+     * \brief Construct a StopQueue that shares the stop requests of another until either of them is changed
+     *
+     * \param other The queue being copied
+     */
+    private StopQueue(StopQueue other) {
+        floors_ = other.floors_;
+        if (floors_ != null) {
+            floors_.num_sharing += 1;
+        }
+        size_ = other.size_;
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return a copy of the queue in O(1) time. The copies share their stop requests until one of them is changed,
+     * at which point that queue takes its own copy
+     *
+     * \note A queue and its copies must only be used from one thread at a time
+     *
+     * \return A copy of the queue
+     */
+    StopQueue copy() {
+        return new StopQueue(this);
+    }
+
+    //! Stop sharing with the queue this was copied from, for a copy that is about to be thrown away
+    void release() {
+        if (floors_ != null && floors_.num_sharing > 1) {
+            floors_.num_sharing -= 1;
+            floors_ = null;
+            size_ = 0;
+        }
+    }
+
+    /*!
+     * \brief Return the number of stop requests in the queue
+     *
+     * \return The number of stop requests in the queue
+     */
+    int size() {
+        return size_;
+    }
+
+    /*!
+     * \brief Returns true if there are no stop requests in the queue, false otherwise
+     *
+     * \return true if there are no stop requests in the queue, false otherwise
+     */
+    boolean is_empty() {
+        return size_ == 0;
+    }
+
+    /*!
+     * \brief Return the lowest floor with a stop request in the queue
+     *
+     * \return The lowest floor with a stop request in the queue
+     */
+    int lowest_floor() {
+        return floors_.map.firstKey();
+    }
+
+    /*!
+     * \brief Return the highest floor with a stop request in the queue
+     *
+     * \return The highest floor with a stop request in the queue
+     */
+    int highest_floor() {
+        return floors_.map.lastKey();
+    }
+
+    /*!
+     * \brief Return the nearest floor with a stop request in the queue, looking from the given floor in one direction
+     *
+     * \param floor Floor to look from, which is included in the search
+     * \param ascending true to look up from the floor, false to look down from it
+     *
+     * \return The nearest floor with a stop request in that direction, or null if there is none
+     */
+    Integer nearest_floor(int floor, boolean ascending) {
+        if (floors_ == null) {
+            return null;
+        }
+        return ascending ? floors_.map.ceilingKey(floor) : floors_.map.floorKey(floor);
+    }
+
+    /*!
+     * \brief Returns true if there is a stop request in the queue for the given floor, false otherwise
+     *
+     * \param floor Floor being checked
+     *
+     * \return true if there is a stop request in the queue for the given floor, false otherwise
+     */
+    boolean has_floor(int floor) {
+        return floors_ != null && floors_.map.containsKey(floor);
+    }
+
+    /*!
+     * \brief Return the number of passengers boarding or alighting for the stop requests for the given floor
+     *
+     * \param floor Floor being checked
+     *
+     * \return The number of passengers boarding or alighting at the floor
+     */
+    int num_passengers(int floor) {
+        ArrayList<StopRequest> stops = floor_stops(floor);
+        if (stops == null) {
+            return 0;
+        }
+
+        int num_passengers = 0;
+        for (StopRequest stop : stops) {
+            num_passengers += stop.get_num_passengers();
+        }
+        return num_passengers;
+    }
+
+    /*!
+     * \brief Return the floors with a stop request in the queue, in the order they would be visited
+     *
+     * \param ascending true to return the floors lowest first, false to return them highest first
+     *
+     * \return The floors with a stop request in the queue
+     */
+    Iterable<Integer> floors(boolean ascending) {
+        if (floors_ == null) {
+            return Collections.emptyList();
+        }
+        return ascending ? floors_.map.navigableKeySet() : floors_.map.descendingKeySet();
+    }
+
+    /*!
+     * \brief Add a stop request to the queue
+     *
+     * \param stop The stop request
+     */
+    void add(StopRequest stop) {
+        TreeMap<Integer, ArrayList<StopRequest>> floors = owned_floors();
+        ArrayList<StopRequest> stops = floors.get(stop.get_pick_up_floor());
+        if (stops == null) {
+            stops = new ArrayList<StopRequest>(2);
+            floors.put(stop.get_pick_up_floor(), stops);
+        }
+        stops.add(stop);
+        size_ += 1;
+    }
+
+    /*!
+     * \brief Returns true if this exact stop request is in the queue, false otherwise
+     *
+     * \param stop The stop request
+     *
+     * \return true if this exact stop request is in the queue, false otherwise
+     */
+    boolean contains(StopRequest stop) {
+        ArrayList<StopRequest> stops = floor_stops(stop.get_pick_up_floor());
+        return stops != null && index_of(stops, stop) >= 0;
+    }
+
+    /*!
+     * \brief Remove this exact stop request from the queue
+     *
+     * \param stop The stop request
+     *
+     * \return true if the stop request was in the queue, false otherwise
+     */
+    boolean remove(StopRequest stop) {
+        if (!contains(stop)) {
+            return false;
+        }
+
+        TreeMap<Integer, ArrayList<StopRequest>> floors = owned_floors();
+        ArrayList<StopRequest> stops = floors.get(stop.get_pick_up_floor());
+        stops.remove(index_of(stops, stop));
+        if (stops.isEmpty()) {
+            floors.remove(stop.get_pick_up_floor());
+        }
+        size_ -= 1;
+        release_if_empty();
+        return true;
+    }
+
+    /*!
+     * \brief Return the stop requests for the given floor, without removing them
+     *
+     * \param floor The floor
+     *
+     * \return The stop requests in the queue for the given floor, which must not be changed
+     */
+    List<StopRequest> stops(int floor) {
+        ArrayList<StopRequest> stops = floor_stops(floor);
+        return stops == null ? Collections.<StopRequest>emptyList() : stops;
+    }
+
+    /*!
+     * \brief Remove and return every stop request for the given floor
+     *
+     * \param floor Floor being served
+     *
+     * \return Every stop request that was in the queue for the given floor
+     */
+    List<StopRequest> poll_floor(int floor) {
+        if (!has_floor(floor)) {
+            return Collections.emptyList();
+        }
+
+        ArrayList<StopRequest> stops = owned_floors().remove(floor);
+        if (stops == null) {
+            return Collections.emptyList();
+        }
+
+        size_ -= stops.size();
+        release_if_empty();
+        return stops;
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Return the stop requests so that they can be changed, first taking a private copy if they are shared
+     *
+     * \return The stop requests, grouped by their pick up floor
+     */
+    private TreeMap<Integer, ArrayList<StopRequest>> owned_floors() {
+        if (floors_ == null) {
+            floors_ = new SharedFloors(new TreeMap<Integer, ArrayList<StopRequest>>());
+        } else if (floors_.num_sharing > 1) {
+            TreeMap<Integer, ArrayList<StopRequest>> floors = new TreeMap<Integer, ArrayList<StopRequest>>();
+            for (Map.Entry<Integer, ArrayList<StopRequest>> entry : floors_.map.entrySet()) {
+                floors.put(entry.getKey(), new ArrayList<StopRequest>(entry.getValue()));
+            }
+            floors_.num_sharing -= 1;
+            floors_ = new SharedFloors(floors);
+        }
+        return floors_.map;
+    }
+
+    /*!
+     * \brief Return the stop requests for a floor without copying them
+     *
+     * \param floor The floor
+     *
+     * \return The stop requests for the floor, or null if there are none
+     */
+    private ArrayList<StopRequest> floor_stops(int floor) {
+        return floors_ == null ? null : floors_.map.get(floor);
+    }
+
+    //! Release the storage of a queue that has just become empty, which is no longer shared once it has been changed
+    private void release_if_empty() {
+        if (size_ == 0) {
+            floors_ = null;
+        }
+    }
+
+    /*!
+     * \brief Find this exact stop request within the stop requests of a floor
+     *
+     * \param stops Stop requests for a single floor
+     * \param stop The stop request being searched for
+     *
+     * \return Index of the stop request, or -1 if it isn't present
+     */
+    private static int index_of(ArrayList<StopRequest> stops, StopRequest stop) {
+        for (int k = 0; k < stops.size(); k++) {
+            if (stops.get(k) == stop) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    //! Stop requests grouped by their pick up floor, along with the number of queues sharing them
+    private static class SharedFloors {
+
+        SharedFloors(TreeMap<Integer, ArrayList<StopRequest>> map) {
+            this.map = map;
+            this.num_sharing = 1;
+        }
+        public TreeMap<Integer, ArrayList<StopRequest>> map;    //!< Stop requests, grouped by their pick up floor
+        public int num_sharing;                                 //!< Number of queues sharing the stop requests
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private SharedFloors floors_;           //!< Stop requests, grouped by their pick up floor, or null while the queue is empty
+    private int size_;                      //!< Number of stop requests in the queue
+}
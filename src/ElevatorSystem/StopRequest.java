@@ -7,9 +7,15 @@
 package ElevatorSystem;
 
 // Standard libray imports
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+// Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.RequestPriority;
+
 public class StopRequest implements Comparable<StopRequest>{
 
     //--------------------------------------
@@ -25,7 +31,22 @@ public class StopRequest implements Comparable<StopRequest>{
      */
     public StopRequest(int single_stop) {
         pick_up_floor_ = single_stop;
-        drop_off_floors_ = new HashSet<Integer>();
+        drop_off_floors_ = Collections.emptySet();
+        priority_ = RequestPriority.NORMAL;
+        direction_ = null;
+    }
+
+    /*!
+     * \brief Define a hall call from an up or down button, before the passengers have chosen their destination floors
+     *
+     * \param pick_up_floor The floor on which the hall button was pressed
+     * \param direction The hall button that was pressed
+     */
+    public StopRequest(int pick_up_floor, DirectionRequest direction) {
+        pick_up_floor_ = pick_up_floor;
+        drop_off_floors_ = Collections.emptySet();
+        priority_ = RequestPriority.NORMAL;
+        direction_ = direction;
     }
 
     /*!
@@ -37,8 +58,9 @@ public class StopRequest implements Comparable<StopRequest>{
      */
     public StopRequest(int pick_up_floor, int dest_floor) {
         pick_up_floor_ = pick_up_floor;
-        drop_off_floors_ = new HashSet<Integer>();
-        drop_off_floors_.add(dest_floor);
+        drop_off_floors_ = Collections.singleton(dest_floor);
+        priority_ = RequestPriority.NORMAL;
+        direction_ = null;
     }
 
 
@@ -53,7 +75,10 @@ public class StopRequest implements Comparable<StopRequest>{
      */
     public StopRequest(int pick_up_floor, Set<Integer> drop_off_floors) {
         pick_up_floor_ = pick_up_floor;
-        drop_off_floors_ = new HashSet<Integer>(drop_off_floors);
+        drop_off_floors_ = Collections.emptySet();
+        priority_ = RequestPriority.NORMAL;
+        direction_ = null;
+        add_drop_off_floors(drop_off_floors);
     }
 
     //--------------------------------------
@@ -104,6 +129,16 @@ public class StopRequest implements Comparable<StopRequest>{
         return drop_off_floors_.size();
     }
 
+    /*!
+     * \brief Return the number of passengers boarding or alighting for the StopRequest, which is one per drop off floor,
+     * or one for a stop with no drop off floors, such as a passenger alighting
+     *
+     * \return The number of passengers boarding or alighting for the StopRequest
+     */
+    public int get_num_passengers() {
+        return Math.max(1, drop_off_floors_.size());
+    }
+
     /*!
      * \brief Peek at the next floor in the StopRequest, without removing it from the queue
      *
@@ -116,10 +151,53 @@ public class StopRequest implements Comparable<StopRequest>{
     /*!
      * \brief Return the destination floors
      *
-     * \return The destination floors
+     * \return The destination floors, which cannot be changed
      */
     public Set<Integer> get_drop_off_floors() {
-        return drop_off_floors_;
+        // Empty and single floor sets are already immutable, so only a set of several floors needs wrapping
+        return drop_off_floors_ instanceof HashSet ? Collections.unmodifiableSet(drop_off_floors_) : drop_off_floors_;
+    }
+
+    /*!
+     * \brief Return the priority class of the stop request
+     *
+     * \return The priority class of the stop request
+     */
+    public RequestPriority get_priority() {
+        return priority_;
+    }
+
+    /*!
+     * \brief Set the priority class of the stop request, which defaults to RequestPriority.NORMAL
+     *
+     * \param priority The priority class of the stop request
+     */
+    public void set_priority(RequestPriority priority) {
+        priority_ = priority;
+    }
+
+    /*!
+     * \brief Return the direction the passengers want to travel from the pick up floor, which is the hall button that
+     * was pressed, or would have been pressed given the drop off floors
+     *
+     * \return The direction of travel, or null if there is no hall button and the drop off floors are missing or lie in
+     * both directions
+     */
+    public DirectionRequest get_direction() {
+        if (direction_ != null) {
+            return direction_;
+        }
+
+        DirectionRequest direction = null;
+        for (int floor : drop_off_floors_) {
+            DirectionRequest floor_direction = floor > pick_up_floor_ ? DirectionRequest.ASCENDING : DirectionRequest.DESCENDING;
+            if (floor == pick_up_floor_ || (direction != null && direction != floor_direction)) {
+                return null;
+            }
+            direction = floor_direction;
+        }
+
+        return direction;
     }
 
     /*!
@@ -130,7 +208,91 @@ public class StopRequest implements Comparable<StopRequest>{
     public void combine_destination_floors(StopRequest other) {
         // Only combine the destination floors if the origins are equal
         if (get_pick_up_floor() == other.get_pick_up_floor()) {
-            drop_off_floors_.addAll(other.get_drop_off_floors());
+            add_drop_off_floors(other.get_drop_off_floors());
+        }
+    }
+
+    /*!
+     * \brief Return the number of bytes needed to encode the StopRequest
+     *
+     * \return The number of bytes needed to encode the StopRequest
+     */
+    public int encoded_size() {
+        return (4 + drop_off_floors_.size()) * Integer.BYTES;
+    }
+
+    /*!
+     * \brief Encode the StopRequest into a buffer, as its pick up floor, its priority class, its hall button (-1 for
+     * none), its number of drop off floors, and then each drop off floor
+     *
+     * \param[inout] buffer Buffer the StopRequest is written to
+     */
+    public void write_to(ByteBuffer buffer) {
+        buffer.putInt(pick_up_floor_);
+        buffer.putInt(priority_.ordinal());
+        buffer.putInt(direction_ == null ? -1 : direction_.ordinal());
+        buffer.putInt(drop_off_floors_.size());
+        for (int floor : drop_off_floors_) {
+            buffer.putInt(floor);
+        }
+    }
+
+    /*!
+     * \brief Decode a StopRequest that was encoded by write_to()
+     *
+     * \param[inout] buffer Buffer the StopRequest is read from
+     *
+     * \return The decoded StopRequest
+     */
+    public static StopRequest read_from(ByteBuffer buffer) throws IllegalArgumentException {
+        int pick_up_floor = buffer.getInt();
+        int priority = buffer.getInt();
+        int direction = buffer.getInt();
+        int num_drop_off_floors = buffer.getInt();
+
+        // Error Checking
+        if (priority < 0 || priority >= RequestPriority.values().length) {
+            throw new IllegalArgumentException("StopRequest.read_from() - encoded priority class is invalid.");
+        }
+        if (direction < -1 || direction >= DirectionRequest.values().length) {
+            throw new IllegalArgumentException("StopRequest.read_from() - encoded hall button is invalid.");
+        }
+        if (num_drop_off_floors < 0 || num_drop_off_floors > buffer.remaining() / Integer.BYTES) {
+            throw new IllegalArgumentException("StopRequest.read_from() - encoded number of drop off floors is invalid.");
+        }
+
+        StopRequest stop = new StopRequest(pick_up_floor);
+        stop.priority_ = RequestPriority.values()[priority];
+        stop.direction_ = direction < 0 ? null : DirectionRequest.values()[direction];
+        for (int k = 0; k < num_drop_off_floors; k++) {
+            stop.add_drop_off_floors(Collections.singleton(buffer.getInt()));
+        }
+        return stop;
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Add destination floors, only taking a set of its own once the StopRequest has more than one
+     *
+     * \note Most requests have no drop off floor or a single one, so they share the empty set or hold a singleton
+     *
+     * \param drop_off_floors The destination floors being added
+     */
+    private void add_drop_off_floors(Set<Integer> drop_off_floors) {
+        if (drop_off_floors_.containsAll(drop_off_floors)) {
+            return;
+        }
+
+        if (drop_off_floors_.isEmpty() && drop_off_floors.size() == 1) {
+            drop_off_floors_ = Collections.singleton(drop_off_floors.iterator().next());
+        } else {
+            if (!(drop_off_floors_ instanceof HashSet)) {
+                drop_off_floors_ = new HashSet<Integer>(drop_off_floors_);
+            }
+            drop_off_floors_.addAll(drop_off_floors);
         }
     }
 
@@ -140,4 +302,6 @@ public class StopRequest implements Comparable<StopRequest>{
 
     private int pick_up_floor_;            //!< The floor at which members are getting picked up
     private Set<Integer> drop_off_floors_;    //!< The floors where those picked up wish to be dropped off
+    private RequestPriority priority_;        //!< The priority class of the stop request
+    private DirectionRequest direction_;      //!< The hall button that was pressed, or null if none was
 }
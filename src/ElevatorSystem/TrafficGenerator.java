@@ -0,0 +1,359 @@
+/*!
+ * \file TrafficGenerator.java
+ * \brief Defines a generator of synthetic passenger traffic for a building
+ */
+
+// Define package
+package ElevatorSystem;
+
+// Standard library imports
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// Elevator System imports
+import ElevatorSystem.StopRequest;
+import ElevatorSystem.TrafficPattern;
+
+/*!
+ * \brief Generates synthetic passenger traffic, as Poisson arrivals whose origin and destination floors are drawn from
+ * an origin-destination matrix
+ *
+ * \note The requests for a time step are produced lazily as a stream, so a simulation of any length never holds more
+ * than the requests it is adding. The random numbers for each time step are seeded from the generator's seed and the
+ * time step alone, so a given seed produces the same requests for a time step no matter which thread asks, in what
+ * order, or how many times. The generator must be configured before it is shared between threads
+ */
+public final class TrafficGenerator {
+
+    //--------------------------------------
+    // Constructors
+    //--------------------------------------
+
+    /*!
+     * \brief Construct a TrafficGenerator producing interfloor traffic, with one person on every floor above the lobby
+     *
+     * \param num_floors Number of floors in the building
+     * \param arrival_rate Mean number of passengers arriving each time step
+     * \param seed Seed for the random numbers
+     */
+    public TrafficGenerator(int num_floors, double arrival_rate, long seed) throws IllegalArgumentException {
+        // Error Checking
+        if (num_floors < 3) {
+            throw new IllegalArgumentException("TrafficGenerator() - num_floors value must be greater than 2.");
+        }
+
+        // Set values
+        num_floors_ = num_floors;
+        seed_ = seed;
+        populations_ = new double[num_floors + 1];
+        Arrays.fill(populations_, 2, num_floors + 1, 1.0);
+        set_arrival_rate(arrival_rate);
+        set_pattern(TrafficPattern.INTERFLOOR);
+    }
+
+
+    //--------------------------------------
+    // Class Methods
+    //--------------------------------------
+
+    /*!
+     * \brief Set the mean number of passengers arriving each time step
+     *
+     * \param arrival_rate Mean number of passengers arriving each time step
+     */
+    public void set_arrival_rate(double arrival_rate) throws IllegalArgumentException {
+        // Error Checking
+        if (!(arrival_rate >= 0.0) || Double.isInfinite(arrival_rate)) {
+            throw new IllegalArgumentException("TrafficGenerator.set_arrival_rate() - arrival_rate value must be a finite number of at least 0.");
+        }
+
+        arrival_rate_ = arrival_rate;
+    }
+
+    /*!
+     * \brief Set the population of each floor, which weights how often passengers leave from and head to it under the
+     * standard traffic patterns. The population of the lobby is not used
+     *
+     * \param populations Population of each floor, where element k is the population of floor k + 1
+     */
+    public void set_populations(int[] populations) throws IllegalArgumentException {
+        // Error Checking
+        if (populations.length != num_floors_) {
+            throw new IllegalArgumentException("TrafficGenerator.set_populations() - a population must be given for every floor.");
+        }
+
+        // Check every floor, and that the standard traffic patterns can still be built, before changing anything
+        double total = 0.0;
+        for (int floor = 1; floor <= num_floors_; floor++) {
+            if (populations[floor - 1] < 0) {
+                throw new IllegalArgumentException("TrafficGenerator.set_populations() - populations must not be negative.");
+            }
+            if (floor > 1) {
+                total += populations[floor - 1];
+            }
+        }
+        if (total <= 0.0) {
+            throw new IllegalArgumentException("TrafficGenerator.set_populations() - at least one floor above the lobby must have a population.");
+        }
+
+        for (int floor = 2; floor <= num_floors_; floor++) {
+            populations_[floor] = populations[floor - 1];
+        }
+        populations_[1] = 0.0;
+
+        // Rebuild the standard traffic pattern for the new populations
+        if (pattern_ != null) {
+            set_pattern(pattern_);
+        }
+    }
+
+    /*!
+     * \brief Give each floor above the lobby a random population, drawn from the generator's seed
+     *
+     * \param min_population Smallest population of a floor
+     * \param max_population Largest population of a floor
+     */
+    public void randomize_populations(int min_population, int max_population) throws IllegalArgumentException {
+        // Error Checking
+        if (min_population < 0 || max_population < min_population) {
+            throw new IllegalArgumentException("TrafficGenerator.randomize_populations() - populations must satisfy 0 <= min_population <= max_population.");
+        }
+
+        SplittableRandom random = new SplittableRandom(mix(seed_ ^ POPULATION_SALT));
+        int[] populations = new int[num_floors_];
+        for (int floor = 2; floor <= num_floors_; floor++) {
+            populations[floor - 1] = random.nextInt(min_population, max_population + 1);
+        }
+        set_populations(populations);
+    }
+
+    /*!
+     * \brief Set the traffic pattern, building its origin-destination matrix from the floor populations
+     *
+     * \param pattern The traffic pattern
+     */
+    public void set_pattern(TrafficPattern pattern) throws IllegalArgumentException {
+        // Error Checking
+        if (population_total() <= 0.0) {
+            throw new IllegalArgumentException("TrafficGenerator.set_pattern() - at least one floor above the lobby must have a population.");
+        }
+
+        double[][] weights = new double[num_floors_][num_floors_];
+        switch (pattern) {
+            case TrafficPattern.INTERFLOOR: {
+                add_interfloor(weights, 1.0);
+                break;
+            }
+            case TrafficPattern.UP_PEAK: {
+                add_up_peak(weights, 1.0);
+                break;
+            }
+            case TrafficPattern.DOWN_PEAK: {
+                add_down_peak(weights, 1.0);
+                break;
+            }
+            case TrafficPattern.LUNCH: {
+                add_up_peak(weights, LUNCH_LOBBY_SHARE);
+                add_down_peak(weights, LUNCH_LOBBY_SHARE);
+                add_interfloor(weights, 1.0 - 2.0 * LUNCH_LOBBY_SHARE);
+                break;
+            }
+        }
+
+        set_origin_destination(weights);
+        pattern_ = pattern;
+    }
+
+    /*!
+     * \brief Set an origin-destination matrix directly, in place of a standard traffic pattern
+     *
+     * \param weights Relative number of passengers travelling between each pair of floors, where element [o][d] is for
+     * passengers leaving floor o + 1 for floor d + 1
+     */
+    public void set_origin_destination(double[][] weights) throws IllegalArgumentException {
+        // Error Checking
+        if (weights.length != num_floors_) {
+            throw new IllegalArgumentException("TrafficGenerator.set_origin_destination() - a row must be given for every floor.");
+        }
+
+        // Flatten the matrix into a cumulative table, which each passenger is drawn from with a binary search
+        double[] cumulative = new double[num_floors_ * num_floors_];
+        double total = 0.0;
+        for (int origin = 0; origin < num_floors_; origin++) {
+            if (weights[origin].length != num_floors_) {
+                throw new IllegalArgumentException("TrafficGenerator.set_origin_destination() - a column must be given for every floor.");
+            }
+
+            for (int destination = 0; destination < num_floors_; destination++) {
+                double weight = weights[origin][destination];
+                if (!(weight >= 0.0) || Double.isInfinite(weight) || (weight > 0.0 && origin == destination)) {
+                    throw new IllegalArgumentException("TrafficGenerator.set_origin_destination() - weights must be finite, not negative, and 0 on the diagonal.");
+                }
+                total += weight;
+                cumulative[origin * num_floors_ + destination] = total;
+            }
+        }
+
+        if (total <= 0.0) {
+            throw new IllegalArgumentException("TrafficGenerator.set_origin_destination() - at least one weight must be greater than 0.");
+        }
+        cumulative_ = cumulative;
+        total_weight_ = total;
+        pattern_ = null;
+    }
+
+    /*!
+     * \brief Return the traffic pattern, or null if an origin-destination matrix was set directly
+     *
+     * \return The traffic pattern
+     */
+    public TrafficPattern get_pattern() {
+        return pattern_;
+    }
+
+    /*!
+     * \brief Return the mean number of passengers arriving each time step
+     *
+     * \return The mean number of passengers arriving each time step
+     */
+    public double get_arrival_rate() {
+        return arrival_rate_;
+    }
+
+    /*!
+     * \brief Return the number of passengers arriving at a time step
+     *
+     * \param tick The time step
+     *
+     * \return The number of passengers arriving at the time step
+     */
+    public int get_num_arrivals(long tick) {
+        return next_num_arrivals(tick_random(tick));
+    }
+
+    /*!
+     * \brief Return the requests of the passengers arriving at a time step, produced lazily as the stream is consumed
+     *
+     * \param tick The time step
+     *
+     * \return The requests of the passengers arriving at the time step
+     */
+    public Stream<StopRequest> requests(long tick) {
+        SplittableRandom random = tick_random(tick);
+        return Stream.generate(() -> next_request(random)).limit(next_num_arrivals(random));
+    }
+
+    //--------------------------------------
+    // Private Class Methods
+    //--------------------------------------
+
+    //! Return the random number generator for a time step, which depends only on the seed and the time step
+    private SplittableRandom tick_random(long tick) {
+        return new SplittableRandom(mix(seed_ + tick * GOLDEN_GAMMA));
+    }
+
+    /*!
+     * \brief Draw a Poisson distributed number of arrivals, splitting large rates so exp(-rate) never underflows
+     *
+     * \param random Random number generator for the time step
+     *
+     * \return The number of arrivals
+     */
+    private int next_num_arrivals(SplittableRandom random) {
+        int num_arrivals = 0;
+        double remaining_rate = arrival_rate_;
+        while (remaining_rate > 0.0) {
+            double rate = Math.min(remaining_rate, MAX_POISSON_RATE);
+            remaining_rate -= rate;
+
+            // Multiply uniform numbers until the product drops below exp(-rate)
+            double limit = Math.exp(-rate);
+            double product = random.nextDouble();
+            while (product > limit) {
+                num_arrivals += 1;
+                product *= random.nextDouble();
+            }
+        }
+
+        return num_arrivals;
+    }
+
+    //! Draw the origin and destination of one passenger from the origin-destination matrix
+    private StopRequest next_request(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative_, random.nextDouble() * total_weight_);
+        index = index < 0 ? -index - 1 : index + 1;
+
+        // Skip the empty pairs that share a cumulative total with the pair drawn
+        while (index < cumulative_.length - 1 && cumulative_[index] == (index == 0 ? 0.0 : cumulative_[index - 1])) {
+            index += 1;
+        }
+        return new StopRequest(index / num_floors_ + 1, index % num_floors_ + 1);
+    }
+
+    //! Add passengers leaving the lobby for each floor in proportion to its population, making up the given share
+    private void add_up_peak(double[][] weights, double share) {
+        double total = population_total();
+        for (int floor = 2; floor <= num_floors_; floor++) {
+            weights[0][floor - 1] += share * populations_[floor] / total;
+        }
+    }
+
+    //! Add passengers heading to the lobby from each floor in proportion to its population, making up the given share
+    private void add_down_peak(double[][] weights, double share) {
+        double total = population_total();
+        for (int floor = 2; floor <= num_floors_; floor++) {
+            weights[floor - 1][0] += share * populations_[floor] / total;
+        }
+    }
+
+    //! Add passengers travelling between the upper floors in proportion to both populations, making up the given share
+    private void add_interfloor(double[][] weights, double share) {
+        double total = 0.0;
+        for (int origin = 2; origin <= num_floors_; origin++) {
+            total += populations_[origin] * (population_total() - populations_[origin]);
+        }
+
+        for (int origin = 2; origin <= num_floors_; origin++) {
+            for (int destination = 2; destination <= num_floors_; destination++) {
+                if (origin != destination && total > 0.0) {
+                    weights[origin - 1][destination - 1] += share * populations_[origin] * populations_[destination] / total;
+                }
+            }
+        }
+    }
+
+    //! Return the population of the floors above the lobby
+    private double population_total() {
+        double total = 0.0;
+        for (int floor = 2; floor <= num_floors_; floor++) {
+            total += populations_[floor];
+        }
+
+        return total;
+    }
+
+    //! Scramble a seed, so that nearby seeds give unrelated random numbers
+    private static long mix(long seed) {
+        seed = (seed ^ (seed >>> 30)) * 0xbf58476d1ce4e5b9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94d049bb133111ebL;
+        return seed ^ (seed >>> 31);
+    }
+
+    //--------------------------------------
+    // Class Attributes
+    //--------------------------------------
+
+    private int num_floors_;            //!< Number of floors in the building
+    private long seed_;                 //!< Seed for the random numbers
+    private double arrival_rate_;       //!< Mean number of passengers arriving each time step
+    private double[] populations_;      //!< Population of each floor, indexed by floor number
+    private TrafficPattern pattern_;    //!< Traffic pattern, or null if an origin-destination matrix was set directly
+    private double[] cumulative_;       //!< Cumulative weight of each origin-destination pair, indexed by origin * num_floors + destination
+    private double total_weight_;       //!< Total weight of the origin-destination matrix
+
+    private static final double LUNCH_LOBBY_SHARE = 0.4;            //!< Share of lunch traffic in each direction to and from the lobby
+    private static final double MAX_POISSON_RATE = 30.0;            //!< Largest rate drawn in one piece
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;   //!< Odd constant spreading consecutive time steps apart
+    private static final long POPULATION_SALT = 0x5deece66dL;       //!< Separates the population draw from the time steps
+}
@@ -0,0 +1,15 @@
+/*!
+ * \file TrafficPattern.java
+ * \brief Defines the standard building traffic patterns produced by a TrafficGenerator
+ */
+
+// Define package
+package ElevatorSystem;
+
+//! Defines the standard building traffic patterns produced by a TrafficGenerator, with floor 1 as the lobby
+public enum TrafficPattern {
+    INTERFLOOR, //!< Passengers travel between the upper floors, leaving from and heading to floors in proportion to their populations
+    UP_PEAK,    //!< Morning traffic, where every passenger leaves the lobby for a floor picked in proportion to its population
+    DOWN_PEAK,  //!< Evening traffic, where every passenger heads to the lobby from a floor picked in proportion to its population
+    LUNCH       //!< Midday traffic, mostly to and from the lobby in equal parts, with some interfloor traffic
+}
@@ -0,0 +1,238 @@
+// Standard Library Imports
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Random;
+
+// Elevator System imports
+import ElevatorSystem.DistributedElevatorController;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.ElevatorNode;
+import ElevatorSystem.ElevatorProfile;
+import ElevatorSystem.ElevatorState;
+import ElevatorSystem.StopRequest;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class DistributedControllerTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test a building split across two nodes
+            test_two_nodes(false);
+
+            // Test that a burst of calls in one tick is spread over the fleet like a local controller would
+            test_burst(false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_two_nodes(true);
+                    break;
+                }
+                case "2": {
+                    test_tick_latency(true);
+                    break;
+                }
+                case "3": {
+                    test_burst(true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 3.");
+                }
+            }
+        }
+    }
+
+    /*!
+     * \brief Start a node on the loopback interface, running it on its own thread
+     *
+     * \param num_floors Number of floors in the building
+     * \param num_elevators Number of elevators run by the node
+     *
+     * \return The running node
+     */
+    private static ElevatorNode start_node(int num_floors, int num_elevators) throws Exception {
+        ArrayList<ElevatorProfile> profiles = new ArrayList<ElevatorProfile>();
+        for (int k = 0; k < num_elevators; k++) {
+            profiles.add(new ElevatorProfile());
+        }
+
+        ElevatorNode node = new ElevatorNode(0, num_floors, profiles);
+        Thread thread = new Thread(node, "ElevatorNode " + Integer.toString(node.get_port()));
+        thread.setDaemon(true);
+        thread.start();
+        return node;
+    }
+
+    //! Test a 10 floor building with two elevators on each of two nodes
+    public static void test_two_nodes(boolean debug) throws Exception {
+        // Start the nodes and connect to them
+        ElevatorNode node1 = start_node(10, 2);
+        ElevatorNode node2 = start_node(10, 2);
+        ArrayList<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        addresses.add(new InetSocketAddress("127.0.0.1", node1.get_port()));
+        addresses.add(new InetSocketAddress("127.0.0.1", node2.get_port()));
+        DistributedElevatorController controller = new DistributedElevatorController(10, addresses);
+
+        // Add requests that need more than one node's elevators
+        controller.add_stop(new StopRequest(6, 1));
+        controller.add_stop(new StopRequest(7, 2));
+        controller.add_stop(new StopRequest(8, 3));
+        controller.add_stop(new StopRequest(9, 4));
+        controller.add_stop(new StopRequest(3, 10));
+
+        // Step through until the whole system is inactive
+        int step = 0;
+        while (controller.is_active()) {
+            controller.step();
+            step += 1;
+
+            if (debug) {
+                controller.display_status();
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (step > 100) {
+                throw new Exception("The distributed system should have finished within 100 time steps.");
+            }
+        }
+
+        if (debug) {
+            System.out.println("Finished in " + Integer.toString(step) + " time steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (controller.get_num_elevators() != 4) {
+            throw new Exception("The coordinator should see 4 elevators.");
+        } else if (controller.get_num_served() != 5) {
+            throw new Exception("All 5 calls should have been picked up.");
+        }
+
+        controller.close();
+        node1.close();
+        node2.close();
+    }
+
+    //! Report the time taken per tick as the number of nodes grows, with 4 elevators per node
+    public static void test_tick_latency(boolean debug) throws Exception {
+        int num_floors = 50;
+        int num_ticks = 2000;
+
+        for (int num_nodes = 1; num_nodes <= 8; num_nodes *= 2) {
+            // Start the nodes and connect to them
+            ArrayList<ElevatorNode> nodes = new ArrayList<ElevatorNode>();
+            ArrayList<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+            for (int k = 0; k < num_nodes; k++) {
+                ElevatorNode node = start_node(num_floors, 4);
+                nodes.add(node);
+                addresses.add(new InetSocketAddress("127.0.0.1", node.get_port()));
+            }
+            DistributedElevatorController controller = new DistributedElevatorController(num_floors, addresses);
+
+            // Drive one random call per node per tick, timing each tick
+            Random random = new Random(num_nodes);
+            long max_tick_ns = 0;
+            long start_ns = System.nanoTime();
+            for (int tick = 0; tick < num_ticks; tick++) {
+                for (int k = 0; k < num_nodes; k++) {
+                    int pick_up_floor = 1 + random.nextInt(num_floors);
+                    int drop_off_floor = 1 + random.nextInt(num_floors);
+                    controller.add_stop(new StopRequest(pick_up_floor, drop_off_floor));
+                }
+
+                long tick_start_ns = System.nanoTime();
+                controller.step();
+                max_tick_ns = Math.max(max_tick_ns, System.nanoTime() - tick_start_ns);
+            }
+            long elapsed_ns = System.nanoTime() - start_ns;
+
+            if (debug) {
+                System.out.println("Nodes: " + Integer.toString(num_nodes)
+                        + ", Elevators: " + Integer.toString(controller.get_num_elevators())
+                        + ", Mean tick: " + Long.toString(elapsed_ns / num_ticks / 1000) + " us"
+                        + ", Max tick: " + Long.toString(max_tick_ns / 1000) + " us");
+            }
+
+            controller.close();
+            for (ElevatorNode node : nodes) {
+                node.close();
+            }
+        }
+    }
+
+    //! Test that a burst of calls in one tick is spread over the fleet like a local controller would, in two frames per node
+    public static void test_burst(boolean debug) throws Exception {
+        // Start the nodes and connect to them
+        ElevatorNode node1 = start_node(10, 2);
+        ElevatorNode node2 = start_node(10, 2);
+        ArrayList<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        addresses.add(new InetSocketAddress("127.0.0.1", node1.get_port()));
+        addresses.add(new InetSocketAddress("127.0.0.1", node2.get_port()));
+        DistributedElevatorController controller = new DistributedElevatorController(10, addresses);
+        ElevatorController local_controller = new ElevatorController(10, 4);
+
+        // Four calls arrive in the same tick, while every elevator is idle on the first floor
+        int[][] calls = {{3, 8}, {4, 9}, {5, 10}, {2, 7}};
+        for (int[] call : calls) {
+            controller.add_stop(new StopRequest(call[0], call[1]));
+            local_controller.add_stop(new StopRequest(call[0], call[1]));
+        }
+
+        // The calls should be spread over the elevators just as the local controller spreads them
+        controller.step();
+        local_controller.step();
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (controller.get_num_frames_sent() != 2 * addresses.size()) {
+            throw new Exception("Each node should have been sent one bid frame and one tick frame for the burst, not "
+                    + Long.toString(controller.get_num_frames_sent()) + " frames in all.");
+        }
+        int num_moving = 0;
+        for (int k = 0; k < 4; k++) {
+            if (debug) {
+                System.out.println("Elevator " + Integer.toString(k + 1) + ": " + controller.get_elevator_state(k).toString()
+                        + ", local " + local_controller.get_elevators().get(k).get_elevator_state().toString());
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (controller.get_elevator_state(k) != local_controller.get_elevators().get(k).get_elevator_state()) {
+                throw new Exception("Elevator " + Integer.toString(k + 1) + " should match the local controller.");
+            }
+            if (controller.get_elevator_state(k) != ElevatorState.IDLE) {
+                num_moving += 1;
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (num_moving < 3) {
+            throw new Exception("The calls should have been spread over at least 3 elevators, not " + Integer.toString(num_moving) + ".");
+        }
+
+        // Both systems should finish at the same time step
+        int step = 1;
+        while (controller.is_active() || local_controller.is_active()) {
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (controller.is_active() != local_controller.is_active()) {
+                throw new Exception("The distributed and local controllers should finish at the same time step, not " + Integer.toString(step) + ".");
+            }
+            controller.step();
+            local_controller.step();
+            step += 1;
+        }
+
+        if (debug) {
+            System.out.println("Finished in " + Integer.toString(step) + " time steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (controller.get_num_served() != calls.length) {
+            throw new Exception("All " + Integer.toString(calls.length) + " calls should have been picked up.");
+        }
+
+        controller.close();
+        node1.close();
+        node2.close();
+    }
+}
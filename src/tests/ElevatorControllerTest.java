@@ -1,11 +1,25 @@
 // Standard Library Imports
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 // Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.DispatchMode;
 import ElevatorSystem.Elevator;
 import ElevatorSystem.ElevatorController;
+import ElevatorSystem.ElevatorProfile;
+import ElevatorSystem.ElevatorSnapshot;
 import ElevatorSystem.ElevatorState;
+import ElevatorSystem.FleetSnapshot;
+import ElevatorSystem.RequestPriority;
 import ElevatorSystem.StopRequest;
+import ElevatorSystem.TrafficGenerator;
+import ElevatorSystem.TrafficPattern;
 
 // Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
 public class ElevatorControllerTest {
@@ -17,6 +31,42 @@ public class ElevatorControllerTest {
             // Test the case where no move is required
             test_initialization(false);
 
+            // Test a stream of random requests
+            test_random_requests(false);
+
+            // Test that long trips are dispatched to fast and express cars
+            test_heterogeneous_fleet(false);
+
+            // Test that a pending pick up moves to an idle elevator once its owner gets busy
+            test_reassignment(false);
+
+            // Test that repeated hall button presses join the active hall call
+            test_hall_call_registry(false);
+
+            // Test that rollout dispatch serves a stream of random requests
+            test_rollout_dispatch(false);
+
+            // Test that emergency calls get a bounded wait in a saturated building
+            test_priority_classes(false);
+
+            // Test a building with a shared shaft and double-deck cars
+            test_shared_shaft(false);
+
+            // Test that destination dispatch groups passengers heading to the same floors
+            test_destination_dispatch(false);
+
+            // Test that a monitoring thread always reads a coherent snapshot of the fleet
+            test_snapshots(false);
+
+            // Test cancelling and expiring pick ups
+            test_cancellation(false);
+
+            // Test that spacing control spreads idle elevators and shortens waits at peak times
+            test_spacing(false);
+
+            // Test that a wait deadline bounds the tail of the waits
+            test_wait_deadline(false);
+
         } else if (args.length == 1) {
             switch (args[0]) {
                 case "1": {
@@ -32,10 +82,55 @@ public class ElevatorControllerTest {
                     break;
                 }
                 case "4": {
+                    test_random_requests(true);
+                    break;
+                }
+                case "5": {
+                    test_heterogeneous_fleet(true);
+                    break;
+                }
+                case "6": {
+                    test_reassignment(true);
+                    break;
+                }
+                case "7": {
+                    test_hall_call_registry(true);
+                    break;
+                }
+                case "8": {
+                    test_rollout_dispatch(true);
+                    break;
+                }
+                case "9": {
+                    test_priority_classes(true);
+                    break;
+                }
+                case "10": {
+                    test_shared_shaft(true);
+                    break;
+                }
+                case "11": {
+                    test_destination_dispatch(true);
+                    break;
+                }
+                case "12": {
+                    test_snapshots(true);
+                    break;
+                }
+                case "13": {
+                    test_cancellation(true);
+                    break;
+                }
+                case "14": {
+                    test_spacing(true);
+                    break;
+                }
+                case "15": {
+                    test_wait_deadline(true);
                     break;
                 }
                 default: {
-                    throw new Exception("Test case must be a number from 1 to 4.");
+                    throw new Exception("Test case must be a number from 1 to 15.");
                 }
             }
         }
@@ -163,4 +258,774 @@ public class ElevatorControllerTest {
             }
         }
     }
+
+    //! Test a stream of random requests, checking that every elevator stays in the building and everyone is served
+    public static void test_random_requests(boolean debug) throws Exception {
+        // Get default elevator
+        ElevatorController elevator_controller = get_default_elevator_controller();
+        Random random = new Random(42);
+
+        // Add a random request every other time step
+        int step = 0;
+        for (int k = 0; k < 10000; k++) {
+            int pick_up_floor = 1 + random.nextInt(10);
+            int drop_off_floor = 1 + random.nextInt(10);
+            elevator_controller.add_stop(new StopRequest(pick_up_floor, drop_off_floor));
+
+            for (int n = 0; n < 2; n++) {
+                elevator_controller.step();
+                step += 1;
+
+                // This would normally be a junit assert statement, but didn't have time to get that set up
+                for (Elevator elevator : elevator_controller.get_elevators()) {
+                    if (elevator.get_current_floor() < 1 || elevator.get_current_floor() > 10) {
+                        throw new Exception(elevator.get_name() + " left the building at time step " + Integer.toString(step) + ".");
+                    }
+                }
+            }
+        }
+
+        // Step through until the whole system is inactive
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+            step += 1;
+        }
+
+        if (debug) {
+            System.out.println("Served 10000 random requests in " + Integer.toString(step) + " time steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_pending() != 0) {
+            throw new Exception("Every random request should have been picked up.");
+        }
+    }
+
+    //! Test that a mixed fleet sends long trips to the fast car, and trips an express car skips to a standard car
+    public static void test_heterogeneous_fleet(boolean debug) throws Exception {
+        // Make a building with a slow car, a fast car, and a fast express car serving the lobby and the top floors
+        HashSet<Integer> express_floors = new HashSet<Integer>() {{
+            add(1);
+            for (int floor = 15; floor <= 20; floor++) {
+                add(floor);
+            }
+        }};
+        ArrayList<ElevatorProfile> profiles = new ArrayList<ElevatorProfile>();
+        profiles.add(new ElevatorProfile(2, 2));
+        profiles.add(new ElevatorProfile(1, 2));
+        profiles.add(new ElevatorProfile(1, 1, express_floors));
+        ElevatorController elevator_controller = new ElevatorController(20, profiles);
+
+        // A trip to the 10th floor is skipped by the express car, so it should go to the fast car
+        elevator_controller.add_stop(new StopRequest(1, 10));
+
+        // A trip to the 20th floor should go to the express car, which now beats the busy fast car
+        elevator_controller.add_stop(new StopRequest(1, 20));
+
+        if (debug) {
+            elevator_controller.display_status();
+        }
+
+        // Step through until the whole system is inactive
+        int step = 0;
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+            step += 1;
+
+            if (debug) {
+                elevator_controller.display_status();
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (step != 20) {
+            throw new Exception("The express car should finish the trip to the 20th floor in 20 time steps.");
+        }
+    }
+
+    //! Test that a pending pick up moves to an idle elevator once its owner picks up other work on the way
+    public static void test_reassignment(boolean debug) throws Exception {
+        // Make a 20 floor building, moving pick ups every 2 time steps when another car is 3 time steps quicker
+        ElevatorController elevator_controller = new ElevatorController(20, 2);
+        elevator_controller.set_reassignment(2, 3, 6);
+
+        // Send elevator 1 to the top floor and wait for it to arrive
+        elevator_controller.add_stop(new StopRequest(20));
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+        }
+
+        // Elevator 2 takes a group on the 2nd floor, and then the nearby pick up on the 8th floor
+        HashSet<Integer> dest_floors = new HashSet<Integer>() {{
+            for (int floor = 3; floor <= 9; floor++) {
+                add(floor);
+            }
+        }};
+        elevator_controller.add_stop(new StopRequest(2, dest_floors));
+        elevator_controller.add_stop(new StopRequest(8, 9));
+
+        if (debug) {
+            elevator_controller.display_status();
+        }
+
+        // Step through until the whole system is inactive. Once the group boards, their stops delay elevator 2 enough
+        // that the idle elevator 1 should take over the pick up on the 8th floor
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+
+            if (debug) {
+                elevator_controller.display_status();
+            }
+        }
+
+        if (debug) {
+            System.out.println("Reassignments: " + Integer.toString(elevator_controller.get_num_reassignments()));
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_reassignments() != 1) {
+            throw new Exception("The pick up on the 8th floor should have moved to elevator 1 exactly once.");
+        } else if (elevator_controller.get_num_pending() != 0) {
+            throw new Exception("Every pick up should have been reached.");
+        }
+
+        // In this traffic the two cars trade the lead for the pick up on the 12th floor, which would be moved back on the
+        // very next pass if the cooldown were only as long as the period
+        int cooldown = 6;
+        ElevatorController trading_controller = new ElevatorController(20, 2);
+        trading_controller.set_reassignment(2, 1, cooldown);
+        int[][] requests = {{2, 8, 9}, {2, 14, 10}, {4, 12, 2}, {8, 11, 10}, {10, 16, 20}};   // Time step, pick up, drop off
+        StopRequest traded = null;
+        int owner = -1;
+        int num_moves = 0;
+        long moved_time = 0;
+        for (int step = 0; step < 200 && (step < 11 || trading_controller.is_active()); step++) {
+            for (int[] request : requests) {
+                if (request[0] == step) {
+                    StopRequest stop = new StopRequest(request[1], request[2]);
+                    trading_controller.add_stop(stop);
+                    traded = request[1] == 12 ? stop : traded;
+                }
+            }
+            trading_controller.step();
+
+            // Follow the pick up from car to car until it is reached
+            int new_owner = -1;
+            for (int k = 0; traded != null && k < 2; k++) {
+                if (trading_controller.get_elevators().get(k).has_stop(traded)) {
+                    new_owner = k;
+                }
+            }
+            if (owner >= 0 && new_owner >= 0 && new_owner != owner) {
+                if (debug) {
+                    System.out.println("Time step " + Integer.toString(step + 1) + ": pick up on the 12th floor moved to elevator " + Integer.toString(new_owner + 1));
+                }
+
+                // This would normally be a junit assert statement, but didn't have time to get that set up
+                if (num_moves > 0 && step + 1 - moved_time < cooldown) {
+                    throw new Exception("The pick up on the 12th floor should not move again before its cooldown is over.");
+                }
+                num_moves += 1;
+                moved_time = step + 1;
+            }
+            owner = new_owner >= 0 ? new_owner : owner;
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (num_moves == 0) {
+            throw new Exception("The pick up on the 12th floor should have moved to the car that took the lead.");
+        } else if (trading_controller.get_num_pending() != 0) {
+            throw new Exception("Every pick up should have been reached.");
+        }
+    }
+
+    //! Test that repeated presses of a hall button join the active hall call, which clears once the elevator arrives
+    public static void test_hall_call_registry(boolean debug) throws Exception {
+        // Get default elevator
+        ElevatorController elevator_controller = get_default_elevator_controller();
+
+        // Press the up button on the 6th floor several times, and the down button once
+        elevator_controller.add_stop(new StopRequest(6, 9));
+        elevator_controller.add_stop(new StopRequest(6, 9));
+        elevator_controller.add_stop(new StopRequest(6, 8));
+        elevator_controller.add_stop(new StopRequest(6, 2));
+
+        Elevator up_owner = elevator_controller.get_hall_call_owner(6, DirectionRequest.ASCENDING);
+        Elevator down_owner = elevator_controller.get_hall_call_owner(6, DirectionRequest.DESCENDING);
+        if (debug) {
+            System.out.println("Merged calls: " + Integer.toString(elevator_controller.get_num_merged_calls()));
+            System.out.println("Up call owner: " + up_owner.get_name());
+            System.out.println("Down call owner: " + down_owner.get_name());
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_merged_calls() != 2) {
+            throw new Exception("The repeated up presses should have joined the first one.");
+        } else if (up_owner == null || down_owner == null) {
+            throw new Exception("Both hall calls should be owned by an elevator.");
+        } else if (elevator_controller.get_num_pending() != 2) {
+            throw new Exception("Only one pick up should be pending per hall call.");
+        }
+
+        // Step through until the whole system is inactive
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+
+            if (debug) {
+                elevator_controller.display_status();
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_hall_call_owner(6, DirectionRequest.ASCENDING) != null) {
+            throw new Exception("The up hall call should have cleared when the elevator arrived.");
+        } else if (elevator_controller.get_hall_call_owner(6, DirectionRequest.DESCENDING) != null) {
+            throw new Exception("The down hall call should have cleared when the elevator arrived.");
+        }
+    }
+
+    //! Test that rollout dispatch serves the same random requests as estimated time dispatch, and compare the two
+    public static void test_rollout_dispatch(boolean debug) throws Exception {
+        for (DispatchMode dispatch_mode : DispatchMode.values()) {
+            // Get default elevator
+            ElevatorController elevator_controller = get_default_elevator_controller();
+            elevator_controller.set_dispatch_mode(dispatch_mode);
+            Random random = new Random(7);
+
+            // Add a random request every other time step, timing the dispatch
+            int step = 0;
+            long dispatch_ns = 0;
+            for (int k = 0; k < 2000; k++) {
+                int pick_up_floor = 1 + random.nextInt(10);
+                int drop_off_floor = 1 + random.nextInt(10);
+                StopRequest stop = new StopRequest(pick_up_floor, drop_off_floor);
+
+                long start_ns = System.nanoTime();
+                elevator_controller.add_stop(stop);
+                dispatch_ns += System.nanoTime() - start_ns;
+
+                for (int n = 0; n < 2; n++) {
+                    elevator_controller.step();
+                    step += 1;
+                }
+            }
+
+            // Step through until the whole system is inactive
+            while (elevator_controller.is_active()) {
+                elevator_controller.step();
+                step += 1;
+            }
+
+            if (debug) {
+                System.out.println(dispatch_mode.toString() + ": served 2000 random requests in " + Integer.toString(step)
+                        + " time steps, " + Long.toString(dispatch_ns / 2000 / 1000) + " us per dispatch.");
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (elevator_controller.get_num_pending() != 0) {
+                throw new Exception("Every random request should have been picked up.");
+            }
+        }
+    }
+
+    //! Test that emergency calls are picked up within a bounded wait while the building is saturated with normal calls
+    public static void test_priority_classes(boolean debug) throws Exception {
+        // Get default elevator
+        ElevatorController elevator_controller = get_default_elevator_controller();
+        Random random = new Random(11);
+
+        // Add two normal requests every time step, which is more than the building can serve, plus an emergency call every
+        // 25 time steps
+        for (int step = 0; step < 2000; step++) {
+            for (int k = 0; k < 2; k++) {
+                elevator_controller.add_stop(new StopRequest(1 + random.nextInt(10), 1 + random.nextInt(10)));
+            }
+            if (step % 25 == 0) {
+                StopRequest emergency = new StopRequest(1 + random.nextInt(10), 1 + random.nextInt(10));
+                emergency.set_priority(RequestPriority.EMERGENCY);
+                elevator_controller.add_stop(emergency);
+            }
+            elevator_controller.step();
+        }
+
+        // Step through until the whole system is inactive
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+        }
+
+        if (debug) {
+            for (RequestPriority priority : RequestPriority.values()) {
+                System.out.println(priority.toString() + ": " + Long.toString(elevator_controller.get_num_picked_up(priority)) + " picked up, mean wait "
+                        + String.format("%.1f", elevator_controller.get_mean_wait(priority)) + ", max wait " + Long.toString(elevator_controller.get_max_wait(priority)) + " time steps");
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_pending() != 0) {
+            throw new Exception("Every request should have been picked up.");
+        } else if (elevator_controller.get_num_picked_up(RequestPriority.EMERGENCY) != 80) {
+            throw new Exception("Every emergency call should have been picked up.");
+        } else if (elevator_controller.get_max_wait(RequestPriority.EMERGENCY) > 20) {
+            throw new Exception("An emergency call should never wait more than 20 time steps.");
+        } else if (elevator_controller.get_max_wait(RequestPriority.NORMAL) <= elevator_controller.get_max_wait(RequestPriority.EMERGENCY)) {
+            throw new Exception("Normal calls should wait longer than emergency calls in a saturated building.");
+        }
+    }
+
+    //! Test that two cars sharing a shaft stay in their zones, while a double-deck car and a standard car take the rest
+    public static void test_shared_shaft(boolean debug) throws Exception {
+        // Make a 20 floor building with a standard car, a double-deck car, and two cars stacked in one shaft
+        HashSet<Integer> low_zone = new HashSet<Integer>();
+        HashSet<Integer> high_zone = new HashSet<Integer>();
+        for (int floor = 1; floor <= 20; floor++) {
+            (floor <= 10 ? low_zone : high_zone).add(floor);
+        }
+        ArrayList<ElevatorProfile> profiles = new ArrayList<ElevatorProfile>();
+        profiles.add(new ElevatorProfile());
+        profiles.add(new ElevatorProfile(1, 2, null, 2));
+        profiles.add(new ElevatorProfile(1, 2, low_zone));
+        profiles.add(new ElevatorProfile(1, 2, high_zone));
+        ElevatorController elevator_controller = new ElevatorController(20, profiles);
+
+        // The standard and double-deck cars can both reach every floor, so they cannot share a shaft
+        boolean rejected = false;
+        try {
+            elevator_controller.share_shaft(0, 1);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        elevator_controller.share_shaft(2, 3);
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (!rejected) {
+            throw new Exception("Cars with overlapping zones should not be able to share a shaft.");
+        } else if (elevator_controller.get_num_shafts() != 3) {
+            throw new Exception("The building should have 3 shafts.");
+        }
+
+        // Add a random request every other time step, checking that the stacked cars stay in order
+        List<Elevator> elevators = elevator_controller.get_elevators();
+        Random random = new Random(21);
+        int step = 0;
+        for (int k = 0; k < 5000 || elevator_controller.is_active(); k++) {
+            if (k < 5000) {
+                elevator_controller.add_stop(new StopRequest(1 + random.nextInt(20), 1 + random.nextInt(20)));
+            }
+
+            for (int n = 0; n < 2; n++) {
+                elevator_controller.step();
+                step += 1;
+
+                // This would normally be a junit assert statement, but didn't have time to get that set up
+                int low_floor = elevators.get(2).get_current_floor();
+                int high_floor = elevators.get(3).get_current_floor();
+                if (low_floor > 10 || high_floor < 11) {
+                    throw new Exception("The stacked cars left their zones at time step " + Integer.toString(step) + ".");
+                }
+            }
+        }
+
+        if (debug) {
+            System.out.println("Served 5000 random requests in " + Integer.toString(step) + " time steps, mean wait "
+                    + String.format("%.1f", elevator_controller.get_mean_wait(RequestPriority.NORMAL)) + " time steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_pending() != 0) {
+            throw new Exception("Every random request should have been picked up.");
+        }
+    }
+
+    //! Test that destination dispatch needs fewer stops than estimated time dispatch to serve morning up peak traffic
+    public static void test_destination_dispatch(boolean debug) throws Exception {
+        int[] num_stops = new int[2];
+        DispatchMode[] dispatch_modes = {DispatchMode.ESTIMATED_TIME, DispatchMode.DESTINATION};
+        for (int m = 0; m < dispatch_modes.length; m++) {
+            ElevatorController elevator_controller = new ElevatorController(20, 4);
+            elevator_controller.set_dispatch_mode(dispatch_modes[m]);
+            Random random = new Random(9);
+
+            // Passengers arrive in the lobby, each heading to a random floor, and every stop an elevator makes is counted
+            int step = 0;
+            for (int k = 0; k < 6000 || elevator_controller.is_active(); k++) {
+                if (k < 6000) {
+                    elevator_controller.add_stop(new StopRequest(1, 2 + random.nextInt(19)));
+                }
+                if (k % 3 == 0 || k >= 6000) {
+                    elevator_controller.step();
+                    step += 1;
+                    for (Elevator elevator : elevator_controller.get_elevators()) {
+                        if (!elevator.get_served_stops().isEmpty()) {
+                            num_stops[m] += 1;
+                        }
+                    }
+                }
+            }
+
+            if (debug) {
+                System.out.println(dispatch_modes[m].toString() + ": served 6000 passengers in " + Integer.toString(step) + " time steps with "
+                        + Integer.toString(num_stops[m]) + " stops.");
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (elevator_controller.get_num_pending() != 0) {
+                throw new Exception("Every passenger should have been picked up.");
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (num_stops[1] >= num_stops[0]) {
+            throw new Exception("Destination dispatch should need fewer stops than estimated time dispatch.");
+        }
+    }
+
+    //! Test that a monitoring thread always reads a coherent snapshot of the fleet while random requests are served
+    public static void test_snapshots(boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(20, 6);
+
+        // Read snapshots on another thread until the building is done, checking each one
+        final String[] failure = new String[1];
+        final long[] num_reads = new long[1];
+        final boolean[] done = new boolean[1];
+        Thread monitor = new Thread(() -> {
+            long last_time = 0;
+            while (failure[0] == null) {
+                boolean finished;
+                synchronized (done) {
+                    finished = done[0];
+                }
+                FleetSnapshot snapshot = elevator_controller.get_snapshot();
+                num_reads[0] += 1;
+
+                if (snapshot.get_time() < last_time) {
+                    failure[0] = "Snapshot time went backwards from " + Long.toString(last_time) + ".";
+                }
+                last_time = snapshot.get_time();
+                for (ElevatorSnapshot elevator : snapshot.get_elevators()) {
+                    if (elevator.get_floor() < 1 || elevator.get_floor() > 20) {
+                        failure[0] = elevator.get_name() + " is on floor " + Integer.toString(elevator.get_floor()) + ".";
+                    } else if ((elevator.get_state() == ElevatorState.IDLE) != (elevator.get_load() == 0)) {
+                        failure[0] = elevator.get_name() + " is " + elevator.get_state().toString() + " with a load of " + Integer.toString(elevator.get_load()) + ".";
+                    }
+                }
+
+                if (finished) {
+                    break;
+                }
+            }
+        });
+        monitor.start();
+
+        // Add a random request every time step
+        Random random = new Random(38);
+        int step = 0;
+        for (int k = 0; k < 20000 || elevator_controller.is_active(); k++) {
+            if (k < 20000) {
+                elevator_controller.add_stop(new StopRequest(1 + random.nextInt(20), 1 + random.nextInt(20)));
+            }
+            elevator_controller.step();
+            step += 1;
+        }
+        synchronized (done) {
+            done[0] = true;
+        }
+        monitor.join();
+
+        if (debug) {
+            System.out.println("Read " + Long.toString(num_reads[0]) + " snapshots over " + Integer.toString(step) + " time steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (failure[0] != null) {
+            throw new Exception(failure[0]);
+        }
+        FleetSnapshot snapshot = elevator_controller.get_snapshot();
+        if (snapshot.get_time() != step || snapshot.get_num_pending() != 0) {
+            throw new Exception("The final snapshot should be at the last time step with nothing pending.");
+        }
+        for (int k = 0; k < 6; k++) {
+            Elevator elevator = elevator_controller.get_elevators().get(k);
+            ElevatorSnapshot elevator_snapshot = snapshot.get_elevators().get(k);
+            if (elevator_snapshot.get_floor() != elevator.get_current_floor() || elevator_snapshot.get_state() != ElevatorState.IDLE) {
+                throw new Exception(elevator.get_name() + " should be idle on floor " + Integer.toString(elevator.get_current_floor()) + " in the final snapshot.");
+            }
+        }
+    }
+
+    //! Test that a cancelled pick up stops its elevator straight away, and that pick ups expire after their time to live
+    public static void test_cancellation(boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(10, 1);
+        Elevator elevator = elevator_controller.get_elevators().get(0);
+
+        // Send the elevator up towards a pick up on the 8th floor, then cancel it part way
+        StopRequest stop = new StopRequest(8, 2);
+        elevator_controller.add_stop(stop);
+        for (int k = 0; k < 4; k++) {
+            elevator_controller.step();
+        }
+        int floor = elevator.get_current_floor();
+        boolean cancelled = elevator_controller.cancel_stop(stop);
+
+        if (debug) {
+            System.out.println("Cancelled the pick up with the elevator " + elevator.get_elevator_state().toString() + " on floor " + Integer.toString(floor) + ".");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (!cancelled || elevator_controller.cancel_stop(stop)) {
+            throw new Exception("The pick up should be cancelled exactly once.");
+        } else if (elevator.get_elevator_state() != ElevatorState.IDLE || elevator_controller.get_num_pending() != 0) {
+            throw new Exception("The elevator should stop as soon as its only pick up is cancelled.");
+        }
+        elevator_controller.step();
+        if (elevator.get_current_floor() != floor) {
+            throw new Exception("The elevator should stay on floor " + Integer.toString(floor) + " after the cancellation.");
+        }
+
+        // Cancelling a pick up ahead of another turns the elevator around for the one behind it
+        elevator_controller.add_stop(new StopRequest(2, 1));
+        StopRequest ahead = new StopRequest(floor + 2, 1);
+        elevator_controller.add_stop(ahead);
+        elevator_controller.cancel_stop(ahead);
+        elevator_controller.step();
+        if (elevator.get_current_floor() >= floor) {
+            throw new Exception("The elevator should head down once the pick up ahead of it is cancelled.");
+        }
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+        }
+
+        // Overload the building, so pick ups expire once they have waited 20 time steps
+        elevator_controller.set_time_to_live(20);
+        Random random = new Random(40);
+        int num_added = 0;
+        for (int k = 0; k < 2000 || elevator_controller.is_active(); k++) {
+            if (k < 2000) {
+                elevator_controller.add_stop(new StopRequest(1 + random.nextInt(10), 1 + random.nextInt(10)));
+                num_added += 1;
+            }
+            elevator_controller.step();
+        }
+        long num_picked_up = elevator_controller.get_num_picked_up(RequestPriority.NORMAL) - 1;
+
+        if (debug) {
+            System.out.println("Added " + Integer.toString(num_added) + " requests: " + Long.toString(elevator_controller.get_num_expired()) + " expired, "
+                    + Integer.toString(elevator_controller.get_num_merged_calls()) + " merged, longest wait " + Long.toString(elevator_controller.get_max_wait(RequestPriority.NORMAL)) + " time steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_expired() == 0 || elevator_controller.get_num_cancelled() != 2) {
+            throw new Exception("Pick ups should have expired in the overloaded building.");
+        } else if (elevator_controller.get_max_wait(RequestPriority.NORMAL) > 20) {
+            throw new Exception("No pick up should wait longer than its time to live.");
+        } else if (elevator_controller.get_num_pending() != 0) {
+            throw new Exception("Every pick up should have been picked up or expired.");
+        } else if (num_picked_up + elevator_controller.get_num_expired() + elevator_controller.get_num_merged_calls() != num_added) {
+            throw new Exception("Every request should have been picked up, merged, or expired.");
+        }
+    }
+
+    /*!
+     * \brief Run a morning of up peak traffic through a building
+     *
+     * \param min_spacing Minimum spacing of the elevators, or 0 to disable spacing control
+     *
+     * \return The controller after every request has been served
+     */
+    private static ElevatorController run_up_peak(int min_spacing) {
+        ElevatorController elevator_controller = new ElevatorController(30, 6);
+        elevator_controller.set_spacing(min_spacing, 8);
+        TrafficGenerator generator = new TrafficGenerator(30, 0.5, 3);
+        generator.set_pattern(TrafficPattern.UP_PEAK);
+        for (long tick = 0; tick < 5000 || elevator_controller.is_active(); tick++) {
+            if (tick < 5000) {
+                generator.requests(tick).forEach(stop -> elevator_controller.add_stop(stop));
+            }
+            elevator_controller.step();
+        }
+
+        return elevator_controller;
+    }
+
+    //! Test that spacing control spreads idle elevators and shortens waits at peak times
+    public static void test_spacing(boolean debug) throws Exception {
+        // Three idle elevators in the lobby spread out over the building
+        ElevatorController elevator_controller = new ElevatorController(20, 3);
+        elevator_controller.set_spacing(4, 8);
+        elevator_controller.step();
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+        }
+        long num_parked = elevator_controller.get_num_parked();
+        for (int k = 0; k < 50; k++) {
+            elevator_controller.step();
+        }
+
+        List<Elevator> elevators = elevator_controller.get_elevators();
+        if (debug) {
+            for (Elevator elevator : elevators) {
+                System.out.println(elevator.get_name() + " parked on floor " + Integer.toString(elevator.get_current_floor()) + ".");
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (num_parked != 2 || elevator_controller.get_num_parked() != num_parked) {
+            throw new Exception("Two elevators should have been sent away once, and then stayed put.");
+        }
+        for (int k = 0; k < elevators.size(); k++) {
+            for (int n = k + 1; n < elevators.size(); n++) {
+                if (Math.abs(elevators.get(k).get_current_floor() - elevators.get(n).get_current_floor()) < 4) {
+                    throw new Exception(elevators.get(k).get_name() + " and " + elevators.get(n).get_name() + " are too close together.");
+                }
+            }
+        }
+
+        // Spread elevators reach the calls of a morning peak sooner
+        ElevatorController greedy = run_up_peak(0);
+        ElevatorController spaced = run_up_peak(4);
+
+        if (debug) {
+            System.out.println("Without spacing: mean wait " + String.format("%.2f", greedy.get_mean_wait(RequestPriority.NORMAL)) + ", longest wait "
+                    + Long.toString(greedy.get_max_wait(RequestPriority.NORMAL)) + " time steps.");
+            System.out.println("With spacing: mean wait " + String.format("%.2f", spaced.get_mean_wait(RequestPriority.NORMAL)) + ", longest wait "
+                    + Long.toString(spaced.get_max_wait(RequestPriority.NORMAL)) + " time steps, " + Long.toString(spaced.get_num_bunched())
+                    + " bunched time steps, " + Long.toString(spaced.get_num_parked()) + " elevators sent.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (spaced.get_num_parked() == 0 || spaced.get_mean_wait(RequestPriority.NORMAL) >= greedy.get_mean_wait(RequestPriority.NORMAL)) {
+            throw new Exception("Spacing control should shorten the mean wait of a morning peak.");
+        }
+    }
+
+    /*!
+     * \brief Run an afternoon of busy lunch time traffic through a building
+     *
+     * \param wait_deadline Deadline on the wait for a pick up, or 0 for no deadline
+     *
+     * \return The controller after every request has been served
+     */
+    private static ElevatorController run_lunch(long wait_deadline) {
+        ElevatorController elevator_controller = new ElevatorController(30, 4);
+        elevator_controller.set_wait_deadline(wait_deadline);
+        TrafficGenerator generator = new TrafficGenerator(30, 0.6, 3);
+        generator.set_pattern(TrafficPattern.LUNCH);
+        for (long tick = 0; tick < 20000 || elevator_controller.is_active(); tick++) {
+            if (tick < 20000) {
+                generator.requests(tick).forEach(stop -> elevator_controller.add_stop(stop));
+            }
+            elevator_controller.step();
+        }
+
+        return elevator_controller;
+    }
+
+    //! Test that a wait deadline bounds the tail of the waits
+    public static void test_wait_deadline(boolean debug) throws Exception {
+        // A pick up behind an elevator heading to the top floor would wait for the whole trip up and back
+        ElevatorController elevator_controller = new ElevatorController(20, 1);
+        elevator_controller.set_wait_deadline(8);
+        Elevator elevator = elevator_controller.get_elevators().get(0);
+        elevator_controller.add_stop(new StopRequest(1, 20));
+        while (elevator.get_current_floor() < 5) {
+            elevator_controller.step();
+        }
+        elevator_controller.add_stop(new StopRequest(3, 1));
+        int top_floor = elevator.get_current_floor();
+        while (elevator_controller.get_num_pending() > 0) {
+            elevator_controller.step();
+            top_floor = Math.max(top_floor, elevator.get_current_floor());
+        }
+        boolean reached_top = false;
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+            reached_top |= elevator.get_current_floor() == 20;
+        }
+
+        if (debug) {
+            System.out.println("Picked up after " + Long.toString(elevator_controller.get_max_wait(RequestPriority.NORMAL)) + " time steps, turning around on floor "
+                    + Integer.toString(top_floor) + ".");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_escalated() != 1 || elevator_controller.get_num_deadline_misses() != 0) {
+            throw new Exception("The pick up behind the elevator should have been escalated and reached in time.");
+        } else if (top_floor >= 20 || !reached_top) {
+            throw new Exception("The elevator should turn around for the pick up, and still serve both passengers.");
+        }
+
+        // A busy building keeps the tail of the waits near the deadline
+        ElevatorController sweep = run_lunch(0);
+        ElevatorController deadline = run_lunch(60);
+        long sweep_tail = sweep.get_wait_percentile(RequestPriority.NORMAL, 0.999);
+        long deadline_tail = deadline.get_wait_percentile(RequestPriority.NORMAL, 0.999);
+        long num_picked_up = deadline.get_num_picked_up(RequestPriority.NORMAL);
+
+        if (debug) {
+            System.out.println("Sweep order: mean wait " + String.format("%.2f", sweep.get_mean_wait(RequestPriority.NORMAL)) + ", 99.9th percentile " + Long.toString(sweep_tail)
+                    + ", longest " + Long.toString(sweep.get_max_wait(RequestPriority.NORMAL)) + " time steps.");
+            System.out.println("Deadline of 60: mean wait " + String.format("%.2f", deadline.get_mean_wait(RequestPriority.NORMAL)) + ", 99.9th percentile " + Long.toString(deadline_tail)
+                    + ", longest " + Long.toString(deadline.get_max_wait(RequestPriority.NORMAL)) + " time steps, " + Long.toString(deadline.get_num_escalated()) + " escalated, "
+                    + Long.toString(deadline.get_num_deadline_misses()) + " of " + Long.toString(num_picked_up) + " missed.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (deadline_tail >= sweep_tail || deadline_tail > 60) {
+            throw new Exception("The deadline should bring the 99.9th percentile wait within 60 time steps.");
+        } else if (deadline.get_num_deadline_misses() * 1000 > num_picked_up) {
+            throw new Exception("Fewer than 1 in 1000 pick ups should miss the deadline.");
+        }
+
+        // A pick up moved to meet its deadline stays with the elevator it was moved to, rather than hopping between cars
+        // as its time runs out
+        ElevatorController moving = new ElevatorController(30, 4);
+        moving.set_wait_deadline(60);
+        TrafficGenerator generator = new TrafficGenerator(30, 0.6, 3);
+        generator.set_pattern(TrafficPattern.LUNCH);
+        IdentityHashMap<StopRequest, int[]> owners = new IdentityHashMap<StopRequest, int[]>();    // Owner and number of moves
+        int num_moved = 0;
+        for (long tick = 0; tick < 20000 || moving.is_active(); tick++) {
+            if (tick < 20000) {
+                generator.requests(tick).forEach(stop -> {
+                    moving.add_stop(stop);
+                    owners.put(stop, new int[] {-1, 0});
+                });
+            }
+            moving.step();
+
+            // Follow each pick up from car to car until it is reached
+            Iterator<Map.Entry<StopRequest, int[]>> iterator = owners.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<StopRequest, int[]> entry = iterator.next();
+                int owner = -1;
+                for (int k = 0; k < 4; k++) {
+                    if (moving.get_elevators().get(k).has_stop(entry.getKey())) {
+                        owner = k;
+                    }
+                }
+
+                int[] history = entry.getValue();
+                if (owner < 0) {
+                    iterator.remove();
+                } else if (history[0] >= 0 && owner != history[0]) {
+                    history[1] += 1;
+                    num_moved += history[1] == 1 ? 1 : 0;
+
+                    // This would normally be a junit assert statement, but didn't have time to get that set up
+                    if (history[1] > 1) {
+                        throw new Exception("A pick up on floor " + Integer.toString(entry.getKey().get_pick_up_floor()) + " was moved for its deadline more than once.");
+                    }
+                }
+                history[0] = owner >= 0 ? owner : history[0];
+            }
+        }
+
+        if (debug) {
+            System.out.println("Deadline of 60: " + Integer.toString(num_moved) + " pick ups moved, each at most once.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (num_moved == 0) {
+            throw new Exception("Some pick ups should have been moved to meet their deadline.");
+        }
+    }
 }
@@ -0,0 +1,190 @@
+// Standard Library Imports
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Elevator System imports
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.ElevatorState;
+import ElevatorSystem.StopRequest;
+
+// Drives random traffic through independent buildings on several threads, checking invariants every time step
+public class ElevatorSoakTest {
+
+    //! Main function to run the soak
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Run a short soak as a quick check
+            run_soak(200000, 2, false);
+
+        } else if (args.length == 2) {
+            // Run a soak of the requested size, reporting throughput
+            run_soak(Long.parseLong(args[0]), Integer.parseInt(args[1]), true);
+
+        } else {
+            throw new Exception("Usage: ElevatorSoakTest [num_requests num_threads]");
+        }
+    }
+
+    /*!
+     * \brief Drive random requests through one building per thread, checking the invariants of every building each time
+     * step, and then let each building drain to make sure every request was served
+     *
+     * \param num_requests Total number of requests, split evenly across the threads
+     * \param num_threads Number of worker threads, each driving its own building
+     * \param debug Whether to report throughput
+     */
+    public static void run_soak(long num_requests, int num_threads, boolean debug) throws Exception {
+        // Start one worker per thread
+        SoakWorker[] workers = new SoakWorker[num_threads];
+        Thread[] threads = new Thread[num_threads];
+        long start_ns = System.nanoTime();
+        for (int k = 0; k < num_threads; k++) {
+            workers[k] = new SoakWorker(k, num_requests / num_threads);
+            threads[k] = new Thread(workers[k], "Soak Worker " + Integer.toString(k + 1));
+            threads[k].start();
+        }
+
+        // Wait for the workers, rethrowing the first failure
+        long num_ticks = 0;
+        long num_served = 0;
+        long max_wait = 0;
+        for (int k = 0; k < num_threads; k++) {
+            threads[k].join();
+            if (workers[k].failure != null) {
+                throw workers[k].failure;
+            }
+            num_ticks += workers[k].num_ticks;
+            num_served += workers[k].num_served;
+            max_wait = Math.max(max_wait, workers[k].max_wait);
+        }
+        double elapsed_sec = (System.nanoTime() - start_ns) / 1e9;
+
+        if (debug) {
+            System.out.println("Threads: " + Integer.toString(num_threads));
+            System.out.println("Requests: " + Long.toString(num_served) + " served, " + Long.toString((long) (num_served / elapsed_sec)) + " requests/sec");
+            System.out.println("Time steps: " + Long.toString(num_ticks) + ", " + Long.toString((long) (num_ticks / elapsed_sec)) + " ticks/sec");
+            System.out.println("Longest wait for a pick up: " + Long.toString(max_wait) + " time steps");
+        }
+    }
+
+    //! Drives random traffic through a single building, checking its invariants every time step
+    private static class SoakWorker implements Runnable {
+
+        SoakWorker(int seed, long num_requests) {
+            this.random = new SplittableRandom(seed);
+            this.num_requests = num_requests;
+            this.controller = new ElevatorController(NUM_FLOORS, NUM_ELEVATORS);
+            this.outstanding = new IdentityHashMap<StopRequest, Long>();
+            this.last_floors = new int[NUM_ELEVATORS];
+            this.last_progress = new long[NUM_ELEVATORS];
+        }
+
+        //! Add the requests, then drain the building
+        @Override
+        public void run() {
+            try {
+                long num_added = 0;
+                while (num_added < num_requests) {
+                    // Add a random number of requests, averaging REQUESTS_PER_TICK
+                    while (num_added < num_requests && random.nextDouble() < REQUESTS_PER_TICK / (1.0 + REQUESTS_PER_TICK)) {
+                        add_random_request();
+                        num_added += 1;
+                    }
+                    step();
+                }
+
+                // Stop adding requests, and make sure the building serves everyone it has
+                long drain_limit = num_ticks + DRAIN_TICKS;
+                while (controller.is_active() || !outstanding.isEmpty()) {
+                    if (num_ticks > drain_limit) {
+                        throw new Exception(Integer.toString(outstanding.size()) + " requests were never served.");
+                    }
+                    step();
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        //! Add a hall call between two random floors, or occasionally a single stop
+        private void add_random_request() {
+            int pick_up_floor = 1 + random.nextInt(NUM_FLOORS);
+            StopRequest stop;
+            if (random.nextInt(10) == 0) {
+                stop = new StopRequest(pick_up_floor);
+            } else {
+                int drop_off_floor = 1 + random.nextInt(NUM_FLOORS - 1);
+                stop = new StopRequest(pick_up_floor, drop_off_floor >= pick_up_floor ? drop_off_floor + 1 : drop_off_floor);
+            }
+
+            // Repeated hall button presses join the active hall call, and are served along with it
+            int num_merged = controller.get_num_merged_calls();
+            controller.add_stop(stop);
+            if (controller.get_num_merged_calls() == num_merged) {
+                outstanding.put(stop, num_ticks);
+            } else {
+                num_served += 1;
+            }
+        }
+
+        //! Step the building and check its invariants
+        private void step() throws Exception {
+            controller.step();
+            num_ticks += 1;
+
+            List<Elevator> elevators = controller.get_elevators();
+            for (int k = 0; k < elevators.size(); k++) {
+                Elevator elevator = elevators.get(k);
+                int floor = elevator.get_current_floor();
+
+                // Floors in range
+                if (floor < 1 || floor > NUM_FLOORS) {
+                    throw new Exception(elevator.get_name() + " is on floor " + Integer.toString(floor) + " at time step " + Long.toString(num_ticks) + ".");
+                }
+
+                // Only idle elevators have nothing to do
+                if ((elevator.get_elevator_state() == ElevatorState.IDLE) != (elevator.get_load() == 0)) {
+                    throw new Exception(elevator.get_name() + " is " + elevator.get_elevator_state().toString() + " with a load of " + Integer.toString(elevator.get_load()) + ".");
+                }
+
+                // Served requests
+                List<StopRequest> served = elevator.get_served_stops();
+                for (StopRequest stop : served) {
+                    Long added_tick = outstanding.remove(stop);
+                    if (added_tick != null) {
+                        max_wait = Math.max(max_wait, num_ticks - added_tick);
+                        num_served += 1;
+                    }
+                }
+
+                // No stuck elevators
+                if (elevator.get_elevator_state() == ElevatorState.IDLE || floor != last_floors[k] || !served.isEmpty()) {
+                    last_floors[k] = floor;
+                    last_progress[k] = num_ticks;
+                } else if (num_ticks - last_progress[k] > STUCK_TICKS) {
+                    throw new Exception(elevator.get_name() + " has made no progress since time step " + Long.toString(last_progress[k]) + ".");
+                }
+            }
+        }
+
+        public SplittableRandom random;                         //!< Random number generator for the worker
+        public long num_requests;                               //!< Number of requests to add
+        public ElevatorController controller;                   //!< The building being driven
+        public IdentityHashMap<StopRequest, Long> outstanding;  //!< Requests not yet served, and the time step each was added
+        public int[] last_floors;                               //!< Floor of each elevator when it last made progress
+        public long[] last_progress;                            //!< Time step at which each elevator last made progress
+        public long num_ticks;                                  //!< Number of time steps run
+        public long num_served;                                 //!< Number of requests served
+        public long max_wait;                                   //!< Longest wait for a pick up [time steps]
+        public Exception failure;                               //!< First invariant that failed, or null
+    }
+
+    private static final int NUM_FLOORS = 20;               //!< Number of floors in each building
+    private static final int NUM_ELEVATORS = 6;             //!< Number of elevators in each building
+    private static final double REQUESTS_PER_TICK = 0.25;   //!< Average number of requests added per time step
+    private static final int STUCK_TICKS = 10;              //!< Time steps without progress before an elevator is stuck
+    private static final int DRAIN_TICKS = 100000;          //!< Time steps allowed for a building to serve everyone
+}
@@ -1,9 +1,13 @@
 // Standard Library Imports
+import java.util.HashSet;
 import java.util.PriorityQueue;
 
 // Elevator System imports
+import ElevatorSystem.DirectionRequest;
 import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorProfile;
 import ElevatorSystem.ElevatorState;
+import ElevatorSystem.RequestPriority;
 import ElevatorSystem.StopRequest;
 
 // Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
@@ -25,6 +29,24 @@ public class ElevatorTest {
             // Test the case where the elevator ascends, then adds a stop then adds a descending stop
             test_ascending_descending_with_stop_added(false);
 
+            // Test an elevator with a slower, express performance profile
+            test_slow_express_profile(false);
+
+            // Test that a copy of an elevator can be stepped without changing the original
+            test_copy_isolation(false);
+
+            // Test that preempting stops turn the elevator around and skip other stops
+            test_preemption(false);
+
+            // Test a double-deck elevator serving two floors per stop
+            test_double_deck(false);
+
+            // Test that the doors stay open longer the more passengers board or alight
+            test_adaptive_dwell(false);
+
+            // Test that hall calls heading the other way are passed by and picked up on the way back
+            test_direction_aware_pick_up(false);
+
         } else if (args.length == 1) {
             switch (args[0]) {
                 case "1": {
@@ -47,8 +69,32 @@ public class ElevatorTest {
                     test_ascending_back_to_ground_floor(true);
                     break;
                 }
+                case "6": {
+                    test_slow_express_profile(true);
+                    break;
+                }
+                case "7": {
+                    test_copy_isolation(true);
+                    break;
+                }
+                case "8": {
+                    test_preemption(true);
+                    break;
+                }
+                case "9": {
+                    test_double_deck(true);
+                    break;
+                }
+                case "10": {
+                    test_adaptive_dwell(true);
+                    break;
+                }
+                case "11": {
+                    test_direction_aware_pick_up(true);
+                    break;
+                }
                 default: {
-                    throw new Exception("Test case must be a number from 1 to 4.");
+                    throw new Exception("Test case must be a number from 1 to 11.");
                 }
             }
         }
@@ -273,4 +319,261 @@ public class ElevatorTest {
             throw new Exception("The elevator should now be inactive.");
         }
     }
+
+    //! Test an express elevator that takes two time steps per floor, one time step per stop, and skips floor 2
+    public static void test_slow_express_profile(boolean debug) throws Exception {
+        // Make an elevator that only stops at floors 1, 3 and 4
+        HashSet<Integer> served_floors = new HashSet<Integer>() {{
+            add(1);
+            add(3);
+            add(4);
+        }};
+        Elevator elevator = new Elevator("Express Elevator", 10, new ElevatorProfile(2, 1, served_floors));
+
+        // Stops on floors the elevator skips should be rejected
+        boolean rejected = false;
+        try {
+            elevator.add_stop(new StopRequest(2));
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (!rejected) {
+            throw new Exception("The elevator should not accept a stop on floor 2.");
+        }
+
+        // Set a stop on the 3rd floor, which should take two time steps per floor
+        StopRequest stop_req = new StopRequest(3);
+        if (elevator.estimate_time_to_stop(stop_req) != 4) {
+            throw new Exception("Estimated time to floor 3 should be 4 time steps.");
+        }
+        elevator.add_stop(stop_req);
+        if (debug) {
+            System.out.println("Adding stop on floor 3.");
+        }
+
+        int[] expected_floors = {1, 2, 2, 3, 3};
+        int step = 0;
+
+        for (int k = 0; k < expected_floors.length; k++) {
+            // Step the elevator
+            int cur_floor = elevator.step();
+            step += 1;
+
+            if (debug) {
+                System.out.println("Step: " + Integer.toString(step) + ", Current Floor: " + Integer.toString(cur_floor));
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (cur_floor != expected_floors[k]) {
+                throw new Exception("Should be on floor " + Integer.toString(expected_floors[k]));
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_elevator_state() != ElevatorState.IDLE) {
+            throw new Exception("The elevator should now be inactive.");
+        }
+    }
+
+    //! Test that a copy of an elevator can be stepped and given new stops without changing the original
+    public static void test_copy_isolation(boolean debug) throws Exception {
+        // Get default elevator, heading for the 5th floor
+        Elevator elevator = get_default_elevator();
+        elevator.add_stop(new StopRequest(5));
+        elevator.step();
+
+        // Step a copy to the top floor and back
+        Elevator copy = elevator.copy();
+        copy.add_stop(new StopRequest(10, 1));
+        int num_steps = 0;
+        while (copy.get_elevator_state() != ElevatorState.IDLE) {
+            copy.step();
+            num_steps += 1;
+        }
+        copy.release();
+
+        if (debug) {
+            System.out.println("Copy finished on floor " + Integer.toString(copy.get_current_floor()) + " after " + Integer.toString(num_steps) + " steps.");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_current_floor() != 2 || elevator.get_load() != 1 || elevator.get_elevator_state() != ElevatorState.ASCENDING) {
+            throw new Exception("Stepping the copy should not change the original elevator.");
+        }
+
+        // The original should still reach the 5th floor and stop
+        while (elevator.get_elevator_state() != ElevatorState.IDLE) {
+            elevator.step();
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_current_floor() != 5) {
+            throw new Exception("Should be on floor 5");
+        }
+    }
+
+    //! Test that an emergency call turns an ascending elevator around, and a VIP call skips the stops on its way
+    public static void test_preemption(boolean debug) throws Exception {
+        // Get default elevator, and send it up to the 4th and 8th floors
+        Elevator elevator = get_default_elevator();
+        elevator.add_stop(new StopRequest(4));
+        elevator.add_stop(new StopRequest(8));
+        elevator.step();
+        elevator.step();
+
+        // An emergency call on the 2nd floor, behind the elevator, turns it straight around
+        StopRequest emergency = new StopRequest(2, 1);
+        emergency.set_priority(RequestPriority.EMERGENCY);
+        elevator.add_stop(emergency);
+
+        // The emergency passenger is carried straight down, then the elevator goes back for the 4th and 8th floors. On the
+        // way back up, a VIP call on the 7th floor passes the stop on the 4th floor by
+        int[] expected_floors = {2, 2, 2, 1, 1, 1, 2, 3, 4, 5, 6, 7, 7, 7, 8, 8, 8, 7, 6, 5, 4, 4, 4};
+        StopRequest vip = new StopRequest(7, 8);
+        vip.set_priority(RequestPriority.VIP);
+        for (int k = 0; k < expected_floors.length; k++) {
+            if (k == 8) {
+                elevator.add_stop(vip);
+            }
+            int cur_floor = elevator.step();
+
+            if (debug) {
+                System.out.println("Step: " + Integer.toString(k + 3) + ", Current Floor: " + Integer.toString(cur_floor));
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (cur_floor != expected_floors[k]) {
+                throw new Exception("Should be on floor " + Integer.toString(expected_floors[k]));
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_elevator_state() != ElevatorState.IDLE) {
+            throw new Exception("The elevator should now be inactive.");
+        }
+    }
+
+    //! Test that a double-deck elevator serves two adjacent floors with a single stop
+    public static void test_double_deck(boolean debug) throws Exception {
+        // Make a double-deck elevator, which stops with its lower deck on floors 1, 3, 5, 7 and 9
+        Elevator elevator = new Elevator("Double-Deck Elevator", 10, new ElevatorProfile(1, 2, null, 2));
+
+        // Floor 4 is served from the landing at floor 3
+        if (elevator.estimate_time_to_stop(new StopRequest(4)) != 2) {
+            throw new Exception("Estimated time to floor 4 should be 2 time steps.");
+        }
+
+        // Pick ups on floors 3 and 4 share one stop, as do their drop offs on floors 9 and 10
+        elevator.add_stop(new StopRequest(4, 9));
+        elevator.add_stop(new StopRequest(3, 10));
+
+        int[] expected_floors = {2, 3, 3, 3, 4, 5, 6, 7, 8, 9, 9, 9};
+        int[] expected_served = {0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 2};
+        for (int k = 0; k < expected_floors.length; k++) {
+            int cur_floor = elevator.step();
+
+            if (debug) {
+                System.out.println("Step: " + Integer.toString(k + 1) + ", Current Floor: " + Integer.toString(cur_floor) + ", Stops Served: " + Integer.toString(elevator.get_served_stops().size()));
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (cur_floor != expected_floors[k]) {
+                throw new Exception("Should be on floor " + Integer.toString(expected_floors[k]));
+            } else if (elevator.get_served_stops().size() != expected_served[k]) {
+                throw new Exception("Should have served " + Integer.toString(expected_served[k]) + " stops at step " + Integer.toString(k + 1));
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_elevator_state() != ElevatorState.IDLE) {
+            throw new Exception("The elevator should now be inactive.");
+        }
+    }
+
+    //! Test an elevator whose doors stay open half a time step per passenger, for at least 1 and at most 4 time steps
+    public static void test_adaptive_dwell(boolean debug) throws Exception {
+        Elevator elevator = new Elevator("Adaptive Elevator", 10, new ElevatorProfile(1, 1, null, 1, 0.5, 4));
+
+        // Ten passengers board on floor 3 for floor 8, and one boards on floor 5 for floor 6
+        for (int k = 0; k < 10; k++) {
+            elevator.add_stop(new StopRequest(3, 8));
+        }
+        elevator.add_stop(new StopRequest(5, 6));
+
+        // The crowd on floor 3 holds the doors for the longest dwell, and the lone passenger only for the shortest
+        int estimated_time = elevator.estimate_time_to_stop(new StopRequest(6));
+        if (estimated_time != 10) {
+            throw new Exception("Estimated time to floor 6 should be 10 time steps, not " + Integer.toString(estimated_time) + ".");
+        }
+
+        int[] expected_floors = {2, 3, 3, 3, 3, 3, 4, 5, 5, 6, 6, 7, 8, 8, 8, 8, 8};
+        int[] expected_served = {0, 0, 0, 0, 0, 10, 0, 0, 1, 0, 1, 0, 0, 0, 0, 0, 10};
+        for (int k = 0; k < expected_floors.length; k++) {
+            int cur_floor = elevator.step();
+
+            if (debug) {
+                System.out.println("Step: " + Integer.toString(k + 1) + ", Current Floor: " + Integer.toString(cur_floor) + ", Stops Served: " + Integer.toString(elevator.get_served_stops().size()));
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (cur_floor != expected_floors[k]) {
+                throw new Exception("Should be on floor " + Integer.toString(expected_floors[k]) + " at step " + Integer.toString(k + 1));
+            } else if (elevator.get_served_stops().size() != expected_served[k]) {
+                throw new Exception("Should have served " + Integer.toString(expected_served[k]) + " stops at step " + Integer.toString(k + 1));
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_elevator_state() != ElevatorState.IDLE) {
+            throw new Exception("The elevator should now be inactive.");
+        }
+    }
+
+    //! Test that hall calls heading the other way are passed by and picked up on the way back
+    public static void test_direction_aware_pick_up(boolean debug) throws Exception {
+        // Get default elevator
+        Elevator elevator = get_default_elevator();
+
+        // Someone on floor 8 is going up, while someone on floor 4 pressed the down button and someone on floor 5 is
+        // going down to floor 2
+        elevator.add_stop(new StopRequest(8, DirectionRequest.ASCENDING));
+        elevator.add_stop(new StopRequest(4, DirectionRequest.DESCENDING));
+        elevator.add_stop(new StopRequest(5, 2));
+
+        // The down call on floor 4 waits for the elevator to go up to floor 8 and back, rather than being driven to directly
+        int estimated_time = elevator.estimate_time_to_stop(new StopRequest(4, DirectionRequest.DESCENDING));
+        if (debug) {
+            System.out.println("Time to the down call on floor 4: " + Integer.toString(estimated_time));
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (estimated_time < 11) {
+            throw new Exception("Estimated time to the down call on floor 4 should include the trip to floor 8 and back, not " + Integer.toString(estimated_time) + ".");
+        }
+
+        // The elevator passes floors 4 and 5 on the way up, then picks up both down calls on the way back
+        int[] expected_floors = {2, 3, 4, 5, 6, 7, 8, 8, 8, 7, 6, 5, 5, 5, 4, 4, 4, 3, 2, 2, 2};
+        int[] expected_served = {0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 1};
+        for (int k = 0; k < expected_floors.length; k++) {
+            int cur_floor = elevator.step();
+
+            if (debug) {
+                System.out.println("Step: " + Integer.toString(k + 1) + ", Current Floor: " + Integer.toString(cur_floor) + ", Stops Served: " + Integer.toString(elevator.get_served_stops().size()));
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (cur_floor != expected_floors[k]) {
+                throw new Exception("Should be on floor " + Integer.toString(expected_floors[k]) + " at step " + Integer.toString(k + 1));
+            } else if (elevator.get_served_stops().size() != expected_served[k]) {
+                throw new Exception("Should have served " + Integer.toString(expected_served[k]) + " stops at step " + Integer.toString(k + 1));
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator.get_elevator_state() != ElevatorState.IDLE) {
+            throw new Exception("The elevator should now be inactive.");
+        }
+    }
 }
@@ -0,0 +1,164 @@
+// Standard Library Imports
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+// Elevator System imports
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.ElevatorState;
+import ElevatorSystem.FleetMirror;
+import ElevatorSystem.StopRequest;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class FleetMirrorTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test that a reader only ever sees consistent snapshots while the controller runs
+            test_consistent_snapshots(false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_consistent_snapshots(true);
+                    break;
+                }
+                case "2": {
+                    test_mirror_overhead(true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 2.");
+                }
+            }
+        }
+    }
+
+    //! Test that a reader mapping the mirror file sees whole, in range snapshots while the controller steps
+    public static void test_consistent_snapshots(boolean debug) throws Exception {
+        Path path = Files.createTempFile("elevator_fleet", ".mirror");
+        ElevatorController elevator_controller = new ElevatorController(20, 6);
+
+        try (FleetMirror fleet_mirror = new FleetMirror(path, 6); FleetMirror.Reader reader = new FleetMirror.Reader(path)) {
+            elevator_controller.set_fleet_mirror(fleet_mirror);
+
+            // Read snapshots on another thread for as long as the controller runs, checking each of them
+            SnapshotChecker checker = new SnapshotChecker(reader);
+            Thread thread = new Thread(checker, "Fleet Mirror Reader");
+            thread.start();
+
+            Random random = new Random(3);
+            for (int step = 0; step < 20000; step++) {
+                if (random.nextInt(4) == 0) {
+                    elevator_controller.add_stop(new StopRequest(1 + random.nextInt(20), 1 + random.nextInt(20)));
+                }
+                elevator_controller.step();
+            }
+            checker.running = false;
+            thread.join();
+
+            // The last snapshot matches the controller
+            int[] floors = new int[6];
+            ElevatorState[] states = new ElevatorState[6];
+            int[] loads = new int[6];
+            long tick = reader.read(floors, states, loads);
+            List<Elevator> elevators = elevator_controller.get_elevators();
+
+            if (debug) {
+                System.out.println("Read " + Long.toString(checker.num_reads) + " snapshots, retried " + Long.toString(reader.get_num_retries()) + " times");
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (checker.failure != null) {
+                throw checker.failure;
+            } else if (tick != 20000) {
+                throw new Exception("The last snapshot should be from time step 20000.");
+            }
+            for (int k = 0; k < 6; k++) {
+                if (floors[k] != elevators.get(k).get_current_floor() || states[k] != elevators.get(k).get_elevator_state() || loads[k] != elevators.get(k).get_load()) {
+                    throw new Exception("The snapshot of " + elevators.get(k).get_name() + " doesn't match the elevator.");
+                }
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    //! Report the time taken to publish and to read a snapshot of a large fleet
+    public static void test_mirror_overhead(boolean debug) throws Exception {
+        Path path = Files.createTempFile("elevator_fleet", ".mirror");
+        ElevatorController elevator_controller = new ElevatorController(50, 64);
+
+        try (FleetMirror fleet_mirror = new FleetMirror(path, 64); FleetMirror.Reader reader = new FleetMirror.Reader(path)) {
+            int num_runs = 1000000;
+            List<Elevator> elevators = elevator_controller.get_elevators();
+
+            long start_ns = System.nanoTime();
+            for (int k = 0; k < num_runs; k++) {
+                fleet_mirror.publish(k, elevators);
+            }
+            long publish_ns = (System.nanoTime() - start_ns) / num_runs;
+
+            int[] floors = new int[64];
+            ElevatorState[] states = new ElevatorState[64];
+            int[] loads = new int[64];
+            start_ns = System.nanoTime();
+            for (int k = 0; k < num_runs; k++) {
+                reader.read(floors, states, loads);
+            }
+            long read_ns = (System.nanoTime() - start_ns) / num_runs;
+
+            if (debug) {
+                System.out.println("64 elevators: " + Long.toString(publish_ns) + " ns per publish, " + Long.toString(read_ns) + " ns per read");
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    //! Reads snapshots from a mirror until told to stop, checking that each one is whole and in range
+    private static class SnapshotChecker implements Runnable {
+
+        SnapshotChecker(FleetMirror.Reader reader) {
+            this.reader = reader;
+            this.running = true;
+        }
+
+        //! Read and check snapshots
+        @Override
+        public void run() {
+            int[] floors = new int[reader.get_num_elevators()];
+            ElevatorState[] states = new ElevatorState[reader.get_num_elevators()];
+            int[] loads = new int[reader.get_num_elevators()];
+            long last_tick = 0;
+
+            try {
+                while (running) {
+                    long tick = reader.read(floors, states, loads);
+                    num_reads += 1;
+
+                    if (tick < last_tick) {
+                        throw new Exception("Snapshot from time step " + Long.toString(tick) + " read after time step " + Long.toString(last_tick) + ".");
+                    }
+                    for (int k = 0; k < floors.length; k++) {
+                        if (floors[k] < 1 || floors[k] > 20 || loads[k] < 0 || (states[k] == ElevatorState.IDLE) != (loads[k] == 0)) {
+                            throw new Exception("Inconsistent snapshot of elevator " + Integer.toString(k + 1) + " at time step " + Long.toString(tick) + ".");
+                        }
+                    }
+                    last_tick = tick;
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        public FleetMirror.Reader reader;           //!< Reader mapping the mirror file
+        public volatile boolean running;            //!< Set to false to stop reading
+        public long num_reads;                      //!< Number of snapshots read
+        public Exception failure;                   //!< First inconsistency found, or null
+    }
+}
@@ -0,0 +1,233 @@
+// Standard Library Imports
+import java.util.SplittableRandom;
+
+// Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.Elevator;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.RequestPriority;
+import ElevatorSystem.StopRequest;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class HostingTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test that an idle controller hibernates, keeps its statistics, and wakes for the next request
+            test_hibernation(false);
+
+            // Test the memory taken by many buildings that have gone idle
+            test_many_buildings(20000, false);
+
+            // Test the memory taken by many elevators that have gone idle
+            test_many_elevators(50000, false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_hibernation(true);
+                    break;
+                }
+                case "2": {
+                    test_many_buildings(100000, true);
+                    break;
+                }
+                case "3": {
+                    test_many_elevators(200000, true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 3.");
+                }
+            }
+        }
+    }
+
+    /*!
+     * \brief Step a controller until it hibernates
+     *
+     * \param controller The controller, which must hibernate by itself
+     * \param max_steps Most number of time steps to wait
+     *
+     * \return The number of time steps taken
+     */
+    private static int step_until_hibernating(ElevatorController controller, int max_steps) throws Exception {
+        int num_steps = 0;
+        while (!controller.is_hibernating()) {
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (num_steps == max_steps) {
+                throw new Exception("The controller should have hibernated within " + Integer.toString(max_steps) + " time steps.");
+            }
+            controller.step();
+            num_steps += 1;
+        }
+
+        return num_steps;
+    }
+
+    //! Test that an idle controller hibernates, keeps its statistics, and wakes for the next request
+    public static void test_hibernation(boolean debug) throws Exception {
+        ElevatorController controller = new ElevatorController(20, 4);
+        controller.set_hibernation(5);
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (!controller.is_hibernating()) {
+            throw new Exception("A new controller should start out hibernating.");
+        }
+
+        // A request wakes the controller, which can't hibernate while the pick ups are pending
+        controller.add_stop(new StopRequest(3, 12));
+        controller.add_stop(new StopRequest(15, DirectionRequest.DESCENDING));
+        if (controller.is_hibernating() || controller.get_hall_call(15, DirectionRequest.DESCENDING) == null) {
+            throw new Exception("The controller should be awake with the hall call on floor 15 active.");
+        }
+        if (controller.hibernate()) {
+            throw new Exception("The controller should not hibernate while pick ups are pending.");
+        }
+
+        int num_steps = step_until_hibernating(controller, 200);
+        if (debug) {
+            System.out.println("Hibernated after " + Integer.toString(num_steps) + " time steps, longest wait "
+                    + Long.toString(controller.get_max_wait(RequestPriority.NORMAL)) + " time steps");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (controller.get_num_hibernations() != 1 || controller.get_num_pending() != 0) {
+            throw new Exception("The controller should have hibernated once, with nothing pending.");
+        }
+        if (controller.get_hall_call(15, DirectionRequest.DESCENDING) != null) {
+            throw new Exception("The hall call on floor 15 should have cleared.");
+        }
+        long max_wait = controller.get_max_wait(RequestPriority.NORMAL);
+        if (controller.get_num_picked_up(RequestPriority.NORMAL) != 2 || controller.get_wait_percentile(RequestPriority.NORMAL, 1) != max_wait) {
+            throw new Exception("The controller should keep its wait statistics while hibernating.");
+        }
+        if (!controller.get_elevators().get(3).get_name().equals("Elevator 4")
+                || !controller.get_snapshot().get_elevators().get(3).get_name().equals("Elevator 4")) {
+            throw new Exception("The elevators should be named after their number.");
+        }
+
+        // The next request wakes the controller again, and longer waits still fit in the trimmed histogram
+        controller.add_stop(new StopRequest(5, 19));
+        controller.add_stop(new StopRequest(19, 5));
+        if (controller.is_hibernating() || controller.get_num_pending() != 2) {
+            throw new Exception("The controller should wake for a new request.");
+        }
+        step_until_hibernating(controller, 200);
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (controller.get_num_hibernations() != 2 || controller.get_num_picked_up(RequestPriority.NORMAL) != 4) {
+            throw new Exception("The controller should have served both requests and hibernated again.");
+        }
+        if (controller.get_wait_percentile(RequestPriority.NORMAL, 1) != controller.get_max_wait(RequestPriority.NORMAL)
+                || controller.get_max_wait(RequestPriority.NORMAL) < max_wait) {
+            throw new Exception("The longest wait should be counted after waking.");
+        }
+
+        if (debug) {
+            System.out.println("Test Success");
+        }
+    }
+
+    /*!
+     * \brief Test the memory taken by many buildings that have gone idle, after each has served some traffic
+     *
+     * \param num_buildings Number of buildings
+     * \param debug Whether to print the results
+     */
+    public static void test_many_buildings(int num_buildings, boolean debug) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        long used_before = used_memory(runtime);
+
+        // Each building serves a short burst of random trips, and is then left to hibernate
+        SplittableRandom random = new SplittableRandom(5);
+        ElevatorController[] controllers = new ElevatorController[num_buildings];
+        for (int k = 0; k < num_buildings; k++) {
+            ElevatorController controller = new ElevatorController(20, 4);
+            controller.set_hibernation(10);
+            for (int n = 0; n < 10; n++) {
+                int pick_up_floor = 1 + random.nextInt(20);
+                int drop_off_floor = 1 + random.nextInt(20);
+                if (pick_up_floor != drop_off_floor) {
+                    controller.add_stop(new StopRequest(pick_up_floor, drop_off_floor));
+                }
+                controller.step();
+                controller.step();
+            }
+            step_until_hibernating(controller, 1000);
+            controllers[k] = controller;
+        }
+
+        long bytes_per_building = (used_memory(runtime) - used_before) / num_buildings;
+        if (debug) {
+            System.out.println("Buildings: " + Integer.toString(controllers.length) + ", " + Long.toString(bytes_per_building) + " bytes/building");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (bytes_per_building > MAX_BYTES_PER_BUILDING) {
+            throw new Exception("An idle building takes " + Long.toString(bytes_per_building) + " bytes, more than " + Integer.toString(MAX_BYTES_PER_BUILDING) + ".");
+        }
+
+        if (debug) {
+            System.out.println("Test Success");
+        }
+    }
+
+    /*!
+     * \brief Test the memory taken by many elevators that have gone idle, after each has served a trip, which only keep
+     * their stop queues while they have stops to serve
+     *
+     * \param num_elevators Number of elevators
+     * \param debug Whether to print the results
+     */
+    public static void test_many_elevators(int num_elevators, boolean debug) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        long used_before = used_memory(runtime);
+
+        // Each elevator serves one trip, and is then left idle
+        Elevator[] elevators = new Elevator[num_elevators];
+        for (int k = 0; k < num_elevators; k++) {
+            Elevator elevator = new Elevator("Elevator", 20);
+            elevator.add_stop(new StopRequest(1 + k % 20, 1 + (k + 7) % 20));
+            for (int n = 0; n < 100 && elevator.get_load() > 0; n++) {
+                elevator.step();
+            }
+            elevator.step();
+            elevators[k] = elevator;
+        }
+
+        long bytes_per_elevator = (used_memory(runtime) - used_before) / num_elevators;
+        if (debug) {
+            System.out.println("Elevators: " + Integer.toString(elevators.length) + ", " + Long.toString(bytes_per_elevator) + " bytes/elevator");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (bytes_per_elevator > MAX_BYTES_PER_ELEVATOR) {
+            throw new Exception("An idle elevator takes " + Long.toString(bytes_per_elevator) + " bytes, more than " + Integer.toString(MAX_BYTES_PER_ELEVATOR) + ".");
+        }
+
+        if (debug) {
+            System.out.println("Test Success");
+        }
+    }
+
+    /*!
+     * \brief Return the memory used by live objects, collecting garbage first
+     *
+     * \param runtime The runtime
+     *
+     * \return The memory used by live objects [bytes]
+     */
+    private static long used_memory(Runtime runtime) throws Exception {
+        for (int k = 0; k < 3; k++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final int MAX_BYTES_PER_BUILDING = 4096;    //!< Most memory an idle building of 20 floors and 4 elevators may take [bytes]
+    private static final int MAX_BYTES_PER_ELEVATOR = 200;     //!< Most memory an idle elevator of 20 floors may take [bytes]
+}
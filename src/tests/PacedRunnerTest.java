@@ -0,0 +1,114 @@
+// Standard Library Imports
+import java.util.Random;
+
+// Elevator System imports
+import ElevatorSystem.CatchUpPolicy;
+import ElevatorSystem.DispatchMode;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.PacedRunner;
+import ElevatorSystem.StopRequest;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class PacedRunnerTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test that the runner keeps time while requests arrive in bursts
+            test_pacing_under_bursts(false);
+
+            // Test both catch up policies after a time step overruns
+            test_catch_up(false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_pacing_under_bursts(true);
+                    break;
+                }
+                case "2": {
+                    test_catch_up(true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 2.");
+                }
+            }
+        }
+    }
+
+    //! Test that a 1 ms runner keeps to wall clock time while another thread submits bursts of requests
+    public static void test_pacing_under_bursts(boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(20, 6);
+        PacedRunner runner = new PacedRunner(elevator_controller, 1000000, CatchUpPolicy.SKIP);
+
+        // Submit a burst of 200 requests every 50 ms while the runner runs
+        Thread submitter = new Thread(() -> {
+            Random random = new Random(42);
+            for (int burst = 0; burst < 9; burst++) {
+                for (int k = 0; k < 200; k++) {
+                    runner.submit(new StopRequest(1 + random.nextInt(20), 1 + random.nextInt(20)));
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long start_ns = System.nanoTime();
+        submitter.start();
+        runner.run_ticks(500);
+        long elapsed_ms = (System.nanoTime() - start_ns) / 1000000;
+        submitter.join();
+
+        if (debug) {
+            System.out.println("Ran " + Long.toString(runner.get_num_ticks()) + " time steps in " + Long.toString(elapsed_ms) + " ms");
+            System.out.println("Deadline misses: " + Long.toString(runner.get_num_deadline_misses()) + ", skipped time steps: " + Long.toString(runner.get_num_skipped_ticks()));
+            System.out.println("Jitter p50: " + Long.toString(runner.get_jitter_percentile_ns(50) / 1000) + " us, p99: "
+                    + Long.toString(runner.get_jitter_percentile_ns(99) / 1000) + " us, max: " + Long.toString(runner.get_max_jitter_ns() / 1000) + " us");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (runner.get_num_ticks() + runner.get_num_skipped_ticks() != 500) {
+            throw new Exception("Every tick period should have been run or skipped.");
+        } else if (elapsed_ms < 499 || elapsed_ms > 750) {
+            throw new Exception("500 time steps of 1 ms should take about 500 ms, not " + Long.toString(elapsed_ms) + " ms.");
+        } else if (runner.get_num_rejected() != 0) {
+            throw new Exception("No request should have been rejected.");
+        }
+    }
+
+    //! Test that a time step that overruns is followed by skipped time steps, or by a burst of catch up time steps
+    public static void test_catch_up(boolean debug) throws Exception {
+        for (CatchUpPolicy catch_up_policy : CatchUpPolicy.values()) {
+            // Hand a slow dispatcher a large backlog in one time step, which is sure to overrun
+            ElevatorController elevator_controller = new ElevatorController(20, 8);
+            elevator_controller.set_dispatch_mode(DispatchMode.ROLLOUT);
+            PacedRunner runner = new PacedRunner(elevator_controller, 1000000, catch_up_policy);
+            runner.set_hand_off_limits(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+            Random random = new Random(7);
+            for (int k = 0; k < 500; k++) {
+                runner.submit(new StopRequest(1 + random.nextInt(20), 1 + random.nextInt(20)));
+            }
+            runner.run_ticks(100);
+
+            if (debug) {
+                System.out.println(catch_up_policy.toString() + ": ran " + Long.toString(runner.get_num_ticks()) + " time steps, skipped "
+                        + Long.toString(runner.get_num_skipped_ticks()) + ", missed " + Long.toString(runner.get_num_deadline_misses()) + " deadlines");
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (runner.get_num_deadline_misses() < 1) {
+                throw new Exception("The first time step should have missed its deadline.");
+            } else if (catch_up_policy == CatchUpPolicy.SKIP && (runner.get_num_skipped_ticks() < 1 || runner.get_num_ticks() + runner.get_num_skipped_ticks() != 100)) {
+                throw new Exception("The missed time steps should have been skipped.");
+            } else if (catch_up_policy == CatchUpPolicy.BURST && (runner.get_num_skipped_ticks() != 0 || runner.get_num_ticks() != 100)) {
+                throw new Exception("The missed time steps should have been run in a burst.");
+            }
+        }
+    }
+}
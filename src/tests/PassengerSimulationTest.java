@@ -0,0 +1,101 @@
+// Elevator System imports
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.PassengerSimulation;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class PassengerSimulationTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test that every passenger makes all of their trips, and that a seed always gives the same run
+            test_reproducible(false);
+
+            // Test a building with many passengers
+            test_many_agents(50000, false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_reproducible(true);
+                    break;
+                }
+                case "2": {
+                    // A million passengers needs a larger heap, e.g. make test_agents JAVA_FLAGS=-Xmx3g ARGS=2
+                    test_many_agents(1000000, true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 2.");
+                }
+            }
+        }
+    }
+
+    /*!
+     * \brief Run a simulation, checking that every passenger made all of their trips
+     *
+     * \param num_floors Number of floors in the building
+     * \param num_elevators Number of elevators in the building
+     * \param num_agents Number of passengers
+     * \param arrival_window Number of time steps over which the passengers arrive
+     * \param mean_stay Mean number of time steps a passenger stays on a floor
+     * \param debug Whether to print the results
+     *
+     * \return The simulation after it has run
+     */
+    private static PassengerSimulation run_simulation(int num_floors, int num_elevators, int num_agents, int arrival_window,
+            int mean_stay, boolean debug) throws Exception {
+        ElevatorController controller = new ElevatorController(num_floors, num_elevators);
+        PassengerSimulation simulation = new PassengerSimulation(controller, num_agents, 11);
+        simulation.set_behaviour(3, arrival_window, mean_stay);
+        long num_ticks = simulation.run(10000000);
+
+        if (debug) {
+            System.out.println("Passengers: " + Integer.toString(num_agents) + ", " + Integer.toString(simulation.get_num_finished()) + " finished");
+            System.out.println("Trips: " + Long.toString(simulation.get_num_trips()) + ", " + Long.toString((long) simulation.get_trips_per_second()) + " trips/sec");
+            System.out.println("Time steps: " + Long.toString(num_ticks) + ", " + Long.toString((long) simulation.get_ticks_per_second()) + " ticks/sec");
+            System.out.println("Wait for a pick up: " + String.format("%.2f", simulation.get_mean_wait()) + " mean, " + Long.toString(simulation.get_max_wait()) + " longest");
+            System.out.println("Mean ride: " + String.format("%.2f", simulation.get_mean_ride()) + " time steps");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (simulation.get_num_finished() != num_agents) {
+            throw new Exception("Only " + Integer.toString(simulation.get_num_finished()) + " of " + Integer.toString(num_agents) + " passengers finished.");
+        }
+        if (simulation.get_num_trips() != 3L * num_agents) {
+            throw new Exception("Passengers made " + Long.toString(simulation.get_num_trips()) + " trips, not " + Long.toString(3L * num_agents) + ".");
+        }
+        if (simulation.get_mean_wait() <= 0 || simulation.get_mean_ride() <= 0) {
+            throw new Exception("Passengers took no time to wait or ride.");
+        }
+
+        return simulation;
+    }
+
+    //! Test that every passenger makes all of their trips, and that a seed always gives the same run
+    public static void test_reproducible(boolean debug) throws Exception {
+        PassengerSimulation first = run_simulation(30, 8, 20000, 2000, 300, debug);
+        PassengerSimulation second = run_simulation(30, 8, 20000, 2000, 300, false);
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (first.get_mean_wait() != second.get_mean_wait() || first.get_max_wait() != second.get_max_wait()
+                || first.get_mean_ride() != second.get_mean_ride()) {
+            throw new Exception("Two runs with the same seed were different.");
+        }
+
+        if (debug) {
+            System.out.println("Test Success");
+        }
+    }
+
+    //! Test a building with many passengers
+    public static void test_many_agents(int num_agents, boolean debug) throws Exception {
+        run_simulation(60, 40, num_agents, 20000, 2000, debug);
+
+        if (debug) {
+            System.out.println("Test Success");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+// Standard Library Imports
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.RequestGateway;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class RequestGatewayTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test that requests are added and acknowledged with their elevator
+            test_acknowledgements(false);
+
+            // Test a gateway serving many button panels at once
+            test_many_connections(2000, false);
+
+            // Test that presses of the same hall button from two panels join one hall call
+            test_hall_presses(false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_acknowledgements(true);
+                    break;
+                }
+                case "2": {
+                    // Both ends of every connection are open in this process, so stay under a 20000 file descriptor limit
+                    test_many_connections(9000, true);
+                    break;
+                }
+                case "3": {
+                    test_hall_presses(true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 3.");
+                }
+            }
+        }
+    }
+
+    /*!
+     * \brief Connect a button panel to a gateway
+     *
+     * \param gateway The gateway
+     *
+     * \return A blocking connection to the gateway
+     */
+    private static SocketChannel connect(RequestGateway gateway) throws Exception {
+        return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.get_port()));
+    }
+
+    /*!
+     * \brief Poll the gateway and step the controller until a panel has received a number of acknowledgements
+     *
+     * \param gateway The gateway
+     * \param controller The controller behind the gateway
+     * \param panel Connection of the panel
+     * \param num_acks Number of acknowledgements expected
+     *
+     * \return The acknowledgements, ready to be read
+     */
+    private static ByteBuffer await_acks(RequestGateway gateway, ElevatorController controller, SocketChannel panel, int num_acks) throws Exception {
+        ByteBuffer acks = ByteBuffer.allocate(num_acks * RequestGateway.ACK_SIZE);
+        panel.configureBlocking(false);
+        for (int tick = 0; acks.hasRemaining(); tick++) {
+            if (tick > 10000) {
+                throw new Exception("The acknowledgements never arrived.");
+            }
+            gateway.poll();
+            controller.step();
+            panel.read(acks);
+            Thread.sleep(0, 100000);
+        }
+        return acks.flip();
+    }
+
+    //! Test that a batch of requests from one panel is added to the controller, and acknowledged in order with each elevator
+    public static void test_acknowledgements(boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(10, 4);
+        RequestGateway gateway = new RequestGateway(elevator_controller, 0);
+        SocketChannel panel = connect(gateway);
+
+        // Send three requests and an invalid one in one write, split across two packets
+        ByteBuffer requests = ByteBuffer.allocate(4 * RequestGateway.REQUEST_SIZE);
+        requests.putInt(101).putInt(8).putInt(1).put(RequestGateway.NO_DIRECTION);
+        requests.putInt(102).putInt(8).putInt(2).put(RequestGateway.NO_DIRECTION);
+        requests.putInt(103).putInt(3).putInt(0).put(RequestGateway.NO_DIRECTION);
+        requests.putInt(104).putInt(11).putInt(1).put(RequestGateway.NO_DIRECTION);
+        requests.flip();
+        requests.limit(17);
+        panel.write(requests);
+        gateway.poll();
+        requests.limit(requests.capacity());
+        panel.write(requests);
+
+        ByteBuffer acks = await_acks(gateway, elevator_controller, panel, 4);
+        int[] tags = new int[4];
+        int[] elevator_indices = new int[4];
+        for (int k = 0; k < 4; k++) {
+            tags[k] = acks.getInt();
+            elevator_indices[k] = acks.getInt();
+
+            if (debug) {
+                System.out.println("Request " + Integer.toString(tags[k]) + " assigned to elevator " + Integer.toString(elevator_indices[k]));
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        for (int k = 0; k < 4; k++) {
+            if (tags[k] != 101 + k) {
+                throw new Exception("Acknowledgements should arrive in the order the requests were sent.");
+            }
+        }
+        if (elevator_indices[3] != RequestGateway.REJECTED || gateway.get_num_rejected() != 1) {
+            throw new Exception("The request for floor 11 should have been rejected.");
+        } else if (elevator_indices[1] != elevator_indices[0]) {
+            throw new Exception("The second press of the down button on floor 8 should join the first call.");
+        } else if (elevator_indices[0] < 0 || elevator_indices[2] < 0) {
+            throw new Exception("The valid requests should have been assigned an elevator.");
+        } else if (gateway.get_num_requests() != 3) {
+            throw new Exception("Three requests should have been added to the controller.");
+        }
+
+        panel.close();
+        gateway.close();
+    }
+
+    /*!
+     * \brief Test that a gateway serves many button panels at once, each sending one request
+     *
+     * \param num_panels Number of button panels to connect
+     * \param debug Whether to report timings
+     */
+    public static void test_many_connections(int num_panels, boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(50, 8);
+        RequestGateway gateway = new RequestGateway(elevator_controller, 0);
+
+        // Connect every panel, polling so the gateway keeps accepting them
+        long start_ns = System.nanoTime();
+        List<SocketChannel> panels = new ArrayList<SocketChannel>();
+        for (int k = 0; k < num_panels; k++) {
+            panels.add(connect(gateway));
+            if (k % 100 == 99) {
+                gateway.poll();
+            }
+        }
+        while (gateway.get_num_connections() < num_panels) {
+            gateway.poll();
+        }
+        long connected_ns = System.nanoTime();
+
+        // Each panel sends one request, and every request is handled within a few polls
+        ByteBuffer request = ByteBuffer.allocate(RequestGateway.REQUEST_SIZE);
+        for (int k = 0; k < num_panels; k++) {
+            request.clear();
+            request.putInt(k).putInt(1 + k % 50).putInt(1 + (k + 25) % 50).put(RequestGateway.NO_DIRECTION).flip();
+            panels.get(k).write(request);
+        }
+        int num_polls = 0;
+        while (gateway.get_num_requests() < num_panels) {
+            if (++num_polls > 100000) {
+                throw new Exception("Only " + Long.toString(gateway.get_num_requests()) + " requests were handled.");
+            }
+            gateway.poll();
+            elevator_controller.step();
+        }
+        long handled_ns = System.nanoTime();
+
+        // Every panel gets its own acknowledgement
+        ByteBuffer ack = ByteBuffer.allocate(RequestGateway.ACK_SIZE);
+        for (int k = 0; k < num_panels; k++) {
+            ack.clear();
+            while (ack.hasRemaining()) {
+                panels.get(k).read(ack);
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (ack.getInt(0) != k || ack.getInt(Integer.BYTES) < 0) {
+                throw new Exception("Panel " + Integer.toString(k) + " got the wrong acknowledgement.");
+            }
+        }
+
+        if (debug) {
+            System.out.println("Connected " + Integer.toString(num_panels) + " panels in " + Long.toString((connected_ns - start_ns) / 1000000) + " ms");
+            System.out.println("Handled " + Integer.toString(num_panels) + " requests in " + Long.toString((handled_ns - connected_ns) / 1000000) + " ms over "
+                    + Integer.toString(num_polls) + " time steps");
+        }
+
+        for (SocketChannel panel : panels) {
+            panel.close();
+        }
+        gateway.close();
+    }
+
+    //! Test that two panels pressing the same hall button, which has no drop off floor, join the same hall call
+    public static void test_hall_presses(boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(10, 4);
+        RequestGateway gateway = new RequestGateway(elevator_controller, 0);
+        SocketChannel first_panel = connect(gateway);
+        SocketChannel second_panel = connect(gateway);
+
+        // Each panel presses the down button on floor 8, and the first also sends a down button press with a drop off floor
+        ByteBuffer requests = ByteBuffer.allocate(2 * RequestGateway.REQUEST_SIZE);
+        requests.putInt(201).putInt(8).putInt(0).put((byte) DirectionRequest.DESCENDING.ordinal());
+        requests.putInt(202).putInt(8).putInt(1).put((byte) DirectionRequest.DESCENDING.ordinal());
+        first_panel.write(requests.flip());
+        ByteBuffer first_acks = await_acks(gateway, elevator_controller, first_panel, 2);
+
+        ByteBuffer request = ByteBuffer.allocate(RequestGateway.REQUEST_SIZE);
+        request.putInt(301).putInt(8).putInt(0).put((byte) DirectionRequest.DESCENDING.ordinal());
+        second_panel.write(request.flip());
+        ByteBuffer second_acks = await_acks(gateway, elevator_controller, second_panel, 1);
+
+        int first_index = first_acks.getInt(Integer.BYTES);
+        int second_index = second_acks.getInt(Integer.BYTES);
+        if (debug) {
+            System.out.println("First press assigned to elevator " + Integer.toString(first_index) + ", second press to elevator "
+                    + Integer.toString(second_index) + ", " + Integer.toString(elevator_controller.get_num_merged_calls()) + " merged");
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (first_index < 0 || second_index != first_index) {
+            throw new Exception("The second press of the down button on floor 8 should join the first one's elevator.");
+        } else if (elevator_controller.get_num_merged_calls() != 1) {
+            throw new Exception("The second press of the down button on floor 8 should have been merged into the hall call.");
+        } else if (first_acks.getInt(RequestGateway.ACK_SIZE + Integer.BYTES) != RequestGateway.REJECTED) {
+            throw new Exception("A hall button press with a drop off floor should have been rejected.");
+        }
+
+        first_panel.close();
+        second_panel.close();
+        gateway.close();
+    }
+}
@@ -0,0 +1,267 @@
+// Standard Library Imports
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Elevator System imports
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.RequestLog;
+import ElevatorSystem.StopRequest;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class RequestLogTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test recovering the pending requests after a crash
+            test_recovery(false);
+
+            // Test that a compacted log stays small and still recovers the pending requests
+            test_compaction(false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_recovery(true);
+                    break;
+                }
+                case "2": {
+                    test_logging_overhead(true);
+                    break;
+                }
+                case "3": {
+                    test_compaction(true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 3.");
+                }
+            }
+        }
+    }
+
+    //! Test that replaying the log of a crashed controller restores its elevators and waiting requests
+    public static void test_recovery(boolean debug) throws Exception {
+        Path path = Files.createTempFile("elevator_requests", ".log");
+
+        // Run a controller with a request log for a few time steps
+        ElevatorController elevator_controller = new ElevatorController(10, 2);
+        RequestLog request_log = new RequestLog(path, 1024);
+        elevator_controller.set_request_log(request_log);
+
+        elevator_controller.add_stop(new StopRequest(1, 9));
+        elevator_controller.add_stop(new StopRequest(8, 2));
+        elevator_controller.add_stop(new StopRequest(6, 3));
+
+        // This request is cancelled, so it must not come back
+        StopRequest cancelled = new StopRequest(4, 7);
+        elevator_controller.add_stop(cancelled);
+        elevator_controller.cancel_stop(cancelled);
+
+        // The floors only become durable with a commit that has request records in it
+        int committed_floor = 1;
+        for (int step = 0; step < 4; step++) {
+            long num_commits = request_log.get_num_commits();
+            elevator_controller.step();
+            if (request_log.get_num_commits() > num_commits) {
+                committed_floor = elevator_controller.get_elevators().get(0).get_current_floor();
+            }
+        }
+        int num_pending = elevator_controller.get_num_pending();
+
+        // This request is never committed, so it is lost in the crash
+        elevator_controller.add_stop(new StopRequest(5, 10));
+
+        // Replay the log, as if the process had died
+        RequestLog.Recovery recovery = RequestLog.replay(path);
+        if (debug) {
+            System.out.println("Replayed records: " + Long.toString(recovery.get_num_records()));
+            System.out.println("Pending requests: " + Integer.toString(recovery.get_pending().size()));
+            System.out.println("Elevator 1 riders heading to: " + recovery.get_riding(0).toString());
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (recovery.get_pending().size() != num_pending) {
+            throw new Exception("The replayed log should hold the " + Integer.toString(num_pending) + " pending requests.");
+        } else if (!recovery.get_riding(0).contains(9)) {
+            throw new Exception("The passenger riding elevator 1 to the 9th floor should have been recovered.");
+        } else if (recovery.get_floors() == null || recovery.get_floors()[0] != committed_floor) {
+            throw new Exception("Elevator 1 should have been recovered on floor " + Integer.toString(committed_floor) + ".");
+        }
+
+        // Rebuild a controller from the log and run it to completion
+        ElevatorController recovered_controller = new ElevatorController(10, 2);
+        RequestLog recovered_log = new RequestLog(path, 1024);
+        recovered_controller.set_request_log(recovered_log);
+        recovered_controller.recover(recovery);
+
+        while (recovered_controller.is_active()) {
+            recovered_controller.step();
+
+            if (debug) {
+                recovered_controller.display_status();
+            }
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (recovered_controller.get_num_pending() != 0) {
+            throw new Exception("Every recovered request should have been picked up.");
+        }
+
+        // An idle controller has nothing to make durable, so it never forces the log
+        long num_commits = recovered_log.get_num_commits();
+        for (int step = 0; step < 10; step++) {
+            recovered_controller.step();
+        }
+        if (recovered_log.get_num_commits() != num_commits) {
+            throw new Exception("An idle controller should not commit the log.");
+        }
+
+        request_log.close();
+        recovered_log.close();
+
+        // A pick up served as soon as it is added leaves nobody riding to its floor, so no drop off is logged for it
+        ElevatorController waiting_controller = new ElevatorController(10, 1);
+        RequestLog waiting_log = new RequestLog(path, 1024);
+        waiting_controller.set_request_log(waiting_log);
+        waiting_controller.add_stop(new StopRequest(1, 6));
+        waiting_controller.step();
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (waiting_log.get_num_records() != 3) {
+            throw new Exception("Only the request, its pick up and the floors should have been logged, not " + Long.toString(waiting_log.get_num_records()) + " records.");
+        }
+
+        waiting_log.close();
+
+        // An idle elevator sent away to spread out the fleet is logged as riding there, until it is given a request
+        ElevatorController parking_controller = new ElevatorController(20, 2);
+        RequestLog parking_log = new RequestLog(path, 1024);
+        parking_controller.set_request_log(parking_log);
+        parking_controller.set_spacing(5, 0);
+        parking_controller.step();
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (parking_controller.get_num_parked() != 1 || RequestLog.replay(path).get_riding(0).isEmpty()) {
+            throw new Exception("Elevator 1 should have been logged as riding to the floor it was sent to.");
+        }
+        if (parking_controller.add_stop(new StopRequest(12, 18)) != parking_controller.get_elevators().get(0)) {
+            throw new Exception("Elevator 1 should have been given the request on its way up.");
+        }
+        parking_controller.step();
+        if (!RequestLog.replay(path).get_riding(0).isEmpty()) {
+            throw new Exception("Elevator 1 should no longer be logged as riding once it is given a request.");
+        }
+
+        parking_log.close();
+        Files.delete(path);
+    }
+
+    //! Test that a compacted log stays small and still recovers the pending requests
+    public static void test_compaction(boolean debug) throws Exception {
+        Path path = Files.createTempFile("elevator_requests", ".log");
+        int max_log_bytes = 16 << 10;
+
+        // Run a busy controller long enough for its log to be compacted many times
+        ElevatorController elevator_controller = new ElevatorController(20, 4);
+        RequestLog request_log = new RequestLog(path, 1024);
+        request_log.set_max_log_bytes(max_log_bytes);
+        elevator_controller.set_request_log(request_log);
+
+        Random random = new Random(11);
+        for (int step = 0; step < 5000; step++) {
+            if (step % 2 == 0) {
+                int pick_up_floor = 1 + random.nextInt(20);
+                int drop_off_floor = 1 + random.nextInt(20);
+                if (pick_up_floor != drop_off_floor) {
+                    elevator_controller.add_stop(new StopRequest(pick_up_floor, drop_off_floor));
+                }
+            }
+            elevator_controller.step();
+        }
+
+        if (debug) {
+            System.out.println("Records: " + Long.toString(request_log.get_num_records()) + ", compactions: "
+                    + Long.toString(request_log.get_num_compactions()) + ", bytes written: "
+                    + Long.toString(request_log.get_bytes_written()) + ", log size: " + Long.toString(Files.size(path)));
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (request_log.get_num_compactions() == 0) {
+            throw new Exception("The log should have been compacted.");
+        } else if (Files.size(path) != request_log.get_log_bytes() || Files.size(path) > 2 * max_log_bytes) {
+            throw new Exception("The compacted log should stay within twice its size limit.");
+        }
+
+        // Replay the compacted log, as if the process had died
+        RequestLog.Recovery recovery = RequestLog.replay(path);
+        if (recovery.get_pending().size() != elevator_controller.get_num_pending()) {
+            throw new Exception("The compacted log should hold the " + Integer.toString(elevator_controller.get_num_pending()) + " pending requests.");
+        } else if (recovery.get_floors() == null) {
+            throw new Exception("The compacted log should hold the floor of every elevator.");
+        }
+
+        // Rebuild a controller from the log and run it to completion
+        ElevatorController recovered_controller = new ElevatorController(20, 4);
+        recovered_controller.recover(recovery);
+        while (recovered_controller.is_active()) {
+            recovered_controller.step();
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (recovered_controller.get_num_pending() != 0) {
+            throw new Exception("Every recovered request should have been picked up.");
+        }
+
+        if (debug) {
+            System.out.println("Test Success");
+        }
+
+        request_log.close();
+        Files.delete(path);
+    }
+
+    //! Report the cost of logging a large number of requests, with one commit per time step
+    public static void test_logging_overhead(boolean debug) throws Exception {
+        int num_requests = 1000000;
+        int requests_per_step = 1000;
+        Path path = Files.createTempFile("elevator_requests", ".log");
+
+        for (int run = 0; run < 2; run++) {
+            boolean logged = run == 1;
+            ElevatorController elevator_controller = new ElevatorController(50, 16);
+            RequestLog request_log = null;
+            if (logged) {
+                request_log = new RequestLog(path, 1 << 20);
+                elevator_controller.set_request_log(request_log);
+            }
+
+            // Add a batch of random requests each time step
+            Random random = new Random(7);
+            long start_ns = System.nanoTime();
+            for (int request = 0; request < num_requests; request++) {
+                elevator_controller.add_stop(new StopRequest(1 + random.nextInt(50), 1 + random.nextInt(50)));
+                if ((request + 1) % requests_per_step == 0) {
+                    elevator_controller.step();
+                }
+            }
+            long elapsed_ns = System.nanoTime() - start_ns;
+
+            if (debug) {
+                System.out.println((logged ? "Logged:   " : "Unlogged: ")
+                        + Long.toString(num_requests * 1000000000L / elapsed_ns) + " requests/sec"
+                        + (logged ? ", " + Long.toString(request_log.get_num_records()) + " records, "
+                                + Long.toString(request_log.get_num_commits()) + " commits, "
+                                + Long.toString(request_log.get_bytes_written() >> 20) + " MB" : ""));
+            }
+
+            if (request_log != null) {
+                request_log.close();
+            }
+        }
+
+        Files.delete(path);
+    }
+}
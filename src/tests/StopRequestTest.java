@@ -1,7 +1,11 @@
 // Standard Library Imports
+import java.nio.ByteBuffer;
+import java.util.HashSet;
 import java.util.PriorityQueue;
 
 // Elevator System imports
+import ElevatorSystem.DirectionRequest;
+import ElevatorSystem.RequestPriority;
 import ElevatorSystem.StopRequest;
 
 // Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
@@ -11,6 +15,9 @@ public class StopRequestTest {
     public static void main(String[] args) throws Exception {
         test_stop_request_comparison();
         test_stop_request_queue();
+        test_stop_request_direction();
+        test_stop_request_encoding();
+        test_stop_request_drop_off_floors();
     }
 
     //! Test comparisons between different stop requests
@@ -50,4 +57,80 @@ public class StopRequestTest {
             throw new Exception("Second equality between request1 and request2 failed.");
         }
     }
+
+    //! Test the hall button direction implied by the drop off floors
+    public static void test_stop_request_direction() throws Exception {
+
+        HashSet<Integer> mixed_floors = new HashSet<Integer>() {{
+            add(1);
+            add(7);
+        }};
+
+        if (new StopRequest(3, 7).get_direction() != DirectionRequest.ASCENDING) {
+            throw new Exception("A request from floor 3 to floor 7 should be ascending.");
+        }
+
+        if (new StopRequest(3, 1).get_direction() != DirectionRequest.DESCENDING) {
+            throw new Exception("A request from floor 3 to floor 1 should be descending.");
+        }
+
+        if (new StopRequest(3).get_direction() != null || new StopRequest(3, mixed_floors).get_direction() != null) {
+            throw new Exception("Requests without a single direction should not have a direction.");
+        }
+
+        if (new StopRequest(3, DirectionRequest.DESCENDING).get_direction() != DirectionRequest.DESCENDING) {
+            throw new Exception("A hall call from the down button on floor 3 should be descending.");
+        }
+    }
+
+    //! Test that an encoded stop request decodes to the same floors and priority class
+    public static void test_stop_request_encoding() throws Exception {
+
+        StopRequest stop = new StopRequest(4, 9);
+        stop.set_priority(RequestPriority.EMERGENCY);
+
+        ByteBuffer buffer = ByteBuffer.allocate(stop.encoded_size());
+        stop.write_to(buffer);
+        buffer.flip();
+        StopRequest decoded = StopRequest.read_from(buffer);
+
+        if (decoded.get_pick_up_floor() != 4 || !decoded.get_drop_off_floors().equals(stop.get_drop_off_floors())) {
+            throw new Exception("The decoded stop request should have the same floors.");
+        }
+
+        if (decoded.get_priority() != RequestPriority.EMERGENCY || new StopRequest(4).get_priority() != RequestPriority.NORMAL) {
+            throw new Exception("The decoded stop request should keep its priority class, which defaults to normal.");
+        }
+
+        StopRequest hall_call = new StopRequest(6, DirectionRequest.ASCENDING);
+        buffer = ByteBuffer.allocate(hall_call.encoded_size());
+        hall_call.write_to(buffer);
+        buffer.flip();
+        decoded = StopRequest.read_from(buffer);
+
+        if (decoded.get_pick_up_floor() != 6 || decoded.get_direction() != DirectionRequest.ASCENDING || !decoded.get_drop_off_floors().isEmpty()) {
+            throw new Exception("The decoded hall call should keep the direction of the button that was pressed.");
+        }
+    }
+
+    //! Test that the destination floors can only be changed through the stop request
+    public static void test_stop_request_drop_off_floors() throws Exception {
+
+        HashSet<Integer> floors = new HashSet<Integer>();
+        floors.add(5);
+        floors.add(8);
+        StopRequest stop = new StopRequest(2, floors);
+        stop.combine_destination_floors(new StopRequest(2, 10));
+
+        try {
+            stop.get_drop_off_floors().add(3);
+            throw new Exception("The destination floors returned by a stop request should not be changeable.");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+
+        if (stop.get_drop_off_floors().size() != 3 || stop.get_drop_off_floors().contains(3)) {
+            throw new Exception("The stop request should have kept its 3 destination floors.");
+        }
+    }
 }
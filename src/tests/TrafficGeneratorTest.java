@@ -0,0 +1,236 @@
+// Standard Library Imports
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Elevator System imports
+import ElevatorSystem.ElevatorController;
+import ElevatorSystem.RequestPriority;
+import ElevatorSystem.StopRequest;
+import ElevatorSystem.TrafficGenerator;
+import ElevatorSystem.TrafficPattern;
+
+// Attempted to set up junit, but that wasn't working so made an example to mimic what would be the junit test
+public class TrafficGeneratorTest {
+
+    //! Main function to call all of the tests
+    public static void main(String[] args) throws Exception {
+
+        if (args.length == 0) {
+            // Test that a seed produces the same traffic on any thread
+            test_reproducible(false);
+
+            // Test the arrival rate and the shape of each traffic pattern
+            test_patterns(false);
+
+            // Test a day of traffic through a building
+            test_simulated_day(false);
+
+        } else if (args.length == 1) {
+            switch (args[0]) {
+                case "1": {
+                    test_reproducible(true);
+                    break;
+                }
+                case "2": {
+                    test_patterns(true);
+                    break;
+                }
+                case "3": {
+                    test_simulated_day(true);
+                    break;
+                }
+                default: {
+                    throw new Exception("Test case must be a number from 1 to 3.");
+                }
+            }
+        }
+    }
+
+    //! Describe the requests of a time step as text, so they can be compared
+    private static String describe(TrafficGenerator generator, long tick) {
+        return generator.requests(tick)
+                .map(stop -> Integer.toString(stop.get_pick_up_floor()) + ">" + stop.get_drop_off_floors().toString())
+                .collect(Collectors.joining(" "));
+    }
+
+    //! Test that a seed produces the same traffic whether the time steps are generated in order or split across threads
+    public static void test_reproducible(boolean debug) throws Exception {
+        TrafficGenerator generator = new TrafficGenerator(20, 2.5, 7);
+        generator.randomize_populations(10, 100);
+        generator.set_pattern(TrafficPattern.LUNCH);
+
+        // Generate 1000 time steps in order
+        String[] expected = new String[1000];
+        for (int tick = 0; tick < expected.length; tick++) {
+            expected[tick] = describe(generator, tick);
+        }
+
+        // Generate them again in reverse order, interleaved across four threads
+        String[] actual = new String[expected.length];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int first_tick = expected.length - 1 - t;
+            Thread thread = new Thread(() -> {
+                for (int tick = first_tick; tick >= 0; tick -= 4) {
+                    actual[tick] = describe(generator, tick);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (debug) {
+            System.out.println("Time step 0: " + expected[0]);
+            System.out.println("Time step 999: " + expected[999]);
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        for (int tick = 0; tick < expected.length; tick++) {
+            if (!expected[tick].equals(actual[tick])) {
+                throw new Exception("Time step " + Integer.toString(tick) + " should produce the same requests on every thread.");
+            }
+        }
+
+        // A second generator with the same seed matches, and one with another seed doesn't. Populations that are rejected
+        // part way through must leave the generator as it was
+        TrafficGenerator same_seed = new TrafficGenerator(20, 2.5, 7);
+        same_seed.randomize_populations(10, 100);
+        same_seed.set_pattern(TrafficPattern.LUNCH);
+        int[][] rejected = {new int[20], {50, 40, 30, -1, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10}};
+        rejected[0][0] = 100;
+        for (int[] populations : rejected) {
+            try {
+                same_seed.set_populations(populations);
+                throw new Exception("Populations with nobody above the lobby, or with a negative floor, should be rejected.");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        same_seed.set_pattern(TrafficPattern.LUNCH);
+        TrafficGenerator other_seed = new TrafficGenerator(20, 2.5, 8);
+        other_seed.randomize_populations(10, 100);
+        other_seed.set_pattern(TrafficPattern.LUNCH);
+        int num_different = 0;
+        for (int tick = 0; tick < expected.length; tick++) {
+            if (!describe(same_seed, tick).equals(expected[tick])) {
+                throw new Exception("A generator with the same seed should produce the same requests.");
+            }
+            if (!describe(other_seed, tick).equals(expected[tick])) {
+                num_different += 1;
+            }
+        }
+        if (num_different < 900) {
+            throw new Exception("A generator with another seed should produce different requests.");
+        }
+    }
+
+    //! Test that the arrivals average the arrival rate, and that each pattern sends passengers where it should
+    public static void test_patterns(boolean debug) throws Exception {
+        int num_ticks = 20000;
+        TrafficPattern[] patterns = {TrafficPattern.INTERFLOOR, TrafficPattern.UP_PEAK, TrafficPattern.DOWN_PEAK, TrafficPattern.LUNCH};
+        for (TrafficPattern pattern : patterns) {
+            // Floor 10 has three times the population of any other floor, so it should draw more than twice the passengers
+            TrafficGenerator generator = new TrafficGenerator(10, 1.5, 3);
+            generator.set_populations(new int[] {0, 10, 10, 10, 10, 10, 10, 10, 10, 30});
+            generator.set_pattern(pattern);
+
+            long num_requests = 0;
+            long num_from_lobby = 0;
+            long num_to_lobby = 0;
+            long[] num_to_floor = new long[11];
+            for (long tick = 0; tick < num_ticks; tick++) {
+                for (StopRequest stop : generator.requests(tick).toList()) {
+                    int drop_off_floor = stop.get_drop_off_floors().iterator().next();
+                    if (stop.get_pick_up_floor() == drop_off_floor) {
+                        throw new Exception("A passenger should never travel to the floor they are on.");
+                    }
+                    num_requests += 1;
+                    num_from_lobby += stop.get_pick_up_floor() == 1 ? 1 : 0;
+                    num_to_lobby += drop_off_floor == 1 ? 1 : 0;
+                    num_to_floor[drop_off_floor] += 1;
+                }
+            }
+
+            double rate = (double) num_requests / num_ticks;
+            double from_lobby = (double) num_from_lobby / num_requests;
+            double to_lobby = (double) num_to_lobby / num_requests;
+            if (debug) {
+                System.out.println(pattern.toString() + ": " + String.format("%.3f", rate) + " arrivals per time step, "
+                        + String.format("%.2f", from_lobby) + " from the lobby, " + String.format("%.2f", to_lobby) + " to the lobby, "
+                        + Long.toString(num_to_floor[10]) + " to floor 10 and " + Long.toString(num_to_floor[9]) + " to floor 9.");
+            }
+
+            // This would normally be a junit assert statement, but didn't have time to get that set up
+            if (Math.abs(rate - 1.5) > 0.05) {
+                throw new Exception(pattern.toString() + " should average 1.5 arrivals per time step.");
+            }
+            switch (pattern) {
+                case TrafficPattern.INTERFLOOR: {
+                    if (num_from_lobby != 0 || num_to_lobby != 0) {
+                        throw new Exception("Interfloor traffic should never use the lobby.");
+                    }
+                    break;
+                }
+                case TrafficPattern.UP_PEAK: {
+                    if (from_lobby != 1.0) {
+                        throw new Exception("Up peak traffic should all leave from the lobby.");
+                    }
+                    break;
+                }
+                case TrafficPattern.DOWN_PEAK: {
+                    if (to_lobby != 1.0) {
+                        throw new Exception("Down peak traffic should all head to the lobby.");
+                    }
+                    break;
+                }
+                case TrafficPattern.LUNCH: {
+                    if (Math.abs(from_lobby - 0.4) > 0.02 || Math.abs(to_lobby - 0.4) > 0.02) {
+                        throw new Exception("Lunch traffic should be 40% from and 40% to the lobby.");
+                    }
+                    break;
+                }
+            }
+            if (pattern != TrafficPattern.DOWN_PEAK && num_to_floor[10] < 2 * num_to_floor[9]) {
+                throw new Exception(pattern.toString() + " should send passengers to floors in proportion to their populations.");
+            }
+        }
+    }
+
+    //! Test a building through a morning up peak, lunch, and an evening down peak, with arrivals streamed every time step
+    public static void test_simulated_day(boolean debug) throws Exception {
+        ElevatorController elevator_controller = new ElevatorController(20, 6);
+        TrafficGenerator generator = new TrafficGenerator(20, 0.2, 11);
+        generator.randomize_populations(20, 80);
+
+        TrafficPattern[] patterns = {TrafficPattern.UP_PEAK, TrafficPattern.INTERFLOOR, TrafficPattern.LUNCH, TrafficPattern.INTERFLOOR, TrafficPattern.DOWN_PEAK};
+        long tick = 0;
+        for (TrafficPattern pattern : patterns) {
+            generator.set_pattern(pattern);
+            for (int k = 0; k < 10000; k++) {
+                generator.requests(tick).forEach(elevator_controller::add_stop);
+                elevator_controller.step();
+                tick += 1;
+            }
+
+            if (debug) {
+                System.out.println(pattern.toString() + ": " + Long.toString(elevator_controller.get_num_picked_up(RequestPriority.NORMAL))
+                        + " passengers picked up, mean wait " + String.format("%.1f", elevator_controller.get_mean_wait(RequestPriority.NORMAL))
+                        + " time steps, longest wait " + Long.toString(elevator_controller.get_max_wait(RequestPriority.NORMAL)) + " time steps.");
+            }
+        }
+
+        // Let the building drain
+        while (elevator_controller.is_active()) {
+            elevator_controller.step();
+        }
+
+        // This would normally be a junit assert statement, but didn't have time to get that set up
+        if (elevator_controller.get_num_pending() != 0) {
+            throw new Exception("Every passenger should have been picked up.");
+        }
+    }
+}